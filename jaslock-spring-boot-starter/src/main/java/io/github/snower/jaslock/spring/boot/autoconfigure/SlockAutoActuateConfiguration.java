@@ -1,7 +1,9 @@
 package io.github.snower.jaslock.spring.boot.autoconfigure;
 
+import io.github.snower.jaslock.spring.boot.AdaptiveLimiterRegistry;
 import io.github.snower.jaslock.spring.boot.actuate.SlockHealthIndicator;
 import io.github.snower.jaslock.spring.boot.SlockTemplate;
+import io.github.snower.jaslock.spring.boot.actuate.SlockMeterBinder;
 import org.springframework.boot.actuate.autoconfigure.OnEndpointElementCondition;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
@@ -23,4 +25,16 @@ public class SlockAutoActuateConfiguration {
     public SlockHealthIndicator slockHealthIndicator(SlockTemplate slockTemplate) {
         return new SlockHealthIndicator(slockTemplate);
     }
+
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.binder.MeterBinder")
+    public static class SlockMetricsConfiguration {
+        @ConditionalOnProperty(value = "management.metrics.slock.enabled", havingValue = "true", matchIfMissing = true)
+        @ConditionalOnBean(AdaptiveLimiterRegistry.class)
+        @ConditionalOnMissingBean
+        @Bean
+        public SlockMeterBinder slockMeterBinder(AdaptiveLimiterRegistry adaptiveLimiterRegistry) {
+            return new SlockMeterBinder(adaptiveLimiterRegistry);
+        }
+    }
 }
@@ -1,9 +1,13 @@
 package io.github.snower.jaslock.spring.boot.autoconfigure;
 
 import io.github.snower.jaslock.exceptions.ClientUnconnectException;
+import io.github.snower.jaslock.spring.boot.AbstractBaseAspect;
+import io.github.snower.jaslock.spring.boot.AdaptiveLimiterRegistry;
+import io.github.snower.jaslock.spring.boot.JacksonSerializater;
 import io.github.snower.jaslock.spring.boot.SlockSerializater;
 import io.github.snower.jaslock.spring.boot.SlockTemplate;
 import io.github.snower.jaslock.spring.boot.aspects.*;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -14,15 +18,36 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 
 @Configuration
 @EnableConfigurationProperties(SlockProperties.class)
 @ConditionalOnProperty(value = "spring.slock.enabled", havingValue = "true", matchIfMissing = true)
 public class SlockAutoConfiguration {
+    @Configuration
+    @ConditionalOnClass(name = "com.fasterxml.jackson.databind.ObjectMapper")
+    public static class SlockJacksonSerializaterConfiguration {
+        @ConditionalOnProperty(value = "spring.slock.serializater", havingValue = "json")
+        @ConditionalOnMissingBean
+        @Bean(value = "slockSerializater")
+        public SlockSerializater slockSerializater(SlockProperties slockProperties) {
+            return slockProperties.buildSerializater(new JacksonSerializater());
+        }
+
+        @ConditionalOnClass(name = "com.fasterxml.jackson.dataformat.smile.SmileFactory")
+        @ConditionalOnProperty(value = "spring.slock.serializater", havingValue = "smile")
+        @ConditionalOnMissingBean
+        @Bean(value = "slockSerializater")
+        public SlockSerializater slockSmileSerializater(SlockProperties slockProperties) {
+            return slockProperties.buildSerializater(JacksonSerializater.newSmileSerializater());
+        }
+    }
+
     @ConditionalOnMissingBean
     @Bean(value = "slockSerializater")
-    public SlockSerializater slockSerializater() {
-        return new SlockSerializater.ObjectSerializater();
+    public SlockSerializater slockSerializater(SlockProperties slockProperties) {
+        return slockProperties.buildSerializater(new SlockSerializater.ObjectSerializater());
     }
 
     @ConditionalOnMissingBean(value = SlockTemplate.class, name = "slockTemplate")
@@ -40,65 +65,120 @@ public class SlockAutoConfiguration {
     @ConditionalOnBean(SlockTemplate.class)
     @ConditionalOnMissingBean
     @Bean
-    public LockAspect lockAspect(SlockTemplate slockTemplate) {
-        return new LockAspect(slockTemplate);
+    public AdaptiveLimiterRegistry adaptiveLimiterRegistry() {
+        return new AdaptiveLimiterRegistry();
+    }
+
+    @ConditionalOnBean(SlockTemplate.class)
+    @ConditionalOnMissingBean(name = "slockAsyncExecutor")
+    @Bean(value = "slockAsyncExecutor", destroyMethod = "shutdown")
+    public ExecutorService slockAsyncExecutor(SlockProperties slockProperties) {
+        return slockProperties.buildAsyncExecutor();
+    }
+
+    @ConditionalOnProperty(value = "spring.slock.fuse-aspects", havingValue = "false", matchIfMissing = true)
+    @ConditionalOnBean(SlockTemplate.class)
+    @ConditionalOnMissingBean
+    @Bean
+    public LockAspect lockAspect(SlockTemplate slockTemplate,
+                                 @Qualifier("slockAsyncExecutor") Executor slockAsyncExecutor, AdaptiveLimiterRegistry adaptiveLimiterRegistry) {
+        return configureAspect(new LockAspect(slockTemplate), slockAsyncExecutor, adaptiveLimiterRegistry);
     }
 
+    @ConditionalOnProperty(value = "spring.slock.fuse-aspects", havingValue = "false", matchIfMissing = true)
     @ConditionalOnClass(TransactionSynchronizationManager.class)
     @ConditionalOnBean(SlockTemplate.class)
     @ConditionalOnMissingBean
     @Bean
-    public LockWithTransactionAspect lockWithTransactionAspect(SlockTemplate slockTemplate) {
-        return new LockWithTransactionAspect(slockTemplate);
+    public LockWithTransactionAspect lockWithTransactionAspect(SlockTemplate slockTemplate,
+                                                               @Qualifier("slockAsyncExecutor") Executor slockAsyncExecutor, AdaptiveLimiterRegistry adaptiveLimiterRegistry) {
+        return configureAspect(new LockWithTransactionAspect(slockTemplate), slockAsyncExecutor, adaptiveLimiterRegistry);
     }
 
+    @ConditionalOnProperty(value = "spring.slock.fuse-aspects", havingValue = "false", matchIfMissing = true)
     @ConditionalOnBean(SlockTemplate.class)
     @ConditionalOnMissingBean
     @Bean
-    public MaxConcurrentFlowAspect maxConcurrentFlowAspect(SlockTemplate slockTemplate) {
-        return new MaxConcurrentFlowAspect(slockTemplate);
+    public MaxConcurrentFlowAspect maxConcurrentFlowAspect(SlockTemplate slockTemplate,
+                                                           @Qualifier("slockAsyncExecutor") Executor slockAsyncExecutor, AdaptiveLimiterRegistry adaptiveLimiterRegistry) {
+        return configureAspect(new MaxConcurrentFlowAspect(slockTemplate), slockAsyncExecutor, adaptiveLimiterRegistry);
     }
 
+    @ConditionalOnProperty(value = "spring.slock.fuse-aspects", havingValue = "false", matchIfMissing = true)
     @ConditionalOnBean(SlockTemplate.class)
     @ConditionalOnMissingBean
     @Bean
-    public TokenBucketFlowAspect tokenBucketFlowAspect(SlockTemplate slockTemplate) {
-        return new TokenBucketFlowAspect(slockTemplate);
+    public TokenBucketFlowAspect tokenBucketFlowAspect(SlockTemplate slockTemplate,
+                                                       @Qualifier("slockAsyncExecutor") Executor slockAsyncExecutor, AdaptiveLimiterRegistry adaptiveLimiterRegistry) {
+        return configureAspect(new TokenBucketFlowAspect(slockTemplate), slockAsyncExecutor, adaptiveLimiterRegistry);
     }
 
+    @ConditionalOnProperty(value = "spring.slock.fuse-aspects", havingValue = "false", matchIfMissing = true)
     @ConditionalOnBean(SlockTemplate.class)
     @ConditionalOnMissingBean
     @Bean
-    public IdempotentAspect idempotentAspect(SlockTemplate slockTemplate, SlockSerializater slockSerializater) {
-        return new IdempotentAspect(slockTemplate, slockSerializater);
+    public IdempotentAspect idempotentAspect(SlockTemplate slockTemplate, SlockSerializater slockSerializater,
+                                             @Qualifier("slockAsyncExecutor") Executor slockAsyncExecutor, AdaptiveLimiterRegistry adaptiveLimiterRegistry) {
+        return configureAspect(new IdempotentAspect(slockTemplate, slockSerializater), slockAsyncExecutor, adaptiveLimiterRegistry);
     }
 
+    @ConditionalOnProperty(value = "spring.slock.fuse-aspects", havingValue = "false", matchIfMissing = true)
     @ConditionalOnBean(SlockTemplate.class)
     @ConditionalOnMissingBean
     @Bean
-    public LocksAspect locksAspect(SlockTemplate slockTemplate) {
-        return new LocksAspect(slockTemplate);
+    public LocksAspect locksAspect(SlockTemplate slockTemplate,
+                                   @Qualifier("slockAsyncExecutor") Executor slockAsyncExecutor, AdaptiveLimiterRegistry adaptiveLimiterRegistry) {
+        return configureAspect(new LocksAspect(slockTemplate), slockAsyncExecutor, adaptiveLimiterRegistry);
     }
 
+    @ConditionalOnProperty(value = "spring.slock.fuse-aspects", havingValue = "false", matchIfMissing = true)
     @ConditionalOnClass(TransactionSynchronizationManager.class)
     @ConditionalOnBean(SlockTemplate.class)
     @ConditionalOnMissingBean
     @Bean
-    public LockWithTransactionsAspect lockWithTransactionsAspect(SlockTemplate slockTemplate) {
-        return new LockWithTransactionsAspect(slockTemplate);
+    public LockWithTransactionsAspect lockWithTransactionsAspect(SlockTemplate slockTemplate,
+                                                                 @Qualifier("slockAsyncExecutor") Executor slockAsyncExecutor, AdaptiveLimiterRegistry adaptiveLimiterRegistry) {
+        return configureAspect(new LockWithTransactionsAspect(slockTemplate), slockAsyncExecutor, adaptiveLimiterRegistry);
     }
 
+    @ConditionalOnProperty(value = "spring.slock.fuse-aspects", havingValue = "false", matchIfMissing = true)
     @ConditionalOnBean(SlockTemplate.class)
     @ConditionalOnMissingBean
     @Bean
-    public MaxConcurrentFlowsAspect maxConcurrentFlowsAspect(SlockTemplate slockTemplate) {
-        return new MaxConcurrentFlowsAspect(slockTemplate);
+    public MaxConcurrentFlowsAspect maxConcurrentFlowsAspect(SlockTemplate slockTemplate,
+                                                             @Qualifier("slockAsyncExecutor") Executor slockAsyncExecutor, AdaptiveLimiterRegistry adaptiveLimiterRegistry) {
+        return configureAspect(new MaxConcurrentFlowsAspect(slockTemplate), slockAsyncExecutor, adaptiveLimiterRegistry);
     }
 
+    @ConditionalOnProperty(value = "spring.slock.fuse-aspects", havingValue = "false", matchIfMissing = true)
     @ConditionalOnBean(SlockTemplate.class)
     @ConditionalOnMissingBean
     @Bean
-    public TokenBucketFlowsAspect tokenBucketFlowsAspect(SlockTemplate slockTemplate) {
-        return new TokenBucketFlowsAspect(slockTemplate);
+    public TokenBucketFlowsAspect tokenBucketFlowsAspect(SlockTemplate slockTemplate,
+                                                         @Qualifier("slockAsyncExecutor") Executor slockAsyncExecutor, AdaptiveLimiterRegistry adaptiveLimiterRegistry) {
+        return configureAspect(new TokenBucketFlowsAspect(slockTemplate), slockAsyncExecutor, adaptiveLimiterRegistry);
+    }
+
+    @ConditionalOnProperty(value = "spring.slock.precompile-key-evaluate", havingValue = "true", matchIfMissing = true)
+    @ConditionalOnBean(SlockTemplate.class)
+    @ConditionalOnMissingBean
+    @Bean
+    public SlockAspectPrecompiler slockAspectPrecompiler() {
+        return new SlockAspectPrecompiler();
+    }
+
+    @ConditionalOnProperty(value = "spring.slock.fuse-aspects", havingValue = "true")
+    @ConditionalOnBean(SlockTemplate.class)
+    @ConditionalOnMissingBean
+    @Bean
+    public SlockAnnotationsAspect slockAnnotationsAspect(SlockTemplate slockTemplate, SlockSerializater slockSerializater,
+                                                         @Qualifier("slockAsyncExecutor") Executor slockAsyncExecutor, AdaptiveLimiterRegistry adaptiveLimiterRegistry) {
+        return configureAspect(new SlockAnnotationsAspect(slockTemplate, slockSerializater), slockAsyncExecutor, adaptiveLimiterRegistry);
+    }
+
+    private static <T extends AbstractBaseAspect> T configureAspect(T aspect, Executor asyncExecutor, AdaptiveLimiterRegistry adaptiveLimiterRegistry) {
+        aspect.setAsyncExecutor(asyncExecutor);
+        aspect.setAdaptiveLimiterRegistry(adaptiveLimiterRegistry);
+        return aspect;
     }
 }
@@ -2,7 +2,10 @@ package io.github.snower.jaslock.spring.boot.autoconfigure;
 
 import io.github.snower.jaslock.callback.ExecutorOption;
 
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class SlockExecutorOptionProperties {
     private Integer workerCount = 1;
@@ -54,4 +57,14 @@ public class SlockExecutorOptionProperties {
     public ExecutorOption buildExecutorOption() {
         return new ExecutorOption(workerCount, maxWorkerCount, maxCapacity, workerKeepAliveTime, workerKeepAliveTimeUnit);
     }
+
+    public ThreadPoolExecutor buildThreadPoolExecutor(String threadNamePrefix) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        return new ThreadPoolExecutor(workerCount, Math.max(maxWorkerCount, workerCount), workerKeepAliveTime, workerKeepAliveTimeUnit,
+                new LinkedBlockingQueue<>(maxCapacity), runnable -> {
+            Thread thread = new Thread(runnable, threadNamePrefix + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 }
@@ -1,13 +1,18 @@
 package io.github.snower.jaslock.spring.boot.autoconfigure;
 
 import io.github.snower.jaslock.callback.ExecutorOption;
+import io.github.snower.jaslock.spring.boot.CompressionSerializater;
 import io.github.snower.jaslock.spring.boot.SlockConfiguration;
+import io.github.snower.jaslock.spring.boot.SlockSerializater;
+import io.github.snower.jaslock.spring.boot.annotations.KeyEncoding;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.expression.spel.SpelCompilerMode;
 
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -21,8 +26,20 @@ public class SlockProperties {
     private List<String> hosts = null;
     private Integer databaseId = 0;
     private SlockExecutorOptionProperties executor = null;
+    private SlockExecutorOptionProperties asyncExecutor = null;
     private Short defaultTimeoutFlag = 0;
     private Short defaultExpriedFlag = 0;
+    private boolean compileKeyEvaluate = true;
+    private SpelCompilerMode spelCompilerMode = SpelCompilerMode.MIXED;
+    private KeyEncoding keyEncoding = KeyEncoding.RAW;
+    private int idempotentCacheSize = 0;
+    private int idempotentCacheTtl = 0;
+    private boolean millisecondTime = true;
+    private boolean precompileKeyEvaluate = true;
+    private boolean fuseAspects = false;
+    private String serializater = "java";
+    private CompressionSerializater.Algorithm compression = CompressionSerializater.Algorithm.NONE;
+    private int compressionThreshold = 4096;
 
     public void setEnabled(boolean enabled) {
         this.enabled = enabled;
@@ -80,6 +97,14 @@ public class SlockProperties {
         return executor;
     }
 
+    public void setAsyncExecutor(SlockExecutorOptionProperties asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    public SlockExecutorOptionProperties getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
     public void setDefaultTimeoutFlag(Short defaultTimeoutFlag) {
         this.defaultTimeoutFlag = defaultTimeoutFlag;
     }
@@ -96,7 +121,121 @@ public class SlockProperties {
         return defaultExpriedFlag;
     }
 
+    public void setCompileKeyEvaluate(boolean compileKeyEvaluate) {
+        this.compileKeyEvaluate = compileKeyEvaluate;
+    }
+
+    public boolean isCompileKeyEvaluate() {
+        return compileKeyEvaluate;
+    }
+
+    public void setSpelCompilerMode(SpelCompilerMode spelCompilerMode) {
+        this.spelCompilerMode = spelCompilerMode;
+    }
+
+    public SpelCompilerMode getSpelCompilerMode() {
+        return spelCompilerMode;
+    }
+
+    public void setKeyEncoding(KeyEncoding keyEncoding) {
+        this.keyEncoding = keyEncoding;
+    }
+
+    public KeyEncoding getKeyEncoding() {
+        return keyEncoding;
+    }
+
+    public void setIdempotentCacheSize(int idempotentCacheSize) {
+        this.idempotentCacheSize = idempotentCacheSize;
+    }
+
+    public int getIdempotentCacheSize() {
+        return idempotentCacheSize;
+    }
+
+    public void setIdempotentCacheTtl(int idempotentCacheTtl) {
+        this.idempotentCacheTtl = idempotentCacheTtl;
+    }
+
+    public int getIdempotentCacheTtl() {
+        return idempotentCacheTtl;
+    }
+
+    public void setMillisecondTime(boolean millisecondTime) {
+        this.millisecondTime = millisecondTime;
+    }
+
+    public boolean isMillisecondTime() {
+        return millisecondTime;
+    }
+
+    public void setPrecompileKeyEvaluate(boolean precompileKeyEvaluate) {
+        this.precompileKeyEvaluate = precompileKeyEvaluate;
+    }
+
+    public boolean isPrecompileKeyEvaluate() {
+        return precompileKeyEvaluate;
+    }
+
+    public void setFuseAspects(boolean fuseAspects) {
+        this.fuseAspects = fuseAspects;
+    }
+
+    public boolean isFuseAspects() {
+        return fuseAspects;
+    }
+
+    public void setSerializater(String serializater) {
+        this.serializater = serializater;
+    }
+
+    public String getSerializater() {
+        return serializater;
+    }
+
+    public void setCompression(CompressionSerializater.Algorithm compression) {
+        this.compression = compression;
+    }
+
+    public CompressionSerializater.Algorithm getCompression() {
+        return compression;
+    }
+
+    public void setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    public SlockSerializater buildSerializater(SlockSerializater serializater) {
+        if (compression == null || compression == CompressionSerializater.Algorithm.NONE) {
+            return serializater;
+        }
+        return new CompressionSerializater(serializater, compression, compressionThreshold);
+    }
+
+    public ThreadPoolExecutor buildAsyncExecutor() {
+        SlockExecutorOptionProperties executorOption = asyncExecutor;
+        if (executorOption == null) {
+            int workerCount = Math.max(Runtime.getRuntime().availableProcessors(), 2);
+            executorOption = new SlockExecutorOptionProperties();
+            executorOption.setWorkerCount(workerCount);
+            executorOption.setMaxWorkerCount(workerCount);
+            executorOption.setWorkerKeepAliveTime(60);
+        }
+        return executorOption.buildThreadPoolExecutor("slock-async-");
+    }
+
     public SlockConfiguration buildConfiguration() {
+        SlockConfiguration.Builder builder = SlockConfiguration.newBuilder()
+                .setCompileKeyEvaluate(compileKeyEvaluate)
+                .setSpelCompilerMode(spelCompilerMode)
+                .setKeyEncoding(keyEncoding)
+                .setIdempotentCacheSize(idempotentCacheSize)
+                .setIdempotentCacheTtl(idempotentCacheTtl)
+                .setMillisecondTime(millisecondTime);
         if (url != null && !url.isEmpty()) {
             if (!url.startsWith("slock://")) throw new IllegalArgumentException("slock unknown url schema");
 
@@ -125,22 +264,27 @@ public class SlockProperties {
                             TimeUnit.SECONDS);
                 }
                 if (hosts.size() > 1) {
-                    return new SlockConfiguration(null, 0, hosts,
-                            Integer.parseInt(params.getOrDefault("database", "0")), executorOption,
-                            Short.parseShort(params.getOrDefault("defaultTimeoutFlag", "0")),
-                            Short.parseShort(params.getOrDefault("defaultExpriedFlag", "0")));
+                    builder.setHosts(hosts);
+                } else {
+                    builder.setHost(uri.getHost() == null ? "127.0.0.1" : uri.getHost())
+                            .setPort(uri.getPort());
                 }
-                return new SlockConfiguration(uri.getHost() == null ? "127.0.0.1" : uri.getHost(), uri.getPort(), null,
-                        Integer.parseInt(params.getOrDefault("database", "0")), executorOption,
-                        Short.parseShort(params.getOrDefault("defaultTimeoutFlag", "0")),
-                        Short.parseShort(params.getOrDefault("defaultExpriedFlag", "0")));
+                return builder.setDatabaseId(Integer.parseInt(params.getOrDefault("database", "0")))
+                        .setExecutorOption(executorOption)
+                        .setDefaultTimeoutFlag(Short.parseShort(params.getOrDefault("defaultTimeoutFlag", "0")))
+                        .setDefaultExpriedFlag(Short.parseShort(params.getOrDefault("defaultExpriedFlag", "0")))
+                        .build();
             } catch (URISyntaxException e) {
                 throw new RuntimeException(e);
             }
         }
-        return new SlockConfiguration(host, port == null ? 0 : port, hosts,
-                databaseId == null ? 0 : databaseId,
-                executor != null ? executor.buildExecutorOption() : null,
-                defaultTimeoutFlag, defaultExpriedFlag);
+        return builder.setHost(host)
+                .setPort(port == null ? 0 : port)
+                .setHosts(hosts)
+                .setDatabaseId(databaseId == null ? 0 : databaseId)
+                .setExecutorOption(executor != null ? executor.buildExecutorOption() : null)
+                .setDefaultTimeoutFlag(defaultTimeoutFlag == null ? 0 : defaultTimeoutFlag)
+                .setDefaultExpriedFlag(defaultExpriedFlag == null ? 0 : defaultExpriedFlag)
+                .build();
     }
 }
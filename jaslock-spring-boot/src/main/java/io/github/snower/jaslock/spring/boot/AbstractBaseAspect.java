@@ -1,5 +1,11 @@
 package io.github.snower.jaslock.spring.boot;
 
+import io.github.snower.jaslock.exceptions.LockTimeoutException;
+import io.github.snower.jaslock.exceptions.SlockException;
+import io.github.snower.jaslock.spring.boot.annotations.KeyEncoding;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.BeanFactoryAware;
@@ -14,18 +20,26 @@ import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.expression.spel.support.StandardTypeLocator;
+import org.springframework.util.ClassUtils;
 import org.springframework.util.ReflectionUtils;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.Parameter;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public abstract class AbstractBaseAspect implements BeanFactoryAware, ApplicationContextAware {
+    private static final Logger logger = LoggerFactory.getLogger(AbstractBaseAspect.class);
     protected final static StandardReflectionParameterNameDiscoverer parameterNameDiscoverer = new StandardReflectionParameterNameDiscoverer();
     protected final SlockTemplate slockTemplate;
     protected BeanFactory beanFactory;
@@ -33,15 +47,98 @@ public abstract class AbstractBaseAspect implements BeanFactoryAware, Applicatio
     protected SpelExpressionParser spelExpressionParser;
     protected StandardEvaluationContext applicationEvaluationContext;
     protected Map<Method, KeyEvaluate> keyEvaluateCache = new ConcurrentHashMap<>();
+    protected boolean compileKeyEvaluate;
+    protected SpelCompilerMode spelCompilerMode;
+    protected KeyEncoding keyEncoding;
+    protected boolean millisecondTime;
+    protected LocalLockRegistry localLockRegistry = LocalLockRegistry.getSharedRegistry();
+    protected AdaptiveLimiterRegistry adaptiveLimiterRegistry = new AdaptiveLimiterRegistry();
+    protected Executor asyncExecutor = ForkJoinPool.commonPool();
 
     protected AbstractBaseAspect(SlockTemplate slockTemplate) {
         this.slockTemplate = slockTemplate;
+        SlockConfiguration configuration = slockTemplate == null ? null : slockTemplate.getConfiguration();
+        this.compileKeyEvaluate = configuration == null || configuration.isCompileKeyEvaluate();
+        this.spelCompilerMode = configuration == null ? SpelCompilerMode.MIXED : configuration.getSpelCompilerMode();
+        this.keyEncoding = configuration == null ? KeyEncoding.RAW : configuration.getKeyEncoding();
+        this.millisecondTime = configuration == null || configuration.isMillisecondTime();
+    }
+
+    public boolean isCompileKeyEvaluate() {
+        return compileKeyEvaluate;
+    }
+
+    public void setCompileKeyEvaluate(boolean compileKeyEvaluate) {
+        this.compileKeyEvaluate = compileKeyEvaluate;
+    }
+
+    public SpelCompilerMode getSpelCompilerMode() {
+        return spelCompilerMode;
+    }
+
+    public void setSpelCompilerMode(SpelCompilerMode spelCompilerMode) {
+        this.spelCompilerMode = spelCompilerMode;
+        if (beanFactory != null) {
+            this.spelExpressionParser = new SpelExpressionParser(new SpelParserConfiguration(spelCompilerMode,
+                    beanFactory.getClass().getClassLoader()));
+        }
+    }
+
+    public KeyEncoding getKeyEncoding() {
+        return keyEncoding;
+    }
+
+    public void setKeyEncoding(KeyEncoding keyEncoding) {
+        this.keyEncoding = keyEncoding;
+    }
+
+    public LocalLockRegistry getLocalLockRegistry() {
+        return localLockRegistry;
+    }
+
+    public void setLocalLockRegistry(LocalLockRegistry localLockRegistry) {
+        this.localLockRegistry = localLockRegistry;
+    }
+
+    public AdaptiveLimiterRegistry getAdaptiveLimiterRegistry() {
+        return adaptiveLimiterRegistry;
+    }
+
+    public void setAdaptiveLimiterRegistry(AdaptiveLimiterRegistry adaptiveLimiterRegistry) {
+        this.adaptiveLimiterRegistry = adaptiveLimiterRegistry;
+    }
+
+    public Executor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    /**
+     * Executor running the bodies of async annotated methods once the permit is acquired, ThreadLocal, MDC,
+     * security and transaction context of the calling thread are not propagated to it.
+     */
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    protected KeyEncoding resolveKeyEncoding(KeyEncoding keyEncoding) {
+        if (keyEncoding != null && keyEncoding != KeyEncoding.DEFAULT) return keyEncoding;
+        return this.keyEncoding == null || this.keyEncoding == KeyEncoding.DEFAULT ? KeyEncoding.RAW : this.keyEncoding;
+    }
+
+    protected int encodeTimeout(int timeout, int timeoutFlag, TimeUnit timeUnit) {
+        if (timeUnit == null || timeUnit == TimeUnit.SECONDS) return timeout | (timeoutFlag << 16);
+        return TimeEncoding.encodeTimeout(timeout, timeUnit, millisecondTime) | (timeoutFlag << 16);
+    }
+
+    protected int encodeExpried(int expried, int expriedFlag, TimeUnit timeUnit) {
+        if (timeUnit == null || timeUnit == TimeUnit.SECONDS) return expried | (expriedFlag << 16);
+        return TimeEncoding.encodeExpried(expried, timeUnit, millisecondTime) | (expriedFlag << 16);
     }
 
     @Override
     public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
         this.beanFactory = beanFactory;
-        this.spelExpressionParser = new SpelExpressionParser(new SpelParserConfiguration(SpelCompilerMode.MIXED,
+        this.spelExpressionParser = new SpelExpressionParser(new SpelParserConfiguration(spelCompilerMode,
                 beanFactory.getClass().getClassLoader()));
         if (applicationContext != null && applicationEvaluationContext == null) {
             this.buildApplicationEvaluationContext();
@@ -70,11 +167,207 @@ public abstract class AbstractBaseAspect implements BeanFactoryAware, Applicatio
         applicationEvaluationContext.setTypeLocator(new StandardTypeLocator(beanFactory.getClass().getClassLoader()));
     }
 
+    public static Throwable translateException(Throwable e, Class<? extends Exception> timeoutException,
+                                               Class<? extends Exception> exception) {
+        Class<? extends Exception> exceptionClass = e instanceof LockTimeoutException ? timeoutException
+                : (e instanceof SlockException ? exception : null);
+        if (exceptionClass == null || exceptionClass.isInstance(e)) return e;
+        try {
+            return exceptionClass.getConstructor(String.class, Throwable.class).newInstance(e.getMessage(), e);
+        } catch (ReflectiveOperationException ex) {
+            e.addSuppressed(ex);
+            return e;
+        }
+    }
+
+    public static SlockException newSlockException(SlockException exception, Throwable cause) {
+        exception.initCause(cause);
+        return exception;
+    }
+
+    public static Exception newException(Class<? extends Exception> exception, String message) {
+        try {
+            return exception.getConstructor(String.class).newInstance(message);
+        } catch (ReflectiveOperationException e) {
+            try {
+                return exception.getConstructor(String.class, Throwable.class).newInstance(message, null);
+            } catch (ReflectiveOperationException ex) {
+                return new IllegalStateException(message);
+            }
+        }
+    }
+
     public static Method getMethod(Class<?> clazz, String filedName) {
         return ReflectionUtils.findMethod(clazz, "get" + filedName.substring(0, 1)
                 .toUpperCase() + filedName.substring(1));
     }
 
+    public Class<? extends Annotation> getAnnotationType() {
+        return null;
+    }
+
+    public KeyEvaluate compileMethodKeyEvaluate(Method method) {
+        Class<? extends Annotation> annotationType = getAnnotationType();
+        if (annotationType == null) {
+            throw new UnsupportedOperationException();
+        }
+        Annotation annotation = method.getAnnotation(annotationType);
+        return compileKeyEvaluate(method, getTemplateKey(annotation), ke -> {
+            checkAsyncMethod(method, annotation);
+            return compileFallbackMethod(method, annotation, configureKeyEvaluate(annotation, ke));
+        });
+    }
+
+    protected String getTemplateKey(Annotation annotation) {
+        throw new UnsupportedOperationException();
+    }
+
+    protected String getFallback(Annotation annotation) {
+        return null;
+    }
+
+    protected KeyEvaluate compileFallbackMethod(Method method, Annotation annotation, KeyEvaluate keyEvaluate) {
+        String fallback = getFallback(annotation);
+        if (!isBlank(fallback)) {
+            keyEvaluate.setFallbackMethod(new FallbackMethod(method, fallback));
+        }
+        return keyEvaluate;
+    }
+
+    protected void checkAsyncMethod(Method method, Annotation annotation) {
+        if (!AsyncAspectSupport.isAsyncMethod(method)) return;
+        if (!isBlank(getFallback(annotation))) {
+            throw newAsyncUnsupportedException(method, "fallback");
+        }
+        if (annotation instanceof io.github.snower.jaslock.spring.boot.annotations.Lock) {
+            io.github.snower.jaslock.spring.boot.annotations.Lock lockAnnotation = (io.github.snower.jaslock.spring.boot.annotations.Lock) annotation;
+            if (lockAnnotation.localQueue()) throw newAsyncUnsupportedException(method, "localQueue");
+            if (lockAnnotation.autoRenew()) throw newAsyncUnsupportedException(method, "autoRenew");
+        }
+    }
+
+    protected IllegalArgumentException newAsyncUnsupportedException(Method method, String attributeName) {
+        return new IllegalArgumentException(attributeName + " is not supported on async method: "
+                + method.getDeclaringClass().getSimpleName() + "." + method.getName());
+    }
+
+    protected Object invokeFallbackMethod(KeyEvaluate keyEvaluate, ProceedingJoinPoint joinPoint) throws Throwable {
+        return keyEvaluate.getFallbackMethod().invoke(joinPoint.getTarget(), joinPoint.getArgs());
+    }
+
+    protected KeyEvaluate configureKeyEvaluate(Annotation annotation, KeyEvaluate keyEvaluate) {
+        return keyEvaluate;
+    }
+
+    protected LockRenewalWatchdog.Renewal registerRenewal(io.github.snower.jaslock.Lock lock, int expried) throws SlockException {
+        try {
+            return slockTemplate.getLockRenewalWatchdog().register(lock, LockRenewalWatchdog.getRenewalIntervalMillis(expried));
+        } catch (IllegalStateException e) {
+            throw newSlockException(new SlockException(e.getMessage()), e);
+        }
+    }
+
+    protected Object executeLock(ProceedingJoinPoint joinPoint, Method method, KeyEvaluate keyEvaluate, Object key, Invocation next) throws Throwable {
+        io.github.snower.jaslock.spring.boot.annotations.Lock lockAnnotation =
+                (io.github.snower.jaslock.spring.boot.annotations.Lock) keyEvaluate.getTargetParameter();
+        if (AsyncAspectSupport.isAsyncMethod(method)) {
+            return AsyncAspectSupport.execute(method, new AsyncAspectSupport.LockPermit((io.github.snower.jaslock.Lock) keyEvaluate.buildTargetInstance(key),
+                    lockAnnotation.timeoutException(), lockAnnotation.exception()), next, asyncExecutor);
+        }
+        if (!lockAnnotation.reentrant()) {
+            return doExecuteLock(joinPoint, keyEvaluate, lockAnnotation, key, next);
+        }
+        HeldLockKeys heldLockKeys = HeldLockKeys.current();
+        if (heldLockKeys.contains(lockAnnotation.databaseId(), key)) {
+            return next.proceed();
+        }
+        heldLockKeys.push(lockAnnotation.databaseId(), key);
+        try {
+            return doExecuteLock(joinPoint, keyEvaluate, lockAnnotation, key, next);
+        } finally {
+            heldLockKeys.pop();
+        }
+    }
+
+    private Object doExecuteLock(ProceedingJoinPoint joinPoint, KeyEvaluate keyEvaluate, io.github.snower.jaslock.spring.boot.annotations.Lock lockAnnotation,
+                                 Object key, Invocation next) throws Throwable {
+        LocalLockRegistry.LocalLock localLock = null;
+        if (lockAnnotation.localQueue()) {
+            try {
+                localLock = localLockRegistry.acquire(key, lockAnnotation.timeout() & 0xffff, lockAnnotation.timeUnit());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw translateException(newSlockException(new SlockException("local queue wait interrupted"), e),
+                        lockAnnotation.timeoutException(), lockAnnotation.exception());
+            }
+            if (localLock == null) {
+                if (keyEvaluate.getFallbackMethod() != null) return invokeFallbackMethod(keyEvaluate, joinPoint);
+                throw translateException(new LockTimeoutException("local queue wait timeout"),
+                        lockAnnotation.timeoutException(), lockAnnotation.exception());
+            }
+        }
+        try {
+            io.github.snower.jaslock.Lock lock = (io.github.snower.jaslock.Lock) keyEvaluate.buildTargetInstance(key);
+            try {
+                lock.acquire();
+            } catch (LockTimeoutException e) {
+                if (keyEvaluate.getFallbackMethod() != null) return invokeFallbackMethod(keyEvaluate, joinPoint);
+                throw e;
+            }
+            LockRenewalWatchdog.Renewal renewal = null;
+            try {
+                if (lockAnnotation.autoRenew()) {
+                    renewal = registerRenewal(lock, encodeExpried(lockAnnotation.expried(), lockAnnotation.expriedFlag(), lockAnnotation.timeUnit()));
+                }
+                return next.proceed();
+            } finally {
+                if (renewal != null) {
+                    renewal.cancel();
+                }
+                try {
+                    lock.release();
+                } catch (Exception e) {
+                    logger.warn(getClass().getSimpleName() + " release {} error {}", new String((byte[]) key, StandardCharsets.UTF_8), e, e);
+                }
+            }
+        } catch (LockTimeoutException e) {
+            if (!lockAnnotation.timeoutException().isInstance(e)) {
+                throw lockAnnotation.timeoutException().getConstructor(String.class, Throwable.class)
+                        .newInstance(e.getMessage(), e);
+            } else {
+                throw e;
+            }
+        } catch (SlockException e) {
+            if (!lockAnnotation.exception().isInstance(e)) {
+                throw lockAnnotation.exception().getConstructor(String.class, Throwable.class)
+                        .newInstance(e.getMessage(), e);
+            } else {
+                throw e;
+            }
+        } finally {
+            if (localLock != null) {
+                localLockRegistry.release(localLock);
+            }
+        }
+    }
+
+    public boolean isAnnotated(Method method) {
+        Class<? extends Annotation> annotationType = getAnnotationType();
+        return annotationType != null && method.isAnnotationPresent(annotationType);
+    }
+
+    public Class<?> getKeyType() {
+        return byte[].class;
+    }
+
+    public Object evaluateKey(KeyEvaluate keyEvaluate, Method method, Object[] args, Object target) {
+        return keyEvaluate.evaluateBytes(method, args, target);
+    }
+
+    public Object execute(ProceedingJoinPoint joinPoint, Method method, KeyEvaluate keyEvaluate, Object key, Invocation next) throws Throwable {
+        throw new UnsupportedOperationException();
+    }
+
     protected KeyEvaluate compileKeyEvaluate(Method method, String templateKey) {
         return compileKeyEvaluate(method, templateKey, null);
     }
@@ -85,17 +378,24 @@ public abstract class AbstractBaseAspect implements BeanFactoryAware, Applicatio
     }
 
     protected KeyEvaluate doCompileKeyEvaluate(Method method, String templateKey) {
+        KeyEvaluate keyEvaluate = null;
         for (int i = 0; i < templateKey.length(); i++) {
             char c = templateKey.charAt(i);
             if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '-')
                 continue;
             if (c != '{' && c != '}' && c != '.') {
-                return new SPELKeyEvaluate(parameterNameDiscoverer, applicationContext, applicationEvaluationContext,
+                keyEvaluate = new SPELKeyEvaluate(parameterNameDiscoverer, applicationContext, applicationEvaluationContext,
                         spelExpressionParser.parseExpression(templateKey, ParserContext.TEMPLATE_EXPRESSION));
+            } else {
+                keyEvaluate = compileValueGetterKeyEvaluate(method, templateKey);
             }
-            return compileValueGetterKeyEvaluate(method, templateKey);
+            break;
+        }
+        if (keyEvaluate == null) {
+            keyEvaluate = new ConstKeyEvaluate(templateKey);
         }
-        return new ConstKeyEvaluate(templateKey);
+        keyEvaluate.setTemplateKey(templateKey);
+        return keyEvaluate;
     }
 
     protected KeyEvaluate compileValueGetterKeyEvaluate(Method method, String templateKey) {
@@ -161,13 +461,17 @@ public abstract class AbstractBaseAspect implements BeanFactoryAware, Applicatio
                                 } else {
                                     Method argGetterMethod = getMethod(argClass, fieldKey);
                                     if (argGetterMethod != null) {
-                                        valueGetters.add(new MethodValueGetter(argGetterMethod, argIndex, defaultValue,
-                                                compileValueGetterFieldGetters(argGetterMethod.getReturnType(), fieldKey, getterNames)));
+                                        IFieldGetter[] fieldGetters = compileValueGetterFieldGetters(argGetterMethod.getReturnType(), argName, getterNames);
+                                        valueGetters.add(compileKeyEvaluate ? new CompiledValueGetter(argIndex, defaultValue,
+                                                compileFieldGetter(argGetterMethod), fieldGetters) :
+                                                new MethodValueGetter(argGetterMethod, argIndex, defaultValue, fieldGetters));
                                     } else {
                                         Field field = ReflectionUtils.findField(argClass, fieldKey);
                                         if (field != null) {
-                                            valueGetters.add(new FieldValueGetter(field, argIndex, defaultValue,
-                                                    compileValueGetterFieldGetters(field.getDeclaringClass(), argName, getterNames)));
+                                            IFieldGetter[] fieldGetters = compileValueGetterFieldGetters(field.getType(), argName, getterNames);
+                                            valueGetters.add(compileKeyEvaluate ? new CompiledValueGetter(argIndex, defaultValue,
+                                                    compileFieldGetter(field), fieldGetters) :
+                                                    new FieldValueGetter(field, argIndex, defaultValue, fieldGetters));
                                         } else {
                                             throw new IllegalArgumentException("unknown parameter: " + argName);
                                         }
@@ -203,12 +507,12 @@ public abstract class AbstractBaseAspect implements BeanFactoryAware, Applicatio
             } else {
                 Method argGetterMethod = getMethod(argClass, getterName);
                 if (argGetterMethod != null) {
-                    fieldGetters.add(new MethodFieldGetter(argGetterMethod));
+                    fieldGetters.add(compileKeyEvaluate ? compileFieldGetter(argGetterMethod) : new MethodFieldGetter(argGetterMethod));
                     argClass = argGetterMethod.getReturnType();
                 } else {
                     Field field = ReflectionUtils.findField(argClass, getterName);
                     if (field != null) {
-                        fieldGetters.add(new FieldFieldGetter(field));
+                        fieldGetters.add(compileKeyEvaluate ? compileFieldGetter(field) : new FieldFieldGetter(field));
                         argClass = field.getType();
                     } else {
                         throw new IllegalArgumentException("unknown parameter: " + argName);
@@ -219,9 +523,50 @@ public abstract class AbstractBaseAspect implements BeanFactoryAware, Applicatio
         return fieldGetters.isEmpty() ? null : fieldGetters.toArray(new IFieldGetter[0]);
     }
 
+    public static IFieldGetter compileFieldGetter(Method method) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        ClassLoader classLoader = AbstractBaseAspect.class.getClassLoader();
+        Class<?> returnType = method.getReturnType();
+        if (Modifier.isPublic(method.getModifiers()) && Modifier.isPublic(method.getDeclaringClass().getModifiers())
+                && ClassUtils.isVisible(method.getDeclaringClass(), classLoader)
+                && (returnType.isPrimitive() || ClassUtils.isVisible(returnType, classLoader))) {
+            try {
+                MethodHandle methodHandle = lookup.unreflect(method);
+                IFieldGetter fieldGetter = (IFieldGetter) LambdaMetafactory.metafactory(lookup, "getValue",
+                        MethodType.methodType(IFieldGetter.class), MethodType.methodType(Object.class, Object.class),
+                        methodHandle, methodHandle.type()).getTarget().invokeExact();
+                if (returnType == int.class || returnType == long.class || returnType == short.class || returnType == byte.class) {
+                    ILongFieldGetter longFieldGetter = (ILongFieldGetter) LambdaMetafactory.metafactory(lookup, "getLongValue",
+                            MethodType.methodType(ILongFieldGetter.class), MethodType.methodType(long.class, Object.class),
+                            methodHandle, methodHandle.type()).getTarget().invokeExact();
+                    return new LongFieldGetter(fieldGetter, longFieldGetter);
+                }
+                return fieldGetter;
+            } catch (Throwable ignored) {}
+        }
+        try {
+            ReflectionUtils.makeAccessible(method);
+            return new MethodHandleFieldGetter(lookup.unreflect(method));
+        } catch (RuntimeException | IllegalAccessException e) {
+            return new MethodFieldGetter(method);
+        }
+    }
+
+    public static IFieldGetter compileFieldGetter(Field field) {
+        try {
+            ReflectionUtils.makeAccessible(field);
+            return new MethodHandleFieldGetter(MethodHandles.lookup().unreflectGetter(field));
+        } catch (RuntimeException | IllegalAccessException e) {
+            return new FieldFieldGetter(field);
+        }
+    }
+
     @FunctionalInterface
     public interface KeyEvaluate {
         String evaluate(Method method, Object[] args, Object target);
+        default byte[] evaluateBytes(Method method, Object[] args, Object target) {
+            return KeyBuffer.encode(evaluate(method, args, target), getKeyEncoding());
+        }
         default void setTargetParameter(Object targetParameter) {
 
         }
@@ -234,11 +579,36 @@ public abstract class AbstractBaseAspect implements BeanFactoryAware, Applicatio
         default Object buildTargetInstance(Object arg) {
             return null;
         }
+        default void setKeyEncoding(KeyEncoding keyEncoding) {
+
+        }
+        default KeyEncoding getKeyEncoding() {
+            return KeyEncoding.RAW;
+        }
+        default void setTemplateKey(String templateKey) {
+
+        }
+        default String getTemplateKey() {
+            return null;
+        }
+        default void setFallbackMethod(FallbackMethod fallbackMethod) {
+
+        }
+        default FallbackMethod getFallbackMethod() {
+            return null;
+        }
+    }
+
+    public interface Invocation {
+        Object proceed() throws Throwable;
     }
 
     public static abstract class AbstractKeyEvaluate implements KeyEvaluate {
         private Object  targetParameter;
         private Function<Object, Object> targetInstanceBuilder;
+        private KeyEncoding keyEncoding = KeyEncoding.RAW;
+        private String templateKey;
+        private FallbackMethod fallbackMethod;
 
         @Override
         public void setTargetParameter(Object parameter) {
@@ -259,19 +629,62 @@ public abstract class AbstractBaseAspect implements BeanFactoryAware, Applicatio
         public Object buildTargetInstance(Object arg) {
             return this.targetInstanceBuilder.apply(arg);
         }
+
+        @Override
+        public void setKeyEncoding(KeyEncoding keyEncoding) {
+            this.keyEncoding = keyEncoding;
+        }
+
+        @Override
+        public KeyEncoding getKeyEncoding() {
+            return this.keyEncoding;
+        }
+
+        @Override
+        public void setTemplateKey(String templateKey) {
+            this.templateKey = templateKey;
+        }
+
+        @Override
+        public String getTemplateKey() {
+            return this.templateKey;
+        }
+
+        @Override
+        public void setFallbackMethod(FallbackMethod fallbackMethod) {
+            this.fallbackMethod = fallbackMethod;
+        }
+
+        @Override
+        public FallbackMethod getFallbackMethod() {
+            return this.fallbackMethod;
+        }
     }
 
     public static class ConstKeyEvaluate extends AbstractKeyEvaluate {
         private final String value;
+        private byte[] bytes;
 
         public ConstKeyEvaluate(String value) {
             this.value = value;
+            this.bytes = value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void setKeyEncoding(KeyEncoding keyEncoding) {
+            super.setKeyEncoding(keyEncoding);
+            this.bytes = KeyBuffer.encode(value, keyEncoding);
         }
 
         @Override
         public String evaluate(Method method, Object[] args, Object target) {
             return value;
         }
+
+        @Override
+        public byte[] evaluateBytes(Method method, Object[] args, Object target) {
+            return bytes;
+        }
     }
 
     public static class SPELKeyEvaluate extends AbstractKeyEvaluate {
@@ -279,6 +692,8 @@ public abstract class AbstractBaseAspect implements BeanFactoryAware, Applicatio
         private final ApplicationContext applicationContext;
         private final StandardEvaluationContext applicationEvaluationContext;
         private final Expression expression;
+        private final ThreadLocal<ReusableKeyEvaluationContext> evaluationContexts = new ThreadLocal<>();
+        private volatile MethodParameterNames methodParameterNames;
 
         protected SPELKeyEvaluate(StandardReflectionParameterNameDiscoverer parameterNameDiscoverer, ApplicationContext applicationContext, StandardEvaluationContext applicationEvaluationContext, Expression expression) {
             this.parameterNameDiscoverer = parameterNameDiscoverer;
@@ -289,10 +704,43 @@ public abstract class AbstractBaseAspect implements BeanFactoryAware, Applicatio
 
         @Override
         public String evaluate(Method method, Object[] args, Object target) {
-            KeyEvaluationContext evaluationContext = new KeyEvaluationContext(target, method, args,
-                    parameterNameDiscoverer, applicationEvaluationContext);
-            evaluationContext.setVariable("environment", applicationContext.getEnvironment());
-            return expression.getValue(evaluationContext, String.class);
+            ReusableKeyEvaluationContext evaluationContext = evaluationContexts.get();
+            if (evaluationContext == null) {
+                evaluationContext = newEvaluationContext();
+                evaluationContexts.set(evaluationContext);
+            } else if (evaluationContext.isUsed()) {
+                evaluationContext = newEvaluationContext();
+            }
+            try {
+                return expression.getValue(evaluationContext.reset(target, getParameterNames(method), args), String.class);
+            } finally {
+                evaluationContext.release();
+            }
+        }
+
+        protected ReusableKeyEvaluationContext newEvaluationContext() {
+            return new ReusableKeyEvaluationContext(applicationEvaluationContext,
+                    applicationContext != null ? applicationContext.getEnvironment() : null);
+        }
+
+        protected String[] getParameterNames(Method method) {
+            MethodParameterNames methodParameterNames = this.methodParameterNames;
+            if (methodParameterNames == null || methodParameterNames.method != method) {
+                String[] names = parameterNameDiscoverer.getParameterNames(method);
+                methodParameterNames = new MethodParameterNames(method, names == null ? new String[0] : names);
+                this.methodParameterNames = methodParameterNames;
+            }
+            return methodParameterNames.names;
+        }
+
+        private static class MethodParameterNames {
+            private final Method method;
+            private final String[] names;
+
+            private MethodParameterNames(Method method, String[] names) {
+                this.method = method;
+                this.names = names;
+            }
         }
     }
 
@@ -307,50 +755,92 @@ public abstract class AbstractBaseAspect implements BeanFactoryAware, Applicatio
         public String evaluate(Method method, Object[] args, Object target) {
             return valueGetter.getValue(args);
         }
+
+        @Override
+        public byte[] evaluateBytes(Method method, Object[] args, Object target) {
+            KeyBuffer keyBuffer = KeyBuffer.acquire();
+            try {
+                valueGetter.writeValue(keyBuffer, args);
+                return keyBuffer.toByteArray(getKeyEncoding());
+            } finally {
+                keyBuffer.release();
+            }
+        }
     }
 
     public static class ValueGettersKeyEvaluate extends AbstractKeyEvaluate {
         private final IValueGetter[] valueGetters;
+        private final int capacity;
 
         protected ValueGettersKeyEvaluate(IValueGetter[] valueGetters) {
             this.valueGetters = valueGetters;
+            int capacity = 0;
+            for (IValueGetter valueGetter : valueGetters) {
+                capacity += valueGetter instanceof ConstValueGetter ? ((ConstValueGetter) valueGetter).value.length() : 16;
+            }
+            this.capacity = capacity;
         }
 
         @Override
         public String evaluate(Method method, Object[] args, Object target) {
-            StringBuilder stringBuilder = new StringBuilder();
+            StringBuilder stringBuilder = new StringBuilder(capacity);
             for (IValueGetter valueGetter : valueGetters) {
                 stringBuilder.append(valueGetter.getValue(args));
             }
             return stringBuilder.toString();
         }
+
+        @Override
+        public byte[] evaluateBytes(Method method, Object[] args, Object target) {
+            KeyBuffer keyBuffer = KeyBuffer.acquire();
+            try {
+                for (IValueGetter valueGetter : valueGetters) {
+                    valueGetter.writeValue(keyBuffer, args);
+                }
+                return keyBuffer.toByteArray(getKeyEncoding());
+            } finally {
+                keyBuffer.release();
+            }
+        }
     }
 
     @FunctionalInterface
     public interface IValueGetter {
         String getValue(Object[] args);
+        default void writeValue(KeyBuffer keyBuffer, Object[] args) {
+            keyBuffer.writeString(getValue(args));
+        }
     }
 
     public static class ConstValueGetter implements IValueGetter {
         private final String value;
+        private final byte[] bytes;
 
         public ConstValueGetter(String value) {
             this.value = value;
+            this.bytes = value.getBytes(StandardCharsets.UTF_8);
         }
 
         @Override
         public String getValue(Object[] args) {
             return value;
         }
+
+        @Override
+        public void writeValue(KeyBuffer keyBuffer, Object[] args) {
+            keyBuffer.writeBytes(bytes);
+        }
     }
 
     public static class IndexValueGetter implements IValueGetter {
         private final int argIndex;
         private final String defaultValue;
+        private final byte[] defaultBytes;
 
         public IndexValueGetter(int argIndex, String defaultValue) {
             this.argIndex = argIndex;
             this.defaultValue = defaultValue;
+            this.defaultBytes = defaultValue.getBytes(StandardCharsets.UTF_8);
         }
 
         @Override
@@ -359,6 +849,16 @@ public abstract class AbstractBaseAspect implements BeanFactoryAware, Applicatio
             if (value == null) return defaultValue;
             return value.toString();
         }
+
+        @Override
+        public void writeValue(KeyBuffer keyBuffer, Object[] args) {
+            Object value = args[argIndex];
+            if (value == null) {
+                keyBuffer.writeBytes(defaultBytes);
+            } else {
+                keyBuffer.writeObject(value);
+            }
+        }
     }
 
     public static class MethodValueGetter implements IValueGetter {
@@ -408,7 +908,7 @@ public abstract class AbstractBaseAspect implements BeanFactoryAware, Applicatio
         @Override
         public String getValue(Object[] args) {
             try {
-                Object value = args[argIndex] == null ? null : field.get(args[argIndex]).toString();
+                Object value = args[argIndex] == null ? null : field.get(args[argIndex]);
                 if (value == null) return defaultValue;
                 if (fieldGetters != null) {
                     for (IFieldGetter fieldGetter : fieldGetters) {
@@ -423,6 +923,71 @@ public abstract class AbstractBaseAspect implements BeanFactoryAware, Applicatio
         }
     }
 
+    public static class CompiledValueGetter implements IValueGetter {
+        private final int argIndex;
+        private final String defaultValue;
+        private final byte[] defaultBytes;
+        private final IFieldGetter[] fieldGetters;
+        private final ILongFieldGetter longFieldGetter;
+
+        public CompiledValueGetter(int argIndex, String defaultValue, IFieldGetter argGetter, IFieldGetter[] fieldGetters) {
+            this.argIndex = argIndex;
+            this.defaultValue = defaultValue;
+            this.defaultBytes = defaultValue.getBytes(StandardCharsets.UTF_8);
+            if (fieldGetters == null) {
+                this.fieldGetters = new IFieldGetter[]{argGetter};
+            } else {
+                this.fieldGetters = new IFieldGetter[fieldGetters.length + 1];
+                this.fieldGetters[0] = argGetter;
+                System.arraycopy(fieldGetters, 0, this.fieldGetters, 1, fieldGetters.length);
+            }
+            IFieldGetter lastFieldGetter = this.fieldGetters[this.fieldGetters.length - 1];
+            this.longFieldGetter = lastFieldGetter instanceof ILongFieldGetter ? (ILongFieldGetter) lastFieldGetter : null;
+        }
+
+        @Override
+        public void writeValue(KeyBuffer keyBuffer, Object[] args) {
+            Object value = args[argIndex];
+            if (value == null) {
+                keyBuffer.writeBytes(defaultBytes);
+                return;
+            }
+            try {
+                int count = longFieldGetter != null ? fieldGetters.length - 1 : fieldGetters.length;
+                for (int i = 0; i < count; i++) {
+                    value = fieldGetters[i].getValue(value);
+                    if (value == null) {
+                        keyBuffer.writeBytes(defaultBytes);
+                        return;
+                    }
+                }
+                if (longFieldGetter != null) {
+                    keyBuffer.writeLong(longFieldGetter.getLongValue(value));
+                    return;
+                }
+            } catch (RuntimeException e) {
+                keyBuffer.writeBytes(defaultBytes);
+                return;
+            }
+            keyBuffer.writeObject(value);
+        }
+
+        @Override
+        public String getValue(Object[] args) {
+            Object value = args[argIndex];
+            if (value == null) return defaultValue;
+            try {
+                for (IFieldGetter fieldGetter : fieldGetters) {
+                    value = fieldGetter.getValue(value);
+                    if (value == null) return defaultValue;
+                }
+            } catch (RuntimeException e) {
+                return defaultValue;
+            }
+            return value.toString();
+        }
+    }
+
     public static class MapValueGetter implements IValueGetter {
         private final String key;
         private final int argIndex;
@@ -520,6 +1085,48 @@ public abstract class AbstractBaseAspect implements BeanFactoryAware, Applicatio
         }
     }
 
+    @FunctionalInterface
+    public interface ILongFieldGetter {
+        long getLongValue(Object arg);
+    }
+
+    public static class LongFieldGetter implements IFieldGetter, ILongFieldGetter {
+        private final IFieldGetter fieldGetter;
+        private final ILongFieldGetter longFieldGetter;
+
+        public LongFieldGetter(IFieldGetter fieldGetter, ILongFieldGetter longFieldGetter) {
+            this.fieldGetter = fieldGetter;
+            this.longFieldGetter = longFieldGetter;
+        }
+
+        @Override
+        public Object getValue(Object arg) {
+            return fieldGetter.getValue(arg);
+        }
+
+        @Override
+        public long getLongValue(Object arg) {
+            return longFieldGetter.getLongValue(arg);
+        }
+    }
+
+    public static class MethodHandleFieldGetter implements IFieldGetter {
+        private final MethodHandle methodHandle;
+
+        public MethodHandleFieldGetter(MethodHandle methodHandle) {
+            this.methodHandle = methodHandle.asType(MethodType.methodType(Object.class, Object.class));
+        }
+
+        @Override
+        public Object getValue(Object arg) {
+            try {
+                return arg == null ? null : (Object) methodHandle.invokeExact(arg);
+            } catch (Throwable e) {
+                return null;
+            }
+        }
+    }
+
     public static class MapFieldGetter implements IFieldGetter {
         private final String key;
         private final String[] getterNames;
@@ -11,6 +11,15 @@ public abstract class AbstractMultiBaseAspect extends AbstractBaseAspect {
         super(slockTemplate);
     }
 
+    @Override
+    public KeyEvaluate compileMethodKeyEvaluate(Method method) {
+        Annotation[] annotations = getAnnotations(method.getAnnotation(getAnnotationType()));
+        if (annotations == null || annotations.length == 0) {
+            throw new IllegalArgumentException(getAnnotationType().getSimpleName() + " is empty");
+        }
+        return compileKeyEvaluates(method, annotations);
+    }
+
     protected MultiEvaluates compileKeyEvaluates(Method method, Annotation[] annotations) {
         return compileKeyEvaluates(method, annotations, null);
     }
@@ -23,21 +32,37 @@ public abstract class AbstractMultiBaseAspect extends AbstractBaseAspect {
     protected MultiEvaluates doCompileKeyEvaluates(Method method, Annotation[] annotations) {
         KeyEvaluate[] keyEvaluates = new KeyEvaluate[annotations.length];
         for (int i = 0; i < annotations.length; i++) {
-            keyEvaluates[i] = configureKeyEvaluate(annotations[i], doCompileKeyEvaluate(method, getTemplateKey(annotations[i])));
+            checkAsyncMethod(method, annotations[i]);
+            keyEvaluates[i] = compileFallbackMethod(method, annotations[i], configureKeyEvaluate(annotations[i],
+                    doCompileKeyEvaluate(method, getTemplateKey(annotations[i]))));
         }
         return new MultiEvaluates(keyEvaluates);
     }
 
-    protected Object proceed(ProceedingJoinPoint joinPoint, KeyEvaluate[] keyEvaluates, String[] keys, int index) throws Throwable {
+    public Object[] evaluateKeys(MultiEvaluates multiEvaluates, Method method, Object[] args, Object target) {
+        KeyEvaluate[] keyEvaluates = multiEvaluates.getKeyEvaluates();
+        Object[] keys = new Object[keyEvaluates.length];
+        for (int i = 0; i < keyEvaluates.length; i++) {
+            keys[i] = evaluateKey(keyEvaluates[i], method, args, target);
+        }
+        return keys;
+    }
+
+    protected Object proceed(ProceedingJoinPoint joinPoint, Method method, KeyEvaluate[] keyEvaluates, Object[] keys, int index) throws Throwable {
         if (index >= keyEvaluates.length) return joinPoint.proceed();
-        return execute(joinPoint, keyEvaluates, keys, index);
+        return execute(joinPoint, method, keyEvaluates[index], keys[index], () -> proceed(joinPoint, method, keyEvaluates, keys, index + 1));
     }
 
+    public abstract Class<? extends Annotation> getAnnotationType();
+
+    protected abstract Annotation[] getAnnotations(Annotation annotation);
+
     protected abstract String getTemplateKey(Annotation annotation);
 
     protected abstract KeyEvaluate configureKeyEvaluate(Annotation annotation, KeyEvaluate keyEvaluate);
 
-    protected abstract Object execute(ProceedingJoinPoint joinPoint, KeyEvaluate[] keyEvaluates, String[] keys, int index) throws Throwable;
+    @Override
+    public abstract Object execute(ProceedingJoinPoint joinPoint, Method method, KeyEvaluate keyEvaluate, Object key, Invocation next) throws Throwable;
 
     public static class MultiEvaluates implements KeyEvaluate {
         private final KeyEvaluate[] keyEvaluates;
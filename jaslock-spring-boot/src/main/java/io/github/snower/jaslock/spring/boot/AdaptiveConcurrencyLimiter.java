@@ -0,0 +1,157 @@
+package io.github.snower.jaslock.spring.boot;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Node local AIMD concurrency limit. Samples are grouped into windows of at least the current limit completions,
+ * roughly one round trip at full concurrency, and the limit is adjusted at most once per window: decreased when
+ * the window had a drop or its average latency exceeds the smoothed baseline of previous window averages by the
+ * tolerance, increased by one when the window kept at least half of the limit in flight.
+ */
+public class AdaptiveConcurrencyLimiter {
+    private static final int DEFAULT_WINDOW_SAMPLES = 10;
+    private static final int BASELINE_WINDOWS = 10;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+    private final int windowSamples;
+    private final AtomicLong acceptedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private double limit;
+    private int inflight;
+    private double baselineLatency;
+    private int windowCount;
+    private int windowLatencyCount;
+    private long windowLatencySum;
+    private int windowMaxInflight;
+    private boolean windowDropped;
+
+    public AdaptiveConcurrencyLimiter(String name, int maxLimit) {
+        this(name, 1, maxLimit, 0.9, 2.0);
+    }
+
+    public AdaptiveConcurrencyLimiter(String name, int minLimit, int maxLimit, double backoffRatio, double latencyTolerance) {
+        this(name, minLimit, maxLimit, backoffRatio, latencyTolerance, DEFAULT_WINDOW_SAMPLES);
+    }
+
+    public AdaptiveConcurrencyLimiter(String name, int minLimit, int maxLimit, double backoffRatio, double latencyTolerance, int windowSamples) {
+        this.name = name;
+        this.minLimit = Math.max(minLimit, 1);
+        this.maxLimit = Math.max(maxLimit, this.minLimit);
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.windowSamples = Math.max(windowSamples, 1);
+        this.limit = this.maxLimit;
+    }
+
+    public boolean acquire(long timeout, TimeUnit unit) throws InterruptedException {
+        synchronized (this) {
+            if (inflight >= (int) limit) {
+                long deadline = System.nanoTime() + unit.toNanos(timeout);
+                long remaining;
+                while (inflight >= (int) limit) {
+                    remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        rejectedCount.incrementAndGet();
+                        return false;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+            }
+            inflight++;
+        }
+        acceptedCount.incrementAndGet();
+        return true;
+    }
+
+    public void release() {
+        synchronized (this) {
+            inflight--;
+            notifyAll();
+        }
+    }
+
+    public void release(long latencyNanos, boolean dropped) {
+        synchronized (this) {
+            if (inflight > windowMaxInflight) {
+                windowMaxInflight = inflight;
+            }
+            inflight--;
+            windowCount++;
+            if (dropped) {
+                droppedCount.incrementAndGet();
+                windowDropped = true;
+            } else {
+                windowLatencyCount++;
+                windowLatencySum += latencyNanos;
+            }
+            if (windowCount >= Math.max(windowSamples, (int) limit)) {
+                updateLimit();
+            }
+            notifyAll();
+        }
+    }
+
+    private void updateLimit() {
+        if (windowDropped) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        } else {
+            double windowLatency = (double) windowLatencySum / windowLatencyCount;
+            if (baselineLatency <= 0) {
+                baselineLatency = windowLatency;
+            }
+            if (windowLatency > baselineLatency * latencyTolerance) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (windowMaxInflight * 2 >= (int) limit) {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+            baselineLatency += (windowLatency - baselineLatency) / BASELINE_WINDOWS;
+        }
+        windowCount = 0;
+        windowLatencyCount = 0;
+        windowLatencySum = 0;
+        windowMaxInflight = 0;
+        windowDropped = false;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public int getWindowSamples() {
+        return windowSamples;
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInflight() {
+        return inflight;
+    }
+
+    public long getAcceptedCount() {
+        return acceptedCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+}
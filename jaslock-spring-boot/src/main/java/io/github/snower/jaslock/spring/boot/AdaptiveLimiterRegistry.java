@@ -0,0 +1,46 @@
+package io.github.snower.jaslock.spring.boot;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Adaptive limiters keyed by the compiled KeyEvaluate, one registry is owned by each application context.
+ */
+public class AdaptiveLimiterRegistry {
+    private final ConcurrentHashMap<Object, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+    private final List<Consumer<AdaptiveConcurrencyLimiter>> listeners = new CopyOnWriteArrayList<>();
+
+    public AdaptiveConcurrencyLimiter getLimiter(Object id, Supplier<AdaptiveConcurrencyLimiter> limiterBuilder) {
+        AdaptiveConcurrencyLimiter limiter = limiters.get(id);
+        if (limiter != null) return limiter;
+        boolean[] created = new boolean[]{false};
+        limiter = limiters.computeIfAbsent(id, k -> {
+            created[0] = true;
+            return limiterBuilder.get();
+        });
+        if (created[0]) {
+            for (Consumer<AdaptiveConcurrencyLimiter> listener : listeners) {
+                listener.accept(limiter);
+            }
+        }
+        return limiter;
+    }
+
+    public Collection<AdaptiveConcurrencyLimiter> getLimiters() {
+        return Collections.unmodifiableList(new ArrayList<>(limiters.values()));
+    }
+
+    public void addListener(Consumer<AdaptiveConcurrencyLimiter> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<AdaptiveConcurrencyLimiter> listener) {
+        listeners.remove(listener);
+    }
+}
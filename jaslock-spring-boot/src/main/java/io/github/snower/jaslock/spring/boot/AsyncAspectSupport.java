@@ -0,0 +1,281 @@
+package io.github.snower.jaslock.spring.boot;
+
+import io.github.snower.jaslock.Lock;
+import io.github.snower.jaslock.MaxConcurrentFlow;
+import io.github.snower.jaslock.TokenBucketFlow;
+import io.github.snower.jaslock.exceptions.SlockException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+public class AsyncAspectSupport {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncAspectSupport.class);
+    private static final boolean reactorPresent = ClassUtils.isPresent("reactor.core.publisher.Mono",
+            AsyncAspectSupport.class.getClassLoader());
+
+    public static boolean isAsyncMethod(Method method) {
+        return isAsyncReturnType(method.getReturnType());
+    }
+
+    public static boolean isAsyncReturnType(Class<?> returnType) {
+        if (CompletionStage.class.isAssignableFrom(returnType)) {
+            return returnType.isAssignableFrom(CompletableFuture.class);
+        }
+        return reactorPresent && ReactorAspectSupport.isReactorReturnType(returnType);
+    }
+
+    public static boolean isSingleValueAsyncMethod(Method method) {
+        Class<?> returnType = method.getReturnType();
+        if (CompletionStage.class.isAssignableFrom(returnType)) {
+            return returnType.isAssignableFrom(CompletableFuture.class);
+        }
+        return reactorPresent && ReactorAspectSupport.isMonoReturnType(returnType);
+    }
+
+    public static Object execute(Method method, AsyncPermit permit, AbstractBaseAspect.Invocation next) throws Throwable {
+        return execute(method, permit, next, null);
+    }
+
+    public static Object execute(Method method, AsyncPermit permit, AbstractBaseAspect.Invocation next, Executor executor) throws Throwable {
+        Class<?> returnType = method.getReturnType();
+        if (CompletionStage.class.isAssignableFrom(returnType)) {
+            return executeFuture(permit, next, executor);
+        }
+        if (reactorPresent && ReactorAspectSupport.isReactorReturnType(returnType)) {
+            return ReactorAspectSupport.execute(returnType, permit, next, executor);
+        }
+        return next.proceed();
+    }
+
+    public static CompletableFuture<Object> executeFuture(AsyncPermit permit, AbstractBaseAspect.Invocation next) {
+        return executeFuture(permit, next, null);
+    }
+
+    public static CompletableFuture<Object> executeFuture(AsyncPermit permit, AbstractBaseAspect.Invocation next, Executor executor) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        permit.acquire(new AsyncAcquireCallback() {
+            @Override
+            public void acquired() {
+                if (executor == null) {
+                    proceed(permit, next, future);
+                    return;
+                }
+                try {
+                    executor.execute(() -> proceed(permit, next, future));
+                } catch (RejectedExecutionException e) {
+                    permit.release(null, e);
+                    future.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void completed(Object value) {
+                future.complete(value);
+            }
+
+            @Override
+            public void failed(Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    private static void proceed(AsyncPermit permit, AbstractBaseAspect.Invocation next, CompletableFuture<Object> future) {
+        Object result;
+        try {
+            result = next.proceed();
+        } catch (Throwable e) {
+            permit.release(null, e);
+            future.completeExceptionally(e);
+            return;
+        }
+        if (!(result instanceof CompletionStage)) {
+            permit.release(result, null);
+            future.complete(result);
+            return;
+        }
+        ((CompletionStage<?>) result).whenComplete((value, e) -> {
+            Throwable cause = unwrapException(e);
+            permit.release(value, cause);
+            if (cause != null) {
+                future.completeExceptionally(cause);
+            } else {
+                future.complete(value);
+            }
+        });
+    }
+
+    public static Throwable unwrapException(Throwable e) {
+        while ((e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e;
+    }
+
+    public interface AsyncPermit {
+        void acquire(AsyncAcquireCallback callback);
+
+        void release(Object value, Throwable exception);
+    }
+
+    public interface AsyncAcquireCallback {
+        void acquired();
+
+        void completed(Object value);
+
+        void failed(Throwable e);
+    }
+
+    public static class LockPermit implements AsyncPermit {
+        private final Lock lock;
+        private final Class<? extends Exception> timeoutException;
+        private final Class<? extends Exception> exception;
+
+        public LockPermit(Lock lock, Class<? extends Exception> timeoutException, Class<? extends Exception> exception) {
+            this.lock = lock;
+            this.timeoutException = timeoutException;
+            this.exception = exception;
+        }
+
+        @Override
+        public void acquire(AsyncAcquireCallback callback) {
+            try {
+                lock.acquire((byte) 0, result -> {
+                    Exception e = result.getException();
+                    if (e == null) {
+                        try {
+                            result.getResult();
+                        } catch (SlockException ex) {
+                            e = ex;
+                        }
+                    }
+                    if (e != null) {
+                        callback.failed(AbstractBaseAspect.translateException(e, timeoutException, exception));
+                    } else {
+                        callback.acquired();
+                    }
+                });
+            } catch (SlockException e) {
+                callback.failed(AbstractBaseAspect.translateException(e, timeoutException, exception));
+            }
+        }
+
+        @Override
+        public void release(Object value, Throwable exception) {
+            try {
+                lock.release((byte) 0, result -> {
+                    if (result.getException() != null) {
+                        logger.warn("AsyncAspectSupport lock release error {}", result.getException(), result.getException());
+                    }
+                });
+            } catch (Exception e) {
+                logger.warn("AsyncAspectSupport lock release error {}", e, e);
+            }
+        }
+    }
+
+    public static class MaxConcurrentFlowPermit implements AsyncPermit {
+        private final MaxConcurrentFlow maxConcurrentFlow;
+        private final Class<? extends Exception> timeoutException;
+        private final Class<? extends Exception> exception;
+
+        public MaxConcurrentFlowPermit(MaxConcurrentFlow maxConcurrentFlow, Class<? extends Exception> timeoutException,
+                                       Class<? extends Exception> exception) {
+            this.maxConcurrentFlow = maxConcurrentFlow;
+            this.timeoutException = timeoutException;
+            this.exception = exception;
+        }
+
+        @Override
+        public void acquire(AsyncAcquireCallback callback) {
+            try {
+                maxConcurrentFlow.acquire(result -> {
+                    Exception e = result.getException();
+                    if (e != null) {
+                        callback.failed(AbstractBaseAspect.translateException(e, timeoutException, exception));
+                    } else {
+                        callback.acquired();
+                    }
+                });
+            } catch (SlockException e) {
+                callback.failed(AbstractBaseAspect.translateException(e, timeoutException, exception));
+            }
+        }
+
+        @Override
+        public void release(Object value, Throwable exception) {
+            try {
+                maxConcurrentFlow.release(result -> {
+                    if (result.getException() != null) {
+                        logger.warn("AsyncAspectSupport max concurrent flow release error {}", result.getException(), result.getException());
+                    }
+                });
+            } catch (Exception e) {
+                logger.warn("AsyncAspectSupport max concurrent flow release error {}", e, e);
+            }
+        }
+    }
+
+    public static class TokenBucketFlowPermit implements AsyncPermit {
+        private final TokenBucketFlow tokenBucketFlow;
+        private final CompletableFuture<Boolean> lease;
+        private final Class<? extends Exception> timeoutException;
+        private final Class<? extends Exception> exception;
+
+        public TokenBucketFlowPermit(TokenBucketFlow tokenBucketFlow, Class<? extends Exception> timeoutException,
+                                     Class<? extends Exception> exception) {
+            this(tokenBucketFlow, null, timeoutException, exception);
+        }
+
+        public TokenBucketFlowPermit(TokenBucketFlow tokenBucketFlow, CompletableFuture<Boolean> lease,
+                                     Class<? extends Exception> timeoutException, Class<? extends Exception> exception) {
+            this.tokenBucketFlow = tokenBucketFlow;
+            this.lease = lease;
+            this.timeoutException = timeoutException;
+            this.exception = exception;
+        }
+
+        @Override
+        public void acquire(AsyncAcquireCallback callback) {
+            if (lease == null) {
+                acquireFlow(callback);
+                return;
+            }
+            lease.whenComplete((leased, e) -> {
+                if (Boolean.TRUE.equals(leased)) {
+                    callback.acquired();
+                } else {
+                    acquireFlow(callback);
+                }
+            });
+        }
+
+        private void acquireFlow(AsyncAcquireCallback callback) {
+            try {
+                tokenBucketFlow.acquire(result -> {
+                    Exception e = result.getException();
+                    if (e != null) {
+                        callback.failed(AbstractBaseAspect.translateException(e, timeoutException, exception));
+                    } else {
+                        callback.acquired();
+                    }
+                });
+            } catch (SlockException e) {
+                callback.failed(AbstractBaseAspect.translateException(e, timeoutException, exception));
+            }
+        }
+
+        @Override
+        public void release(Object value, Throwable exception) {
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package io.github.snower.jaslock.spring.boot;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+public class CompressionSerializater implements SlockSerializater {
+    public static final byte COMPRESSED_FLAG = 0;
+    public static final int HEADER_SIZE = 6;
+    public static final int MAX_DECOMPRESSED_SIZE = 256 * 1024 * 1024;
+
+    private final SlockSerializater serializater;
+    private final Algorithm algorithm;
+    private final int threshold;
+    private final Codec codec;
+
+    public CompressionSerializater(SlockSerializater serializater, Algorithm algorithm, int threshold) {
+        if (algorithm == null || algorithm == Algorithm.NONE) {
+            throw new IllegalArgumentException("unknown compression algorithm " + algorithm);
+        }
+        if (!serializater.isLeadingZeroFree()) {
+            throw new IllegalArgumentException("serializater " + serializater.getClass().getName() + " data may start with compressed flag");
+        }
+        this.serializater = serializater;
+        this.algorithm = algorithm;
+        this.threshold = Math.max(threshold, HEADER_SIZE);
+        this.codec = algorithm == Algorithm.LZ4 ? new Lz4Codec() : new DeflateCodec();
+    }
+
+    @Override
+    public byte[] serializate(Object object) throws IOException {
+        SerializateBuffer buffer = SerializateBuffer.acquire();
+        try {
+            serializater.serializate(object, buffer);
+            int length = buffer.size();
+            if (length > HEADER_SIZE && buffer.getBuffer()[0] == COMPRESSED_FLAG) {
+                throw new IOException("serialized data starts with compressed flag");
+            }
+            if (length < threshold) {
+                return buffer.toByteArray();
+            }
+            byte[] data = new byte[length];
+            int compressedLength = codec.compress(buffer.getBuffer(), 0, length, data, HEADER_SIZE, length - HEADER_SIZE);
+            if (compressedLength < 0) {
+                System.arraycopy(buffer.getBuffer(), 0, data, 0, length);
+                return data;
+            }
+            data[0] = COMPRESSED_FLAG;
+            data[1] = algorithm.getFlag();
+            data[2] = (byte) (length >>> 24);
+            data[3] = (byte) (length >>> 16);
+            data[4] = (byte) (length >>> 8);
+            data[5] = (byte) length;
+            return Arrays.copyOf(data, HEADER_SIZE + compressedLength);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Override
+    public void serializate(Object object, OutputStream outputStream) throws IOException {
+        outputStream.write(serializate(object));
+    }
+
+    @Override
+    public Object deserialize(byte[] data, Class<?> clsType) throws IOException {
+        return deserialize(data, 0, data.length, clsType);
+    }
+
+    @Override
+    public Object deserialize(byte[] data, TypeReference<?> typeReference) throws IOException {
+        return deserialize(data, 0, data.length, typeReference);
+    }
+
+    @Override
+    public Object deserialize(byte[] data, int offset, int length, Class<?> clsType) throws IOException {
+        if (!isCompressed(data, offset, length)) {
+            return serializater.deserialize(data, offset, length, clsType);
+        }
+        byte[] decompressedData = decompress(data, offset, length);
+        return serializater.deserialize(decompressedData, 0, decompressedData.length, clsType);
+    }
+
+    @Override
+    public Object deserialize(byte[] data, int offset, int length, TypeReference<?> typeReference) throws IOException {
+        if (!isCompressed(data, offset, length)) {
+            return serializater.deserialize(data, offset, length, typeReference);
+        }
+        byte[] decompressedData = decompress(data, offset, length);
+        return serializater.deserialize(decompressedData, 0, decompressedData.length, typeReference);
+    }
+
+    public static boolean isCompressed(byte[] data, int offset, int length) {
+        return length > HEADER_SIZE && data[offset] == COMPRESSED_FLAG;
+    }
+
+    private byte[] decompress(byte[] data, int offset, int length) throws IOException {
+        Algorithm dataAlgorithm = Algorithm.ofFlag(data[offset + 1]);
+        int decompressedLength = ((data[offset + 2] & 0xff) << 24) | ((data[offset + 3] & 0xff) << 16)
+                | ((data[offset + 4] & 0xff) << 8) | (data[offset + 5] & 0xff);
+        if (decompressedLength < 0 || decompressedLength > MAX_DECOMPRESSED_SIZE) {
+            throw new IOException("compressed data length error " + decompressedLength);
+        }
+        Codec dataCodec = dataAlgorithm == algorithm ? codec : (dataAlgorithm == Algorithm.LZ4 ? new Lz4Codec() : new DeflateCodec());
+        byte[] decompressedData = new byte[decompressedLength];
+        dataCodec.decompress(data, offset + HEADER_SIZE, length - HEADER_SIZE, decompressedData, decompressedLength);
+        return decompressedData;
+    }
+
+    public SlockSerializater getSerializater() {
+        return serializater;
+    }
+
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public enum Algorithm {
+        NONE((byte) 0),
+        DEFLATE((byte) 1),
+        LZ4((byte) 2);
+
+        private final byte flag;
+
+        Algorithm(byte flag) {
+            this.flag = flag;
+        }
+
+        public byte getFlag() {
+            return flag;
+        }
+
+        public static Algorithm ofFlag(byte flag) throws IOException {
+            for (Algorithm algorithm : values()) {
+                if (algorithm.flag == flag && algorithm != NONE) return algorithm;
+            }
+            throw new IOException("unknown compression algorithm flag " + flag);
+        }
+    }
+
+    private interface Codec {
+        int compress(byte[] src, int srcOffset, int srcLength, byte[] dest, int destOffset, int maxDestLength) throws IOException;
+
+        void decompress(byte[] src, int srcOffset, int srcLength, byte[] dest, int destLength) throws IOException;
+    }
+
+    private static class DeflateCodec implements Codec {
+        private static final ThreadLocal<Deflater> threadDeflaters = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED));
+        private static final ThreadLocal<Inflater> threadInflaters = ThreadLocal.withInitial(Inflater::new);
+
+        @Override
+        public int compress(byte[] src, int srcOffset, int srcLength, byte[] dest, int destOffset, int maxDestLength) {
+            Deflater deflater = threadDeflaters.get();
+            try {
+                deflater.setInput(src, srcOffset, srcLength);
+                deflater.finish();
+                int length = 0;
+                while (!deflater.finished() && length < maxDestLength) {
+                    length += deflater.deflate(dest, destOffset + length, maxDestLength - length);
+                }
+                return deflater.finished() ? length : -1;
+            } finally {
+                deflater.reset();
+            }
+        }
+
+        @Override
+        public void decompress(byte[] src, int srcOffset, int srcLength, byte[] dest, int destLength) throws IOException {
+            Inflater inflater = threadInflaters.get();
+            try {
+                inflater.setInput(src, srcOffset, srcLength);
+                int length = 0;
+                while (!inflater.finished() && length < destLength) {
+                    int n = inflater.inflate(dest, length, destLength - length);
+                    if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                    length += n;
+                }
+                if (length != destLength || !inflater.finished()) {
+                    throw new IOException("deflate decompress data error");
+                }
+            } catch (DataFormatException e) {
+                throw new IOException(e);
+            } finally {
+                inflater.reset();
+            }
+        }
+    }
+
+    private static class Lz4Codec implements Codec {
+        private static volatile MethodHandle[] methodHandles;
+
+        private final MethodHandle compressHandle;
+        private final MethodHandle decompressHandle;
+
+        private Lz4Codec() {
+            MethodHandle[] handles = methodHandles;
+            if (handles == null) {
+                handles = methodHandles = resolveMethodHandles();
+            }
+            this.compressHandle = handles[0];
+            this.decompressHandle = handles[1];
+        }
+
+        private static MethodHandle[] resolveMethodHandles() {
+            try {
+                Class<?> factoryClass = Class.forName("net.jpountz.lz4.LZ4Factory");
+                Class<?> compressorClass = Class.forName("net.jpountz.lz4.LZ4Compressor");
+                Class<?> decompressorClass = Class.forName("net.jpountz.lz4.LZ4SafeDecompressor");
+                Object factory = factoryClass.getMethod("fastestInstance").invoke(null);
+                MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                MethodType methodType = MethodType.methodType(int.class, byte[].class, int.class, int.class, byte[].class, int.class, int.class);
+                MethodHandle compressHandle = lookup.findVirtual(compressorClass, "compress", methodType)
+                        .bindTo(factoryClass.getMethod("fastCompressor").invoke(factory));
+                MethodHandle decompressHandle = lookup.findVirtual(decompressorClass, "decompress", methodType)
+                        .bindTo(factoryClass.getMethod("safeDecompressor").invoke(factory));
+                return new MethodHandle[]{compressHandle, decompressHandle};
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("lz4-java is not available", e);
+            }
+        }
+
+        @Override
+        public int compress(byte[] src, int srcOffset, int srcLength, byte[] dest, int destOffset, int maxDestLength) throws IOException {
+            try {
+                return (int) compressHandle.invokeExact(src, srcOffset, srcLength, dest, destOffset, maxDestLength);
+            } catch (RuntimeException e) {
+                return -1;
+            } catch (Throwable e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void decompress(byte[] src, int srcOffset, int srcLength, byte[] dest, int destLength) throws IOException {
+            int length;
+            try {
+                length = (int) decompressHandle.invokeExact(src, srcOffset, srcLength, dest, 0, destLength);
+            } catch (Throwable e) {
+                throw new IOException(e);
+            }
+            if (length != destLength) {
+                throw new IOException("lz4 decompress data error");
+            }
+        }
+    }
+}
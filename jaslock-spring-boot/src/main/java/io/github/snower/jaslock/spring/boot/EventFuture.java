@@ -7,25 +7,57 @@ import io.github.snower.jaslock.exceptions.EventWaitTimeoutException;
 import io.github.snower.jaslock.exceptions.SlockException;
 
 import java.io.*;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
 
+/**
+ * Results are serialized wrapped in {@link EventResult}, serializers without type information such as json
+ * or smile need the result type to read back anything other than plain maps, lists and scalars.
+ */
 public class EventFuture<T> implements Future<T>, Closeable {
     protected final SlockSerializater serializater;
     protected final Event event;
+    protected final SlockSerializater.TypeReference<EventResult<T>> resultTypeReference;
     protected boolean isSetResulted = false;
+    protected boolean millisecondTime = true;
 
     public EventFuture(SlockSerializater serializater, SlockDatabase database, byte[] eventKey) {
+        this(serializater, database, eventKey, Object.class);
+    }
+
+    public EventFuture(SlockSerializater serializater, SlockDatabase database, String eventKey) {
+        this(serializater, database, eventKey, Object.class);
+    }
+
+    public EventFuture(SlockSerializater serializater, SlockDatabase database, byte[] eventKey, Type resultType) {
         this.serializater = serializater;
         this.event = new Event(database, eventKey, 5, 300, false);
+        this.resultTypeReference = newResultTypeReference(resultType);
     }
 
-    public EventFuture(SlockSerializater serializater, SlockDatabase database, String eventKey) {
+    public EventFuture(SlockSerializater serializater, SlockDatabase database, String eventKey, Type resultType) {
         this.serializater = serializater;
         this.event = new Event(database, eventKey, 5, 300, false);
+        this.resultTypeReference = newResultTypeReference(resultType);
+    }
+
+    public static <T> SlockSerializater.TypeReference<EventResult<T>> newResultTypeReference(Type resultType) {
+        return new SlockSerializater.TypeReference<EventResult<T>>(new EventResultType(resultType)) {};
+    }
+
+    public boolean isMillisecondTime() {
+        return millisecondTime;
+    }
+
+    public void setMillisecondTime(boolean millisecondTime) {
+        this.millisecondTime = millisecondTime;
     }
 
     @Override
@@ -58,9 +90,8 @@ public class EventFuture<T> implements Future<T>, Closeable {
 
     @Override
     public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
-        int seconds = (int) unit.toSeconds(timeout);
         try {
-            event.wait(seconds);
+            event.wait(TimeEncoding.encodeTimeout(timeout, unit, millisecondTime));
         } catch (EventWaitTimeoutException e) {
             throw new TimeoutException();
         } catch (SlockException e) {
@@ -70,9 +101,8 @@ public class EventFuture<T> implements Future<T>, Closeable {
     }
 
     public T get(long timeout, TimeUnit unit, Consumer<EventResult<T>> consumer) throws InterruptedException, ExecutionException, TimeoutException {
-        int seconds = (int) unit.toSeconds(timeout);
         try {
-            event.wait(seconds, callbackFuture -> {
+            event.wait(TimeEncoding.encodeTimeout(timeout, unit, millisecondTime), callbackFuture -> {
                 if (callbackFuture.getException() != null) {
                     consumer.accept(new EventResult<>(callbackFuture.getException()));
                     return;
@@ -93,12 +123,53 @@ public class EventFuture<T> implements Future<T>, Closeable {
         return null;
     }
 
+    public CompletableFuture<T> toCompletableFuture() {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        waitAsync(future, 120, true);
+        return future;
+    }
+
+    public CompletableFuture<T> toCompletableFuture(long timeout, TimeUnit unit) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        waitAsync(future, TimeEncoding.encodeTimeout(timeout, unit, millisecondTime), false);
+        return future;
+    }
+
+    private void waitAsync(CompletableFuture<T> future, int timeout, boolean isTimeoutRetry) {
+        try {
+            event.wait(timeout, callbackFuture -> {
+                Exception exception = callbackFuture.getException();
+                if (exception instanceof EventWaitTimeoutException) {
+                    if (isTimeoutRetry && !future.isDone()) {
+                        waitAsync(future, timeout, true);
+                    } else {
+                        future.completeExceptionally(new TimeoutException());
+                    }
+                    return;
+                }
+                if (exception != null) {
+                    future.completeExceptionally(exception);
+                    return;
+                }
+                try {
+                    future.complete(getRsult());
+                } catch (ExecutionException e) {
+                    future.completeExceptionally(e.getCause());
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (SlockException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
     public T getRsult() throws ExecutionException {
         if (event.getCurrentLockData() == null) return null;
         byte[] lockData = event.getCurrentLockData().getDataAsBytes();
         if (lockData == null) return null;
         try  {
-            Object eventResult = serializater.deserialize(lockData, new SlockSerializater.TypeReference<EventResult<T>>() {});
+            Object eventResult = serializater.deserialize(lockData, resultTypeReference);
             if (!(eventResult instanceof EventResult)) return null;
             if (((EventResult<?>) eventResult).getException() != null) {
                 throw new ExecutionException(((EventResult<?>) eventResult).getException());
@@ -118,18 +189,14 @@ public class EventFuture<T> implements Future<T>, Closeable {
     }
 
     public void setResult(T result, long expried, TimeUnit unit) throws IOException, SlockException {
-        short seconds = (short) unit.toSeconds(expried);
-        event.setExpried(seconds);
-        event.setExpriedFlag((short) ICommand.EXPRIED_FLAG_ZEOR_AOF_TIME);
+        setExpried(expried, unit);
         EventResult<T> eventResult = new EventResult<>(result);
         event.set(serializater.serializate(eventResult));
         isSetResulted = true;
     }
 
     public void setResult(long expried, TimeUnit unit) throws SlockException {
-        short seconds = (short) unit.toSeconds(expried);
-        event.setExpried(seconds);
-        event.setExpriedFlag((short) ICommand.EXPRIED_FLAG_ZEOR_AOF_TIME);
+        setExpried(expried, unit);
         event.set();
         isSetResulted = true;
     }
@@ -139,14 +206,18 @@ public class EventFuture<T> implements Future<T>, Closeable {
     }
 
     public void setException(Throwable exception, long expried, TimeUnit unit) throws SlockException, IOException {
-        short seconds = (short) unit.toSeconds(expried);
-        event.setExpried(seconds);
-        event.setExpriedFlag((short) ICommand.EXPRIED_FLAG_ZEOR_AOF_TIME);
+        setExpried(expried, unit);
         EventResult<T> eventResult = new EventResult<>(exception);
         event.set(serializater.serializate(eventResult));
         isSetResulted = true;
     }
 
+    protected void setExpried(long expried, TimeUnit unit) {
+        int encodedExpried = TimeEncoding.encodeExpried(expried, unit, millisecondTime);
+        event.setExpried((short) (encodedExpried & 0xffff));
+        event.setExpriedFlag((short) (ICommand.EXPRIED_FLAG_ZEOR_AOF_TIME | (encodedExpried >>> 16)));
+    }
+
     @Override
     public void close() throws IOException {
         if (isSetResulted) return;
@@ -157,11 +228,50 @@ public class EventFuture<T> implements Future<T>, Closeable {
         }
     }
 
+    private static class EventResultType implements ParameterizedType {
+        private final Type[] actualTypeArguments;
+
+        private EventResultType(Type resultType) {
+            this.actualTypeArguments = new Type[]{resultType == null ? Object.class : resultType};
+        }
+
+        @Override
+        public Type[] getActualTypeArguments() {
+            return actualTypeArguments.clone();
+        }
+
+        @Override
+        public Type getRawType() {
+            return EventResult.class;
+        }
+
+        @Override
+        public Type getOwnerType() {
+            return EventFuture.class;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ParameterizedType)) return false;
+            ParameterizedType that = (ParameterizedType) o;
+            return EventResult.class.equals(that.getRawType()) && Arrays.equals(actualTypeArguments, that.getActualTypeArguments());
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(actualTypeArguments) ^ EventResult.class.hashCode();
+        }
+    }
+
     public static class EventResult<T> implements Serializable {
         private static final long serialVersionUID = 1L;
         private T result;
         private Throwable exception;
 
+        public EventResult() {
+        }
+
         public EventResult(T result) {
             this.result = result;
             this.exception = null;
@@ -0,0 +1,79 @@
+package io.github.snower.jaslock.spring.boot;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class EventFutures {
+    public static <T> CompletableFuture<List<EventFuture.EventResult<T>>> allOf(Collection<? extends EventFuture<T>> eventFutures,
+                                                                                long timeout, TimeUnit unit) {
+        List<CompletableFuture<T>> futures = waitAll(eventFutures, timeout, unit);
+        List<EventFuture.EventResult<T>> results = new ArrayList<>(futures.size());
+        for (int i = 0; i < futures.size(); i++) {
+            results.add(null);
+        }
+        CompletableFuture<List<EventFuture.EventResult<T>>> future = new CompletableFuture<>();
+        if (futures.isEmpty()) {
+            future.complete(results);
+            return future;
+        }
+        AtomicInteger pendingCount = new AtomicInteger(futures.size());
+        for (int i = 0; i < futures.size(); i++) {
+            int index = i;
+            futures.get(i).whenComplete((result, exception) -> {
+                EventFuture.EventResult<T> eventResult = exception != null ? new EventFuture.EventResult<>(unwrapException(exception))
+                        : new EventFuture.EventResult<>(result);
+                results.set(index, eventResult);
+                if (pendingCount.decrementAndGet() == 0) {
+                    future.complete(results);
+                }
+            });
+        }
+        return future;
+    }
+
+    public static <T> CompletableFuture<T> anyOf(Collection<? extends EventFuture<T>> eventFutures, long timeout, TimeUnit unit) {
+        List<CompletableFuture<T>> futures = waitAll(eventFutures, timeout, unit);
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (futures.isEmpty()) {
+            future.completeExceptionally(new IllegalArgumentException("eventFutures is empty"));
+            return future;
+        }
+        AtomicInteger pendingCount = new AtomicInteger(futures.size());
+        AtomicReference<Throwable> lastException = new AtomicReference<>();
+        for (CompletableFuture<T> eventFuture : futures) {
+            eventFuture.whenComplete((result, exception) -> {
+                if (exception == null) {
+                    future.complete(result);
+                } else {
+                    lastException.set(unwrapException(exception));
+                }
+                if (pendingCount.decrementAndGet() == 0) {
+                    future.completeExceptionally(lastException.get());
+                }
+            });
+        }
+        return future;
+    }
+
+    private static <T> List<CompletableFuture<T>> waitAll(Collection<? extends EventFuture<T>> eventFutures, long timeout, TimeUnit unit) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(eventFutures.size());
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (EventFuture<T> eventFuture : eventFutures) {
+            futures.add(eventFuture.toCompletableFuture(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS));
+        }
+        return futures;
+    }
+
+    private static Throwable unwrapException(Throwable exception) {
+        if (exception instanceof CompletionException && exception.getCause() != null) {
+            return exception.getCause();
+        }
+        return exception;
+    }
+}
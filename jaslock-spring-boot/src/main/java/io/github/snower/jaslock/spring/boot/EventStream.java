@@ -0,0 +1,169 @@
+package io.github.snower.jaslock.spring.boot;
+
+import io.github.snower.jaslock.exceptions.SlockException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Streams a sequence of chunks under one stream key, each chunk is one EventFuture keyed by its sequence,
+ * a chunk set without data marks the end of the stream. Consumers only hold the chunk being read.
+ */
+public class EventStream<T> implements Iterable<T> {
+    private final SlockTemplate slockTemplate;
+    private final byte databaseId;
+    private final String streamKey;
+    private final Type chunkType;
+    private long sequence;
+    private long chunkTimeout = 120000;
+    private long chunkExpried = 300000;
+
+    public EventStream(SlockTemplate slockTemplate, byte databaseId, String streamKey) {
+        this(slockTemplate, databaseId, streamKey, Object.class);
+    }
+
+    public EventStream(SlockTemplate slockTemplate, byte databaseId, String streamKey, Type chunkType) {
+        this.slockTemplate = slockTemplate;
+        this.databaseId = databaseId;
+        this.streamKey = streamKey;
+        this.chunkType = chunkType;
+    }
+
+    public String getStreamKey() {
+        return streamKey;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public long getChunkTimeout() {
+        return chunkTimeout;
+    }
+
+    public void setChunkTimeout(long chunkTimeout, TimeUnit unit) {
+        this.chunkTimeout = unit.toMillis(chunkTimeout);
+    }
+
+    public long getChunkExpried() {
+        return chunkExpried;
+    }
+
+    public void setChunkExpried(long chunkExpried, TimeUnit unit) {
+        this.chunkExpried = unit.toMillis(chunkExpried);
+    }
+
+    public synchronized long publish(T chunk) throws SlockException, IOException {
+        if (chunk == null) {
+            throw new NullPointerException("chunk is null");
+        }
+        this.<T>newChunkFuture(sequence).setResult(chunk, chunkExpried, TimeUnit.MILLISECONDS);
+        return sequence++;
+    }
+
+    public synchronized void complete() throws SlockException {
+        newChunkFuture(sequence).setResult(chunkExpried, TimeUnit.MILLISECONDS);
+        sequence++;
+    }
+
+    public synchronized void completeExceptionally(Throwable exception) throws SlockException, IOException {
+        newChunkFuture(sequence).setException(exception, chunkExpried, TimeUnit.MILLISECONDS);
+        sequence++;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return iterator(0);
+    }
+
+    public Iterator<T> iterator(long fromSequence) {
+        return new ChunkIterator(fromSequence);
+    }
+
+    public CompletableFuture<Void> forEachAsync(Consumer<? super T> action) {
+        return forEachAsync(0, action);
+    }
+
+    public CompletableFuture<Void> forEachAsync(long fromSequence, Consumer<? super T> action) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        readAsync(future, fromSequence, action);
+        return future;
+    }
+
+    private void readAsync(CompletableFuture<Void> future, long readSequence, Consumer<? super T> action) {
+        this.<T>newChunkFuture(readSequence).toCompletableFuture(chunkTimeout, TimeUnit.MILLISECONDS).whenComplete((chunk, exception) -> {
+            if (exception != null) {
+                future.completeExceptionally(exception);
+                return;
+            }
+            if (chunk == null) {
+                future.complete(null);
+                return;
+            }
+            try {
+                action.accept(chunk);
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+                return;
+            }
+            if (!future.isDone()) {
+                readAsync(future, readSequence + 1, action);
+            }
+        });
+    }
+
+    private <V> EventFuture<V> newChunkFuture(long chunkSequence) {
+        return slockTemplate.newEventFuture(databaseId, streamKey + ":" + chunkSequence, chunkType);
+    }
+
+    private class ChunkIterator implements Iterator<T> {
+        private long readSequence;
+        private T nextChunk;
+        private boolean finished;
+
+        private ChunkIterator(long readSequence) {
+            this.readSequence = readSequence;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextChunk != null) return true;
+            if (finished) return false;
+            try {
+                nextChunk = EventStream.this.<T>newChunkFuture(readSequence).get(chunkTimeout, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            } catch (ExecutionException e) {
+                finished = true;
+                throw new CompletionException(e.getCause());
+            } catch (TimeoutException e) {
+                throw new CompletionException(e);
+            }
+            readSequence++;
+            if (nextChunk == null) {
+                finished = true;
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T chunk = nextChunk;
+            nextChunk = null;
+            return chunk;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package io.github.snower.jaslock.spring.boot;
+
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Shares one remote event wait between all local waiters of the same key. A local waiter timing out only
+ * drops its reference, the remote wait stays registered until the server returns so that later waiters
+ * reuse it instead of stacking new server waits, and it is only retired when the server wait times out
+ * with no waiter left. String keys are shared with the same UTF-8 byte keys, waiters reading the result as
+ * different types do not share a remote wait.
+ */
+public class EventWaitRegistry {
+    private static final AtomicInteger threadIndex = new AtomicInteger();
+    private static final long REMOTE_WAIT_TIMEOUT = 120;
+
+    private final SlockTemplate slockTemplate;
+    private final ConcurrentHashMap<WaitKey, SharedWait> waits = new ConcurrentHashMap<>();
+    private volatile ScheduledThreadPoolExecutor timeoutExecutor;
+    private volatile boolean closed;
+
+    public EventWaitRegistry(SlockTemplate slockTemplate) {
+        this.slockTemplate = slockTemplate;
+    }
+
+    public <T> CompletableFuture<T> waitEvent(byte databaseId, byte[] eventKey, long timeout, TimeUnit unit) {
+        return waitEvent(databaseId, eventKey, Object.class, timeout, unit);
+    }
+
+    public <T> CompletableFuture<T> waitEvent(byte databaseId, String eventKey, long timeout, TimeUnit unit) {
+        return waitEvent(databaseId, eventKey, Object.class, timeout, unit);
+    }
+
+    public <T> CompletableFuture<T> waitEvent(byte databaseId, byte[] eventKey, Type resultType, long timeout, TimeUnit unit) {
+        return waitEvent(new WaitKey(databaseId, ByteBuffer.wrap(eventKey), resultType),
+                () -> slockTemplate.newEventFuture(databaseId, eventKey, resultType), timeout, unit);
+    }
+
+    public <T> CompletableFuture<T> waitEvent(byte databaseId, String eventKey, Type resultType, long timeout, TimeUnit unit) {
+        return waitEvent(databaseId, eventKey.getBytes(StandardCharsets.UTF_8), resultType, timeout, unit);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> waitEvent(WaitKey waitKey, Supplier<EventFuture<Object>> eventFutureBuilder, long timeout, TimeUnit unit) {
+        if (closed) {
+            throw new IllegalStateException("EventWaitRegistry closed");
+        }
+        if (timeout <= 0) {
+            return (CompletableFuture<T>) eventFutureBuilder.get().toCompletableFuture(timeout, unit);
+        }
+
+        boolean[] created = new boolean[]{false};
+        SharedWait sharedWait = waits.compute(waitKey, (k, v) -> {
+            if (v == null) {
+                v = new SharedWait(k);
+                created[0] = true;
+            }
+            v.references++;
+            return v;
+        });
+        if (created[0]) {
+            sharedWait.start(eventFutureBuilder.get());
+        }
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        sharedWait.future.whenComplete((result, exception) -> {
+            if (exception != null) {
+                future.completeExceptionally(exception instanceof CompletionException && exception.getCause() != null
+                        ? exception.getCause() : exception);
+            } else {
+                future.complete((T) result);
+            }
+        });
+        ScheduledFuture<?> timeoutFuture = getTimeoutExecutor().schedule(() -> future.completeExceptionally(new TimeoutException()),
+                timeout, unit);
+        future.whenComplete((result, exception) -> {
+            timeoutFuture.cancel(false);
+            release(sharedWait);
+        });
+        return future;
+    }
+
+    public int size() {
+        return waits.size();
+    }
+
+    public void close() {
+        closed = true;
+        for (SharedWait sharedWait : waits.values()) {
+            sharedWait.cancel();
+        }
+        waits.clear();
+        ScheduledThreadPoolExecutor executor = timeoutExecutor;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void release(SharedWait sharedWait) {
+        waits.computeIfPresent(sharedWait.key, (k, v) -> {
+            if (v == sharedWait) {
+                v.references--;
+            }
+            return v;
+        });
+    }
+
+    private ScheduledThreadPoolExecutor getTimeoutExecutor() {
+        if (timeoutExecutor == null) {
+            synchronized (this) {
+                if (timeoutExecutor == null) {
+                    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+                        Thread thread = new Thread(runnable, "slock-event-wait-" + threadIndex.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    executor.setRemoveOnCancelPolicy(true);
+                    timeoutExecutor = executor;
+                }
+            }
+        }
+        return timeoutExecutor;
+    }
+
+    private class SharedWait {
+        private final WaitKey key;
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+        private EventFuture<Object> eventFuture;
+        private int references;
+
+        private SharedWait(WaitKey key) {
+            this.key = key;
+            this.future.whenComplete((result, exception) -> waits.remove(key, this));
+        }
+
+        private void start(EventFuture<Object> eventFuture) {
+            this.eventFuture = eventFuture;
+            waitRemote();
+        }
+
+        private void waitRemote() {
+            try {
+                eventFuture.toCompletableFuture(REMOTE_WAIT_TIMEOUT, TimeUnit.SECONDS).whenComplete((result, exception) -> {
+                    if (exception instanceof TimeoutException) {
+                        if (closed || retire()) {
+                            future.cancel(false);
+                        } else {
+                            waitRemote();
+                        }
+                    } else if (exception != null) {
+                        future.completeExceptionally(exception);
+                    } else {
+                        future.complete(result);
+                    }
+                });
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        private boolean retire() {
+            boolean[] retired = new boolean[]{true};
+            waits.computeIfPresent(key, (k, v) -> {
+                if (v != this) return v;
+                if (v.references > 0) {
+                    retired[0] = false;
+                    return v;
+                }
+                return null;
+            });
+            return retired[0];
+        }
+
+        private void cancel() {
+            future.cancel(false);
+        }
+    }
+
+    private static class WaitKey {
+        private final byte databaseId;
+        private final ByteBuffer eventKey;
+        private final Type resultType;
+
+        private WaitKey(byte databaseId, ByteBuffer eventKey, Type resultType) {
+            this.databaseId = databaseId;
+            this.eventKey = eventKey;
+            this.resultType = resultType == null ? Object.class : resultType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof WaitKey)) return false;
+            WaitKey waitKey = (WaitKey) o;
+            return databaseId == waitKey.databaseId && eventKey.equals(waitKey.eventKey) && resultType.equals(waitKey.resultType);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * databaseId + eventKey.hashCode()) + resultType.hashCode();
+        }
+    }
+}
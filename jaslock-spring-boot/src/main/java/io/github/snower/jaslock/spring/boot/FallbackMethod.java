@@ -0,0 +1,66 @@
+package io.github.snower.jaslock.spring.boot;
+
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fallback method of an annotated method, resolved lazily on the invoked target class so it may be declared in a
+ * subclass or the proxied implementation. Call {@link #validate(Class)} to check it against a bean class up front.
+ */
+public class FallbackMethod {
+    private static final MethodType INVOKE_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    private final Method method;
+    private final String name;
+    private final ConcurrentHashMap<Class<?>, MethodHandle> methodHandles = new ConcurrentHashMap<>();
+
+    public FallbackMethod(Method method, String name) {
+        this.method = method;
+        this.name = name;
+    }
+
+    public void validate(Class<?> targetClass) {
+        methodHandles.computeIfAbsent(targetClass, this::resolve);
+    }
+
+    public Object invoke(Object target, Object[] args) throws Throwable {
+        Class<?> targetClass = target == null ? method.getDeclaringClass() : target.getClass();
+        MethodHandle methodHandle = methodHandles.get(targetClass);
+        if (methodHandle == null) {
+            methodHandle = methodHandles.computeIfAbsent(targetClass, this::resolve);
+        }
+        return (Object) methodHandle.invokeExact(target, args);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    protected MethodHandle resolve(Class<?> targetClass) {
+        Method fallbackMethod = ReflectionUtils.findMethod(targetClass, name, method.getParameterTypes());
+        if (fallbackMethod == null) {
+            throw new IllegalArgumentException("fallback method " + name + " not found in " + targetClass.getName());
+        }
+        if (!ClassUtils.isAssignable(method.getReturnType(), fallbackMethod.getReturnType())) {
+            throw new IllegalArgumentException("fallback method " + name + " return type " + fallbackMethod.getReturnType().getName()
+                    + " is not assignable to " + method.getReturnType().getName());
+        }
+        ReflectionUtils.makeAccessible(fallbackMethod);
+        try {
+            MethodHandle methodHandle = MethodHandles.lookup().unreflect(fallbackMethod);
+            if (Modifier.isStatic(fallbackMethod.getModifiers())) {
+                methodHandle = MethodHandles.dropArguments(methodHandle, 0, Object.class);
+            }
+            return methodHandle.asSpreader(Object[].class, fallbackMethod.getParameterCount()).asType(INVOKE_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("fallback method " + name + " access error", e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package io.github.snower.jaslock.spring.boot;
+
+import java.util.Arrays;
+
+public class HeldLockKeys {
+    private static final ThreadLocal<HeldLockKeys> currentHeldLockKeys = ThreadLocal.withInitial(HeldLockKeys::new);
+
+    private Object[] keys = new Object[4];
+    private byte[] databaseIds = new byte[4];
+    private int size;
+
+    public static HeldLockKeys current() {
+        return currentHeldLockKeys.get();
+    }
+
+    public boolean contains(byte databaseId, Object key) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (databaseIds[i] == databaseId && keyEquals(keys[i], key)) return true;
+        }
+        return false;
+    }
+
+    public void push(byte databaseId, Object key) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            databaseIds = Arrays.copyOf(databaseIds, size * 2);
+        }
+        keys[size] = key;
+        databaseIds[size] = databaseId;
+        size++;
+    }
+
+    public void pop() {
+        if (size == 0) return;
+        keys[--size] = null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static boolean keyEquals(Object key, Object other) {
+        if (key instanceof byte[] && other instanceof byte[]) {
+            return Arrays.equals((byte[]) key, (byte[]) other);
+        }
+        return key.equals(other);
+    }
+}
@@ -0,0 +1,123 @@
+package io.github.snower.jaslock.spring.boot;
+
+import io.github.snower.jaslock.commands.ICommand;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Node local cache of results produced by this node, the same cached instance is returned to every caller so
+ * cached results must be immutable. Results read back from the server are not cached since their remaining
+ * server persistence is unknown.
+ */
+public class IdempotentResultCache {
+    private final int maxSize;
+    private final long maxTtlMillis;
+    private final int evictSize;
+    private final ConcurrentHashMap<String, CacheEntry> entries;
+    private final AtomicBoolean evicting = new AtomicBoolean(false);
+
+    public IdempotentResultCache(int maxSize, long maxTtlMillis) {
+        this.maxSize = Math.max(maxSize, 1);
+        this.maxTtlMillis = maxTtlMillis;
+        this.evictSize = this.maxSize / 16;
+        this.entries = new ConcurrentHashMap<>(Math.min(this.maxSize, 1024));
+    }
+
+    public static long getPersistenceMillis(int persistence, int persistenceFlag) {
+        if (persistence <= 0) return 0;
+        return (persistenceFlag & ICommand.EXPRIED_FLAG_MILLISECOND_TIME) != 0 ? persistence : persistence * 1000L;
+    }
+
+    public Object get(String key, Class<?> resultClass) {
+        CacheEntry entry = entries.get(key);
+        if (entry == null) return null;
+        long now = System.nanoTime();
+        if (entry.expireTime - now <= 0) {
+            entries.remove(key, entry);
+            return null;
+        }
+        entry.accessTime = now;
+        return resultClass.isInstance(entry.value) ? entry.value : null;
+    }
+
+    public void put(String key, Object value, long ttlMillis) {
+        if (value == null) return;
+        if (maxTtlMillis > 0 && ttlMillis > maxTtlMillis) {
+            ttlMillis = maxTtlMillis;
+        }
+        if (ttlMillis <= 0) return;
+        long now = System.nanoTime();
+        entries.put(key, new CacheEntry(value, now, now + ttlMillis * 1000000L));
+        if (entries.size() > maxSize) {
+            evict(now);
+        }
+    }
+
+    public void remove(String key) {
+        entries.remove(key);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getMaxTtlMillis() {
+        return maxTtlMillis;
+    }
+
+    private void evict(long now) {
+        if (!evicting.compareAndSet(false, true)) return;
+        try {
+            entries.entrySet().removeIf(entry -> entry.getValue().expireTime - now <= 0);
+            int removeCount = entries.size() - maxSize;
+            if (removeCount <= 0) return;
+            List<EvictEntry> evictEntries = new ArrayList<>(entries.size());
+            for (Map.Entry<String, CacheEntry> entry : entries.entrySet()) {
+                evictEntries.add(new EvictEntry(entry.getKey(), entry.getValue(), entry.getValue().accessTime - now));
+            }
+            evictEntries.sort((a, b) -> Long.compare(a.accessTime, b.accessTime));
+            removeCount = Math.min(removeCount + evictSize, evictEntries.size());
+            for (int i = 0; i < removeCount; i++) {
+                entries.remove(evictEntries.get(i).key, evictEntries.get(i).entry);
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static class EvictEntry {
+        private final String key;
+        private final CacheEntry entry;
+        private final long accessTime;
+
+        private EvictEntry(String key, CacheEntry entry, long accessTime) {
+            this.key = key;
+            this.entry = entry;
+            this.accessTime = accessTime;
+        }
+    }
+
+    private static class CacheEntry {
+        private final Object value;
+        private final long expireTime;
+        private volatile long accessTime;
+
+        private CacheEntry(Object value, long accessTime, long expireTime) {
+            this.value = value;
+            this.accessTime = accessTime;
+            this.expireTime = expireTime;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package io.github.snower.jaslock.spring.boot;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public class JacksonSerializater implements SlockSerializater {
+    private static final String SMILE_FACTORY_CLASS_NAME = "com.fasterxml.jackson.dataformat.smile.SmileFactory";
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter streamWriter;
+
+    public JacksonSerializater() {
+        this(createObjectMapper(null));
+    }
+
+    public JacksonSerializater(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.streamWriter = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    public static JacksonSerializater newSmileSerializater() {
+        try {
+            JsonFactory smileFactory = (JsonFactory) Class.forName(SMILE_FACTORY_CLASS_NAME).getDeclaredConstructor().newInstance();
+            return new JacksonSerializater(createObjectMapper(smileFactory));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("jackson-dataformat-smile is not available", e);
+        }
+    }
+
+    public static boolean isSmileAvailable() {
+        try {
+            Class.forName(SMILE_FACTORY_CLASS_NAME, false, JacksonSerializater.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static ObjectMapper createObjectMapper(JsonFactory jsonFactory) {
+        ObjectMapper objectMapper = jsonFactory == null ? new ObjectMapper() : new ObjectMapper(jsonFactory);
+        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        objectMapper.findAndRegisterModules();
+        return objectMapper;
+    }
+
+    @Override
+    public boolean isLeadingZeroFree() {
+        String formatName = objectMapper.getFactory().getFormatName();
+        return JsonFactory.FORMAT_NAME_JSON.equals(formatName) || "Smile".equals(formatName);
+    }
+
+    @Override
+    public byte[] serializate(Object object) throws IOException {
+        return objectMapper.writeValueAsBytes(object);
+    }
+
+    @Override
+    public void serializate(Object object, OutputStream outputStream) throws IOException {
+        streamWriter.writeValue(outputStream, object);
+    }
+
+    @Override
+    public Object deserialize(byte[] data, Class<?> clsType) throws IOException {
+        return objectMapper.readValue(data, clsType);
+    }
+
+    @Override
+    public Object deserialize(byte[] data, TypeReference<?> typeReference) throws IOException {
+        return objectMapper.readValue(data, objectMapper.getTypeFactory().constructType(typeReference.getType()));
+    }
+
+    @Override
+    public Object deserialize(byte[] data, int offset, int length, Class<?> clsType) throws IOException {
+        return objectMapper.readValue(data, offset, length, clsType);
+    }
+
+    @Override
+    public Object deserialize(byte[] data, int offset, int length, TypeReference<?> typeReference) throws IOException {
+        return objectMapper.readValue(data, offset, length, objectMapper.getTypeFactory().constructType(typeReference.getType()));
+    }
+
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+}
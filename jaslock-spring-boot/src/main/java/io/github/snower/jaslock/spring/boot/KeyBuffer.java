@@ -0,0 +1,263 @@
+package io.github.snower.jaslock.spring.boot;
+
+import io.github.snower.jaslock.spring.boot.annotations.KeyEncoding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class KeyBuffer {
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final int MAX_RETAIN_CAPACITY = 4096;
+    private static final byte[] MIN_LONG_BYTES = "-9223372036854775808".getBytes(StandardCharsets.US_ASCII);
+    private static final ThreadLocal<KeyBuffer> threadBuffers = ThreadLocal.withInitial(KeyBuffer::new);
+
+    private byte[] buffer;
+    private int size;
+    private boolean used;
+
+    public KeyBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public KeyBuffer(int capacity) {
+        this.buffer = new byte[Math.max(capacity, 16)];
+        this.size = 0;
+    }
+
+    public static byte[] encode(String value, KeyEncoding keyEncoding) {
+        if (keyEncoding != KeyEncoding.HASH128) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+        KeyBuffer keyBuffer = acquire();
+        try {
+            return keyBuffer.writeString(value).toByteArray(keyEncoding);
+        } finally {
+            keyBuffer.release();
+        }
+    }
+
+    public static KeyBuffer acquire() {
+        KeyBuffer keyBuffer = threadBuffers.get();
+        if (keyBuffer.used) {
+            keyBuffer = new KeyBuffer();
+        }
+        keyBuffer.used = true;
+        return keyBuffer;
+    }
+
+    public void release() {
+        size = 0;
+        used = false;
+        if (buffer.length > MAX_RETAIN_CAPACITY) {
+            buffer = new byte[DEFAULT_CAPACITY];
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    public byte[] toByteArray(KeyEncoding keyEncoding) {
+        if (keyEncoding == KeyEncoding.HASH128) {
+            return hash128(buffer, 0, size);
+        }
+        return Arrays.copyOf(buffer, size);
+    }
+
+    public KeyBuffer reset() {
+        size = 0;
+        return this;
+    }
+
+    private void ensureCapacity(int length) {
+        if (size + length <= buffer.length) return;
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, size + length));
+    }
+
+    public KeyBuffer writeByte(int b) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) b;
+        return this;
+    }
+
+    public KeyBuffer writeBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+        return this;
+    }
+
+    public KeyBuffer writeString(String value) {
+        int length = value.length();
+        ensureCapacity(length);
+        int i = 0;
+        for (; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) break;
+            buffer[size++] = (byte) c;
+        }
+        if (i < length) {
+            writeUtf8(value, i, length);
+        }
+        return this;
+    }
+
+    private void writeUtf8(String value, int index, int length) {
+        ensureCapacity((length - index) * 3);
+        for (int i = index; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[size++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[size++] = (byte) (0xc0 | (c >> 6));
+                buffer[size++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[size++] = (byte) (0xf0 | (codePoint >> 18));
+                buffer[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                buffer[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                buffer[size++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                buffer[size++] = '?';
+            } else {
+                buffer[size++] = (byte) (0xe0 | (c >> 12));
+                buffer[size++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buffer[size++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+    }
+
+    public KeyBuffer writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            return writeBytes(MIN_LONG_BYTES);
+        }
+        ensureCapacity(20);
+        if (value < 0) {
+            buffer[size++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        int index = size + digits;
+        size = index;
+        do {
+            buffer[--index] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value != 0);
+        return this;
+    }
+
+    public KeyBuffer writeObject(Object value) {
+        if (value instanceof String) {
+            return writeString((String) value);
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return writeLong(((Number) value).longValue());
+        }
+        return writeString(value.toString());
+    }
+
+    public static byte[] hash128(byte[] data, int offset, int length) {
+        final long c1 = 0x87c37b91114253d5L;
+        final long c2 = 0x4cf5ad432745937fL;
+        long h1 = 0, h2 = 0, k1, k2;
+        int blockCount = length >>> 4;
+        for (int i = 0; i < blockCount; i++) {
+            int index = offset + (i << 4);
+            k1 = readLongLE(data, index);
+            k2 = readLongLE(data, index + 8);
+
+            k1 *= c1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= c2;
+            h1 ^= k1;
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            k2 *= c2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= c1;
+            h2 ^= k2;
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        int tail = offset + (blockCount << 4);
+        k1 = 0;
+        k2 = 0;
+        switch (length & 15) {
+            case 15: k2 ^= (data[tail + 14] & 0xffL) << 48;
+            case 14: k2 ^= (data[tail + 13] & 0xffL) << 40;
+            case 13: k2 ^= (data[tail + 12] & 0xffL) << 32;
+            case 12: k2 ^= (data[tail + 11] & 0xffL) << 24;
+            case 11: k2 ^= (data[tail + 10] & 0xffL) << 16;
+            case 10: k2 ^= (data[tail + 9] & 0xffL) << 8;
+            case 9:
+                k2 ^= data[tail + 8] & 0xffL;
+                k2 *= c2;
+                k2 = Long.rotateLeft(k2, 33);
+                k2 *= c1;
+                h2 ^= k2;
+            case 8: k1 ^= (data[tail + 7] & 0xffL) << 56;
+            case 7: k1 ^= (data[tail + 6] & 0xffL) << 48;
+            case 6: k1 ^= (data[tail + 5] & 0xffL) << 40;
+            case 5: k1 ^= (data[tail + 4] & 0xffL) << 32;
+            case 4: k1 ^= (data[tail + 3] & 0xffL) << 24;
+            case 3: k1 ^= (data[tail + 2] & 0xffL) << 16;
+            case 2: k1 ^= (data[tail + 1] & 0xffL) << 8;
+            case 1:
+                k1 ^= data[tail] & 0xffL;
+                k1 *= c1;
+                k1 = Long.rotateLeft(k1, 31);
+                k1 *= c2;
+                h1 ^= k1;
+        }
+
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        h1 += h2;
+        h2 += h1;
+
+        byte[] result = new byte[16];
+        writeLongLE(result, 0, h1);
+        writeLongLE(result, 8, h2);
+        return result;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    private static long readLongLE(byte[] data, int index) {
+        return (data[index] & 0xffL) | (data[index + 1] & 0xffL) << 8 | (data[index + 2] & 0xffL) << 16
+                | (data[index + 3] & 0xffL) << 24 | (data[index + 4] & 0xffL) << 32 | (data[index + 5] & 0xffL) << 40
+                | (data[index + 6] & 0xffL) << 48 | (data[index + 7] & 0xffL) << 56;
+    }
+
+    private static void writeLongLE(byte[] data, int index, long value) {
+        for (int i = 0; i < 8; i++) {
+            data[index + i] = (byte) (value >>> (i << 3));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package io.github.snower.jaslock.spring.boot;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class LocalLockRegistry {
+    private static final LocalLockRegistry sharedRegistry = new LocalLockRegistry();
+
+    private final ConcurrentHashMap<Object, LocalLock> locks = new ConcurrentHashMap<>();
+
+    public static LocalLockRegistry getSharedRegistry() {
+        return sharedRegistry;
+    }
+
+    public LocalLock acquire(Object key, long timeout, TimeUnit unit) throws InterruptedException {
+        Object localKey = key instanceof byte[] ? ByteBuffer.wrap((byte[]) key) : key;
+        LocalLock localLock = locks.compute(localKey, (k, v) -> {
+            if (v == null) {
+                v = new LocalLock(k);
+            }
+            v.references++;
+            return v;
+        });
+        boolean locked = false;
+        try {
+            locked = localLock.tryLock(timeout, unit);
+        } finally {
+            if (!locked) {
+                dereference(localLock);
+            }
+        }
+        return locked ? localLock : null;
+    }
+
+    public void release(LocalLock localLock) {
+        try {
+            localLock.unlock();
+        } finally {
+            dereference(localLock);
+        }
+    }
+
+    public int size() {
+        return locks.size();
+    }
+
+    private void dereference(LocalLock localLock) {
+        locks.computeIfPresent(localLock.key, (k, v) -> --v.references <= 0 ? null : v);
+    }
+
+    public static class LocalLock extends ReentrantLock {
+        private final Object key;
+        private int references;
+
+        private LocalLock(Object key) {
+            super();
+            this.key = key;
+        }
+
+        public Object getKey() {
+            return key;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package io.github.snower.jaslock.spring.boot;
+
+import io.github.snower.jaslock.Lock;
+import io.github.snower.jaslock.commands.ICommand;
+import io.github.snower.jaslock.exceptions.SlockException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LockRenewalWatchdog {
+    private static final Logger logger = LoggerFactory.getLogger(LockRenewalWatchdog.class);
+    private static final AtomicInteger threadIndex = new AtomicInteger();
+
+    private final long tickNanos;
+    private final LinkedList<Renewal>[] wheel;
+    private final ConcurrentLinkedQueue<Renewal> pendingRenewals = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger renewalCount = new AtomicInteger();
+    private volatile Thread workerThread;
+    private volatile boolean closed;
+    private long startTime;
+    private long tick;
+
+    public LockRenewalWatchdog() {
+        this(100, TimeUnit.MILLISECONDS, 512);
+    }
+
+    @SuppressWarnings("unchecked")
+    public LockRenewalWatchdog(long tickDuration, TimeUnit unit, int wheelSize) {
+        this.tickNanos = Math.max(unit.toNanos(tickDuration), TimeUnit.MILLISECONDS.toNanos(1));
+        this.wheel = new LinkedList[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            wheel[i] = new LinkedList<>();
+        }
+    }
+
+    public static long getRenewalIntervalMillis(int expried) {
+        long expriedTime = expried & 0xffff;
+        if (((expried >>> 16) & ICommand.EXPRIED_FLAG_MILLISECOND_TIME) == 0) {
+            expriedTime *= 1000;
+        }
+        return Math.max(expriedTime / 3, 1);
+    }
+
+    public Renewal register(Lock lock, long intervalMillis) {
+        return register(renewal -> {
+            lock.setTimeout((short) 0);
+            lock.acquire(ICommand.LOCK_FLAG_UPDATE_WHEN_LOCKED, result -> {
+                if (result.getException() != null) {
+                    renewal.lost(result.getException());
+                }
+            });
+        }, intervalMillis);
+    }
+
+    public Renewal register(Renewer renewer, long intervalMillis) {
+        if (closed) {
+            throw new IllegalStateException("LockRenewalWatchdog closed");
+        }
+        Renewal renewal = new Renewal(renewer, TimeUnit.MILLISECONDS.toNanos(intervalMillis));
+        schedule(renewal);
+        start();
+        return renewal;
+    }
+
+    public int getRenewalCount() {
+        return renewalCount.get();
+    }
+
+    public void close() {
+        closed = true;
+        Thread thread = workerThread;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void schedule(Renewal renewal) {
+        renewal.deadline = System.nanoTime() + renewal.intervalNanos;
+        pendingRenewals.offer(renewal);
+    }
+
+    private void start() {
+        if (workerThread != null) return;
+        synchronized (this) {
+            if (workerThread != null || closed) return;
+            startTime = System.nanoTime();
+            Thread thread = new Thread(this::run, "slock-lock-renewal-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            workerThread = thread;
+            thread.start();
+        }
+    }
+
+    private void run() {
+        while (!closed) {
+            long sleepNanos = startTime + (tick + 1) * tickNanos - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (closed) break;
+                }
+            }
+            transferPendingRenewals();
+            LinkedList<Renewal> bucket = wheel[(int) (tick % wheel.length)];
+            Iterator<Renewal> iterator = bucket.iterator();
+            while (iterator.hasNext()) {
+                Renewal renewal = iterator.next();
+                if (renewal.cancelled) {
+                    iterator.remove();
+                    renewalCount.decrementAndGet();
+                } else if (renewal.remainingRounds > 0) {
+                    renewal.remainingRounds--;
+                } else {
+                    iterator.remove();
+                    renewalCount.decrementAndGet();
+                    renewal.renew();
+                }
+            }
+            tick++;
+        }
+    }
+
+    private void transferPendingRenewals() {
+        Renewal renewal;
+        while ((renewal = pendingRenewals.poll()) != null) {
+            if (renewal.cancelled) continue;
+            long ticks = Math.max((renewal.deadline - startTime + tickNanos - 1) / tickNanos, tick);
+            renewal.remainingRounds = (ticks - tick) / wheel.length;
+            wheel[(int) (ticks % wheel.length)].add(renewal);
+            renewalCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Renewals must be sent with a zero wait timeout so an expired lease held by another node fails fast
+     * instead of queuing on the server and re-taking the lock, failures must be reported by {@link Renewal#lost}.
+     */
+    public interface Renewer {
+        void renew(Renewal renewal) throws SlockException;
+    }
+
+    public class Renewal {
+        private final Renewer renewer;
+        private final long intervalNanos;
+        private volatile boolean cancelled;
+        private volatile boolean lost;
+        private long deadline;
+        private long remainingRounds;
+
+        private Renewal(Renewer renewer, long intervalNanos) {
+            this.renewer = renewer;
+            this.intervalNanos = intervalNanos;
+        }
+
+        public void cancel() {
+            synchronized (this) {
+                cancelled = true;
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public boolean isLost() {
+            return lost;
+        }
+
+        public void lost(Throwable cause) {
+            synchronized (this) {
+                if (cancelled) return;
+                cancelled = true;
+                lost = true;
+            }
+            logger.warn("LockRenewalWatchdog renew error, lock lost {}", cause, cause);
+        }
+
+        private void renew() {
+            synchronized (this) {
+                if (cancelled) return;
+                try {
+                    renewer.renew(this);
+                } catch (Exception e) {
+                    lost(e);
+                }
+            }
+            if (!cancelled && !closed) {
+                schedule(this);
+            }
+        }
+    }
+}
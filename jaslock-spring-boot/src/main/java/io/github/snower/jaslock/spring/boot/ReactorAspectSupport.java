@@ -0,0 +1,125 @@
+package io.github.snower.jaslock.spring.boot;
+
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+class ReactorAspectSupport {
+    private static final int PENDING = 0;
+    private static final int ACQUIRED = 1;
+    private static final int RUNNING = 2;
+    private static final int CANCELLED = 3;
+
+    static boolean isReactorReturnType(Class<?> returnType) {
+        return returnType == Mono.class || returnType == Flux.class;
+    }
+
+    static boolean isMonoReturnType(Class<?> returnType) {
+        return returnType == Mono.class;
+    }
+
+    static Object execute(Class<?> returnType, AsyncAspectSupport.AsyncPermit permit, AbstractBaseAspect.Invocation next, Executor executor) {
+        Mono<Object> acquire = Mono.create(sink -> {
+            AtomicInteger state = new AtomicInteger(PENDING);
+            sink.onCancel(() -> {
+                int currentState;
+                while ((currentState = state.get()) == PENDING || currentState == ACQUIRED) {
+                    if (state.compareAndSet(currentState, CANCELLED)) {
+                        if (currentState == ACQUIRED) permit.release(null, null);
+                        return;
+                    }
+                }
+            });
+            permit.acquire(new AsyncAspectSupport.AsyncAcquireCallback() {
+                @Override
+                public void acquired() {
+                    if (executor == null) {
+                        emit();
+                        return;
+                    }
+                    try {
+                        executor.execute(this::emit);
+                    } catch (RejectedExecutionException e) {
+                        state.set(CANCELLED);
+                        permit.release(null, e);
+                        sink.error(e);
+                    }
+                }
+
+                private void emit() {
+                    if (!state.compareAndSet(PENDING, ACQUIRED)) {
+                        permit.release(null, null);
+                        return;
+                    }
+                    sink.success(state);
+                }
+
+                @Override
+                public void completed(Object value) {
+                    sink.success(new Object[]{value});
+                }
+
+                @Override
+                public void failed(Throwable e) {
+                    sink.error(e);
+                }
+            });
+        });
+        if (returnType == Mono.class) {
+            return acquire.flatMap(signal -> {
+                if (signal instanceof Object[]) return Mono.justOrEmpty(((Object[]) signal)[0]);
+                if (!((AtomicInteger) signal).compareAndSet(ACQUIRED, RUNNING)) return Mono.empty();
+                Object result;
+                try {
+                    result = next.proceed();
+                } catch (Throwable e) {
+                    permit.release(null, e);
+                    return Mono.error(e);
+                }
+                if (result == null) {
+                    permit.release(null, null);
+                    return Mono.empty();
+                }
+                AtomicBoolean released = new AtomicBoolean(false);
+                return Mono.from(asPublisher(result))
+                        .doOnSuccess(value -> {
+                            if (released.compareAndSet(false, true)) permit.release(value, null);
+                        })
+                        .doOnError(e -> {
+                            if (released.compareAndSet(false, true)) permit.release(null, e);
+                        })
+                        .doOnCancel(() -> {
+                            if (released.compareAndSet(false, true)) permit.release(null, null);
+                        });
+            });
+        }
+        return acquire.flatMapMany(signal -> {
+            if (signal instanceof Object[] || !((AtomicInteger) signal).compareAndSet(ACQUIRED, RUNNING)) return Flux.empty();
+            Object result;
+            try {
+                result = next.proceed();
+            } catch (Throwable e) {
+                permit.release(null, e);
+                return Flux.error(e);
+            }
+            if (result == null) {
+                permit.release(null, null);
+                return Flux.empty();
+            }
+            AtomicReference<Throwable> exception = new AtomicReference<>();
+            return Flux.from(asPublisher(result))
+                    .doOnError(exception::set)
+                    .doFinally(signalType -> permit.release(null, exception.get()));
+        });
+    }
+    @SuppressWarnings("unchecked")
+    private static Publisher<Object> asPublisher(Object result) {
+        return (Publisher<Object>) result;
+    }
+}
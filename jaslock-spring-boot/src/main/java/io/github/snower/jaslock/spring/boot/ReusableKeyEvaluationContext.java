@@ -0,0 +1,92 @@
+package io.github.snower.jaslock.spring.boot;
+
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.lang.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class ReusableKeyEvaluationContext extends StandardEvaluationContext {
+    protected final EvaluationContext parentContext;
+    protected final Object environment;
+    protected final Map<String, Object> variables = new HashMap<>();
+    protected String[] parameterNames;
+    protected Object[] arguments;
+    protected boolean used;
+
+    public ReusableKeyEvaluationContext(EvaluationContext parentContext, Object environment) {
+        if (parentContext != null) {
+            setPropertyAccessors(parentContext.getPropertyAccessors());
+            setTypeLocator(parentContext.getTypeLocator());
+            setBeanResolver(parentContext.getBeanResolver());
+        }
+        this.parentContext = parentContext;
+        this.environment = environment;
+    }
+
+    public boolean isUsed() {
+        return used;
+    }
+
+    public ReusableKeyEvaluationContext reset(Object rootObject, String[] parameterNames, Object[] arguments) {
+        setRootObject(rootObject);
+        this.parameterNames = parameterNames;
+        this.arguments = arguments;
+        this.used = true;
+        return this;
+    }
+
+    public void release() {
+        setRootObject(null);
+        this.parameterNames = null;
+        this.arguments = null;
+        if (!variables.isEmpty()) {
+            variables.clear();
+        }
+        this.used = false;
+    }
+
+    @Override
+    public void setVariable(String name, @Nullable Object value) {
+        if (value == null) {
+            variables.remove(name);
+        } else {
+            variables.put(name, value);
+        }
+    }
+
+    @Nullable
+    @Override
+    public Object lookupVariable(String name) {
+        Object value = variables.get(name);
+        if (value != null) return value;
+        if (arguments != null) {
+            value = lookupArgument(name);
+            if (value != null) return value;
+        }
+        if ("environment".equals(name)) {
+            return environment;
+        }
+        return parentContext != null ? parentContext.lookupVariable(name) : null;
+    }
+
+    protected Object lookupArgument(String name) {
+        if (parameterNames != null) {
+            for (int i = 0; i < parameterNames.length && i < arguments.length; i++) {
+                if (name.equals(parameterNames[i])) {
+                    return arguments[i];
+                }
+            }
+        }
+        int length = name.length();
+        if (length < 2 || length > 6 || (name.charAt(0) != 'a' && name.charAt(0) != 'p')) return null;
+        int index = 0;
+        for (int i = 1; i < length; i++) {
+            char c = name.charAt(i);
+            if (c < '0' || c > '9') return null;
+            index = index * 10 + (c - '0');
+        }
+        return index < arguments.length ? arguments[index] : null;
+    }
+}
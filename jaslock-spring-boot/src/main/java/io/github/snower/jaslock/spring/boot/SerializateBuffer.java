@@ -0,0 +1,64 @@
+package io.github.snower.jaslock.spring.boot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Per thread reusable serialization buffer, buffers grown beyond 64 KB by large payloads are dropped on release
+ * so each thread retains at most a small buffer.
+ */
+public class SerializateBuffer extends ByteArrayOutputStream {
+    private static final int MIN_CAPACITY = 256;
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+    private static final ThreadLocal<SerializateBuffer> threadBuffers = ThreadLocal.withInitial(SerializateBuffer::new);
+
+    private int averageSize;
+    private boolean using;
+
+    public SerializateBuffer() {
+        super(MIN_CAPACITY);
+    }
+
+    public static SerializateBuffer acquire() {
+        SerializateBuffer buffer = threadBuffers.get();
+        if (buffer.using) {
+            return new SerializateBuffer();
+        }
+        buffer.using = true;
+        if (buffer.buf.length < buffer.averageSize) {
+            buffer.buf = new byte[Math.min(buffer.averageSize + (buffer.averageSize >> 1), MAX_RETAINED_CAPACITY)];
+        }
+        return buffer;
+    }
+
+    public static byte[] serializate(SlockSerializater serializater, Object object) throws IOException {
+        SerializateBuffer buffer = acquire();
+        try {
+            serializater.serializate(object, buffer);
+            return buffer.toByteArray();
+        } finally {
+            buffer.release();
+        }
+    }
+
+    public void release() {
+        averageSize = averageSize == 0 ? count : averageSize + ((count - averageSize) >> 3);
+        count = 0;
+        if (buf.length > MAX_RETAINED_CAPACITY) {
+            buf = new byte[Math.min(Math.max(averageSize * 2, MIN_CAPACITY), MAX_RETAINED_CAPACITY)];
+        }
+        using = false;
+    }
+
+    public byte[] getBuffer() {
+        return buf;
+    }
+
+    public static int getMaxRetainedCapacity() {
+        return MAX_RETAINED_CAPACITY;
+    }
+
+    public int getAverageSize() {
+        return averageSize;
+    }
+}
@@ -1,6 +1,8 @@
 package io.github.snower.jaslock.spring.boot;
 
 import io.github.snower.jaslock.callback.ExecutorOption;
+import io.github.snower.jaslock.spring.boot.annotations.KeyEncoding;
+import org.springframework.expression.spel.SpelCompilerMode;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -13,6 +15,12 @@ public class SlockConfiguration {
     private final ExecutorOption executorOption;
     private final short defaultTimeoutFlag;
     private final short defaultExpriedFlag;
+    private final boolean compileKeyEvaluate;
+    private final SpelCompilerMode spelCompilerMode;
+    private final KeyEncoding keyEncoding;
+    private final int idempotentCacheSize;
+    private final int idempotentCacheTtl;
+    private final boolean millisecondTime;
 
     public SlockConfiguration(String host, Integer port, List<String> hosts, int databaseId, ExecutorOption executorOption,
                               short defaultTimeoutFlag, short defaultExpriedFlag) {
@@ -23,6 +31,28 @@ public class SlockConfiguration {
         this.executorOption = executorOption;
         this.defaultTimeoutFlag = defaultTimeoutFlag;
         this.defaultExpriedFlag = defaultExpriedFlag;
+        this.compileKeyEvaluate = true;
+        this.spelCompilerMode = SpelCompilerMode.MIXED;
+        this.keyEncoding = KeyEncoding.RAW;
+        this.idempotentCacheSize = 0;
+        this.idempotentCacheTtl = 0;
+        this.millisecondTime = true;
+    }
+
+    protected SlockConfiguration(Builder builder) {
+        this.host = builder.host;
+        this.port = builder.port;
+        this.hosts = builder.hosts;
+        this.databaseId = builder.databaseId;
+        this.executorOption = builder.executorOption;
+        this.defaultTimeoutFlag = builder.defaultTimeoutFlag;
+        this.defaultExpriedFlag = builder.defaultExpriedFlag;
+        this.compileKeyEvaluate = builder.compileKeyEvaluate;
+        this.spelCompilerMode = builder.spelCompilerMode;
+        this.keyEncoding = builder.keyEncoding;
+        this.idempotentCacheSize = builder.idempotentCacheSize;
+        this.idempotentCacheTtl = builder.idempotentCacheTtl;
+        this.millisecondTime = builder.millisecondTime;
     }
 
     public String getHost() {
@@ -53,6 +83,30 @@ public class SlockConfiguration {
         return defaultExpriedFlag;
     }
 
+    public boolean isCompileKeyEvaluate() {
+        return compileKeyEvaluate;
+    }
+
+    public SpelCompilerMode getSpelCompilerMode() {
+        return spelCompilerMode == null ? SpelCompilerMode.MIXED : spelCompilerMode;
+    }
+
+    public KeyEncoding getKeyEncoding() {
+        return keyEncoding == null || keyEncoding == KeyEncoding.DEFAULT ? KeyEncoding.RAW : keyEncoding;
+    }
+
+    public int getIdempotentCacheSize() {
+        return Math.max(idempotentCacheSize, 0);
+    }
+
+    public int getIdempotentCacheTtl() {
+        return Math.max(idempotentCacheTtl, 0);
+    }
+
+    public boolean isMillisecondTime() {
+        return millisecondTime;
+    }
+
     public static Builder newBuilder() {
         return new Builder();
     }
@@ -65,6 +119,12 @@ public class SlockConfiguration {
         private ExecutorOption executorOption;
         private short defaultTimeoutFlag;
         private short defaultExpriedFlag;
+        private boolean compileKeyEvaluate = true;
+        private SpelCompilerMode spelCompilerMode = SpelCompilerMode.MIXED;
+        private KeyEncoding keyEncoding = KeyEncoding.RAW;
+        private int idempotentCacheSize = 0;
+        private int idempotentCacheTtl = 0;
+        private boolean millisecondTime = true;
 
         public Builder setHost(String host) {
             this.host = host;
@@ -113,8 +173,38 @@ public class SlockConfiguration {
             return this;
         }
 
+        public Builder setCompileKeyEvaluate(boolean compileKeyEvaluate) {
+            this.compileKeyEvaluate = compileKeyEvaluate;
+            return this;
+        }
+
+        public Builder setSpelCompilerMode(SpelCompilerMode spelCompilerMode) {
+            this.spelCompilerMode = spelCompilerMode;
+            return this;
+        }
+
+        public Builder setKeyEncoding(KeyEncoding keyEncoding) {
+            this.keyEncoding = keyEncoding;
+            return this;
+        }
+
+        public Builder setIdempotentCacheSize(int idempotentCacheSize) {
+            this.idempotentCacheSize = idempotentCacheSize;
+            return this;
+        }
+
+        public Builder setIdempotentCacheTtl(int idempotentCacheTtl) {
+            this.idempotentCacheTtl = idempotentCacheTtl;
+            return this;
+        }
+
+        public Builder setMillisecondTime(boolean millisecondTime) {
+            this.millisecondTime = millisecondTime;
+            return this;
+        }
+
         public SlockConfiguration build() {
-            return new SlockConfiguration(host, port, hosts, databaseId, executorOption, defaultTimeoutFlag, defaultExpriedFlag);
+            return new SlockConfiguration(this);
         }
     }
 }
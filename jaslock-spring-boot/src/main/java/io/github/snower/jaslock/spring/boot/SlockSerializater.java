@@ -3,12 +3,34 @@ package io.github.snower.jaslock.spring.boot;
 import java.io.*;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.Arrays;
 
 public interface SlockSerializater {
     byte[] serializate(Object object) throws IOException;
     Object deserialize(byte[] data, Class<?> clsType) throws IOException;
     Object deserialize(byte[] data, TypeReference<?> typeReference) throws IOException;
 
+    default void serializate(Object object, OutputStream outputStream) throws IOException {
+        outputStream.write(serializate(object));
+    }
+
+    default Object deserialize(byte[] data, int offset, int length, Class<?> clsType) throws IOException {
+        if (offset == 0 && length == data.length) return deserialize(data, clsType);
+        return deserialize(Arrays.copyOfRange(data, offset, offset + length), clsType);
+    }
+
+    default Object deserialize(byte[] data, int offset, int length, TypeReference<?> typeReference) throws IOException {
+        if (offset == 0 && length == data.length) return deserialize(data, typeReference);
+        return deserialize(Arrays.copyOfRange(data, offset, offset + length), typeReference);
+    }
+
+    /**
+     * Whether serialized data never starts with a 0x00 byte, required to be wrapped by CompressionSerializater.
+     */
+    default boolean isLeadingZeroFree() {
+        return false;
+    }
+
     abstract class TypeReference<T> implements Comparable<TypeReference<T>> {
         protected final Type _type;
 
@@ -21,6 +43,10 @@ public interface SlockSerializater {
             }
         }
 
+        protected TypeReference(Type type) {
+            this._type = type;
+        }
+
         public Type getType() {
             return this._type;
         }
@@ -32,32 +58,45 @@ public interface SlockSerializater {
 
     class ObjectSerializater implements SlockSerializater {
 
+        @Override
+        public boolean isLeadingZeroFree() {
+            return true;
+        }
+
         @Override
         public byte[] serializate(Object object) throws IOException {
-            try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream()) {
-                try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream)) {
-                    objectOutputStream.writeObject(object);
-                }
-                return byteArrayOutputStream.toByteArray();
-            }
+            return SerializateBuffer.serializate(this, object);
+        }
+
+        @Override
+        public void serializate(Object object, OutputStream outputStream) throws IOException {
+            ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream);
+            objectOutputStream.writeObject(object);
+            objectOutputStream.flush();
         }
 
         @Override
         public Object deserialize(byte[] data, Class<?> clsType) throws IOException {
-            try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(data))) {
-                return objectInputStream.readObject();
-            } catch (ClassNotFoundException e) {
-                throw new IOException(e);
-            }
+            return deserialize(data, 0, data.length, clsType);
         }
 
         @Override
         public Object deserialize(byte[] data, TypeReference<?> typeReference) throws IOException {
-            try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            return deserialize(data, 0, data.length, (Class<?>) null);
+        }
+
+        @Override
+        public Object deserialize(byte[] data, int offset, int length, Class<?> clsType) throws IOException {
+            try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(data, offset, length))) {
                 return objectInputStream.readObject();
             } catch (ClassNotFoundException e) {
                 throw new IOException(e);
             }
         }
+
+        @Override
+        public Object deserialize(byte[] data, int offset, int length, TypeReference<?> typeReference) throws IOException {
+            return deserialize(data, offset, length, (Class<?>) null);
+        }
     }
 }
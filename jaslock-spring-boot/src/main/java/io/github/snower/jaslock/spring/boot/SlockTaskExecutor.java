@@ -0,0 +1,580 @@
+package io.github.snower.jaslock.spring.boot;
+
+import io.github.snower.jaslock.Event;
+import io.github.snower.jaslock.Lock;
+import io.github.snower.jaslock.SlockDatabase;
+import io.github.snower.jaslock.commands.ICommand;
+import io.github.snower.jaslock.datas.LockResultData;
+import io.github.snower.jaslock.datas.LockSetData;
+import io.github.snower.jaslock.exceptions.EventWaitTimeoutException;
+import io.github.snower.jaslock.exceptions.LockTimeoutException;
+import io.github.snower.jaslock.exceptions.SlockException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tasks are placed into a fixed ring of slot locks carrying the serialized task as lock data, a worker claims
+ * a task by releasing the slot with the producer's lock id, so exactly one worker wins, and results are returned
+ * through {@link EventFuture}. The slot count bounds the pending tasks of the pool. Pass the result type when
+ * submitting with a json or smile serializer, otherwise non scalar results are read back as maps.
+ * <p>
+ * Each submit sets the signal event with the offered slot, woken workers probe from that slot and keep following
+ * it while tasks are found, stopping after a few empty slots, so an idle worker costs a handful of round trips per
+ * task instead of a scan of every slot. A full scan only runs when no signal arrives within the poll timeout,
+ * which also picks up tasks whose signal was overwritten by a concurrent submit.
+ * <p>
+ * Tasks are executed at most once: a claimed task is removed from its slot before it runs, if the claiming
+ * worker dies the task is lost and the submitter's future fails with a timeout after the task timeout.
+ */
+public class SlockTaskExecutor implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(SlockTaskExecutor.class);
+    private static final AtomicInteger threadIndex = new AtomicInteger();
+    private static final int PROBE_EXPRIED = 5;
+    private static final int MAX_EMPTY_PROBES = 2;
+    private static final long MIN_BACKOFF_MILLIS = 5;
+    private static final long MAX_BACKOFF_MILLIS = 200;
+
+    private final SlockTemplate slockTemplate;
+    private final String poolName;
+    private final byte databaseId;
+    private final int slotCount;
+    private final int batchSize;
+    private final int parallelism;
+    private final long taskTimeout;
+    private final long submitTimeout;
+    private final long pollTimeout;
+    private final byte[][] slotKeys;
+    private final String signalKey;
+    private final AtomicInteger slotIndex = new AtomicInteger();
+    private volatile TaskHandler taskHandler;
+    private volatile java.util.concurrent.Semaphore workerPermits;
+    private volatile ThreadPoolExecutor workerExecutor;
+    private volatile Thread pollThread;
+    private volatile boolean closed;
+    private int pollCursor;
+
+    protected SlockTaskExecutor(Builder builder) {
+        this.slockTemplate = builder.slockTemplate;
+        this.poolName = builder.poolName;
+        this.databaseId = builder.databaseId;
+        this.slotCount = builder.slotCount;
+        this.batchSize = builder.batchSize;
+        this.parallelism = builder.parallelism;
+        this.taskTimeout = builder.taskTimeout;
+        this.submitTimeout = builder.submitTimeout;
+        this.pollTimeout = builder.pollTimeout;
+        this.slotKeys = new byte[slotCount][];
+        for (int i = 0; i < slotCount; i++) {
+            slotKeys[i] = (poolName + ":slot:" + i).getBytes(StandardCharsets.UTF_8);
+        }
+        this.signalKey = poolName + ":signal";
+    }
+
+    public static Builder newBuilder(SlockTemplate slockTemplate, String poolName) {
+        return new Builder(slockTemplate, poolName);
+    }
+
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        return submitTask(TaskEnvelope.TYPE_CALLABLE, task, Object.class, null);
+    }
+
+    public <T> CompletableFuture<T> submit(Callable<T> task, Type resultType) {
+        return submitTask(TaskEnvelope.TYPE_CALLABLE, task, resultType, null);
+    }
+
+    public CompletableFuture<Void> submit(Runnable task) {
+        return submitTask(TaskEnvelope.TYPE_RUNNABLE, task, Object.class, null);
+    }
+
+    public void execute(Runnable task) {
+        submit(task);
+    }
+
+    public <T> CompletableFuture<T> submitTask(Object payload) {
+        return submitTask(TaskEnvelope.TYPE_PAYLOAD, payload, Object.class, null);
+    }
+
+    public <T> CompletableFuture<T> submitTask(Object payload, Type resultType) {
+        return submitTask(TaskEnvelope.TYPE_PAYLOAD, payload, resultType, null);
+    }
+
+    public <T> List<CompletableFuture<T>> submitAll(Collection<? extends Callable<T>> tasks) {
+        return submitAll(tasks, Object.class);
+    }
+
+    public <T> List<CompletableFuture<T>> submitAll(Collection<? extends Callable<T>> tasks, Type resultType) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(tasks.size());
+        int[] offeredSlots = new int[]{-1, 0};
+        try {
+            for (Callable<T> task : tasks) {
+                futures.add(submitTask(TaskEnvelope.TYPE_CALLABLE, task, resultType, offeredSlots));
+            }
+        } finally {
+            if (!futures.isEmpty()) {
+                signal(offeredSlots[0], offeredSlots[1]);
+            }
+        }
+        return futures;
+    }
+
+    private <T> CompletableFuture<T> submitTask(byte type, Object task, Type resultType, int[] offeredSlots) {
+        if (closed) {
+            throw new RejectedExecutionException("SlockTaskExecutor " + poolName + " closed");
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        TaskEnvelope envelope = new TaskEnvelope(Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong()),
+                newLockId(), type, task);
+        byte[] data;
+        try {
+            data = SerializateBuffer.serializate(slockTemplate.getSerializater(), envelope);
+        } catch (IOException e) {
+            throw new RejectedExecutionException(e);
+        }
+
+        CompletableFuture<T> future = slockTemplate.newEventFutureAsync(databaseId, getResultKey(envelope.getTaskId()),
+                resultType, taskTimeout, TimeUnit.MILLISECONDS);
+        int slot;
+        try {
+            slot = offer(envelope, data);
+        } catch (RejectedExecutionException e) {
+            future.cancel(false);
+            throw e;
+        }
+        if (offeredSlots == null) {
+            signal(slot, 1);
+        } else {
+            if (offeredSlots[0] < 0) {
+                offeredSlots[0] = slot;
+            }
+            offeredSlots[1]++;
+        }
+        return future;
+    }
+
+    private int offer(TaskEnvelope envelope, byte[] data) {
+        SlockDatabase database = slockTemplate.selectDatabase(databaseId);
+        int expried = slockTemplate.encodeExpried(taskTimeout, TimeUnit.MILLISECONDS);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(submitTimeout);
+        long backoffMillis = MIN_BACKOFF_MILLIS;
+        while (true) {
+            int startIndex = slotIndex.getAndIncrement();
+            for (int i = 0; i < slotCount; i++) {
+                int slot = Math.floorMod(startIndex + i, slotCount);
+                Lock lock = new Lock(database, slotKeys[slot], envelope.getLockId(), 0, expried, (short) 0, (byte) 0);
+                try {
+                    lock.acquire(new LockSetData(data));
+                    return slot;
+                } catch (LockTimeoutException ignored) {
+                } catch (SlockException e) {
+                    throw new RejectedExecutionException(e);
+                }
+            }
+
+            long remainingNanos = deadline - System.nanoTime();
+            if (remainingNanos <= 0 || closed) {
+                throw new RejectedExecutionException("SlockTaskExecutor " + poolName + " slots full");
+            }
+            try {
+                Thread.sleep(Math.min(backoffMillis, TimeUnit.NANOSECONDS.toMillis(remainingNanos) + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException(e);
+            }
+            backoffMillis = Math.min(backoffMillis << 1, MAX_BACKOFF_MILLIS);
+        }
+    }
+
+    private void signal(int slot, int count) {
+        try {
+            newSignalEvent(slockTemplate.selectDatabase(databaseId)).set(ByteBuffer.allocate(8).putInt(slot).putInt(count).array());
+        } catch (SlockException e) {
+            logger.warn("SlockTaskExecutor {} signal error {}", poolName, e, e);
+        }
+    }
+
+    public void start() {
+        start(null);
+    }
+
+    public synchronized void start(TaskHandler taskHandler) {
+        if (closed) {
+            throw new IllegalStateException("SlockTaskExecutor " + poolName + " closed");
+        }
+        if (pollThread != null) {
+            throw new IllegalStateException("SlockTaskExecutor " + poolName + " workers started");
+        }
+        int index = threadIndex.incrementAndGet();
+        AtomicInteger workerIndex = new AtomicInteger();
+        this.taskHandler = taskHandler;
+        this.workerPermits = new java.util.concurrent.Semaphore(parallelism);
+        this.workerExecutor = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "slock-task-worker-" + index + "-" + workerIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Thread thread = new Thread(this::poll, "slock-task-poll-" + index);
+        thread.setDaemon(true);
+        pollThread = thread;
+        thread.start();
+    }
+
+    private void poll() {
+        SlockDatabase database = slockTemplate.selectDatabase(databaseId);
+        byte[] probeLockId = newLockId();
+        int waitTimeout = slockTemplate.encodeTimeout(pollTimeout, TimeUnit.MILLISECONDS);
+        int maxProbes = slotCount;
+        int maxEmptyProbes = slotCount;
+        pollCursor = ThreadLocalRandom.current().nextInt(slotCount);
+        while (!closed) {
+            try {
+                workerPermits.acquire();
+                workerPermits.release();
+                Event event = newSignalEvent(database);
+                try {
+                    event.clear();
+                } catch (SlockException ignored) {
+                }
+                if (pollSlots(database, probeLockId, maxProbes, maxEmptyProbes) > 0) {
+                    maxProbes = slotCount;
+                    maxEmptyProbes = MAX_EMPTY_PROBES;
+                    continue;
+                }
+                maxProbes = slotCount;
+                maxEmptyProbes = slotCount;
+                event.wait(waitTimeout);
+                LockResultData signalData = event.getCurrentLockData();
+                byte[] data = signalData != null ? signalData.getDataAsBytes() : null;
+                if (data != null && data.length == 8) {
+                    ByteBuffer buffer = ByteBuffer.wrap(data);
+                    pollCursor = Math.floorMod(buffer.getInt(), slotCount);
+                    maxProbes = Math.min(Math.max(buffer.getInt(), 1) + MAX_EMPTY_PROBES, slotCount);
+                    maxEmptyProbes = MAX_EMPTY_PROBES;
+                }
+            } catch (InterruptedException e) {
+                break;
+            } catch (EventWaitTimeoutException ignored) {
+            } catch (Exception e) {
+                if (closed) break;
+                logger.warn("SlockTaskExecutor {} poll error {}", poolName, e, e);
+                try {
+                    Thread.sleep(MAX_BACKOFF_MILLIS);
+                } catch (InterruptedException ex) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private int pollSlots(SlockDatabase database, byte[] probeLockId, int maxProbes, int maxEmptyProbes) {
+        int claimedCount = 0;
+        int emptyProbes = 0;
+        for (int i = 0; i < maxProbes && emptyProbes < maxEmptyProbes && claimedCount < batchSize && !closed; i++) {
+            if (!workerPermits.tryAcquire()) break;
+            int slot = pollCursor;
+            pollCursor = (slot + 1) % slotCount;
+            TaskEnvelope envelope = claim(database, slotKeys[slot], probeLockId);
+            if (envelope == null) {
+                workerPermits.release();
+                emptyProbes++;
+                continue;
+            }
+            emptyProbes = 0;
+            claimedCount++;
+            try {
+                workerExecutor.execute(() -> run(envelope));
+            } catch (RejectedExecutionException e) {
+                workerPermits.release();
+                logger.warn("SlockTaskExecutor {} rejected claimed task {}", poolName, envelope.getTaskId());
+                publishException(newResultFuture(envelope.getTaskId()), envelope.getTaskId(), e);
+            }
+        }
+        return claimedCount;
+    }
+
+    private TaskEnvelope claim(SlockDatabase database, byte[] slotKey, byte[] probeLockId) {
+        Lock probeLock = new Lock(database, slotKey, probeLockId, ICommand.TIMEOUT_FLAG_TIMEOUT_WHEN_CONTAINS_DATA << 16,
+                PROBE_EXPRIED, (short) 0, (byte) 0);
+        try {
+            probeLock.acquire();
+        } catch (LockTimeoutException e) {
+            return readEnvelope(database, slotKey, probeLock.getCurrentLockData());
+        } catch (SlockException e) {
+            return null;
+        }
+        try {
+            probeLock.release();
+        } catch (SlockException ignored) {
+        }
+        return null;
+    }
+
+    private TaskEnvelope readEnvelope(SlockDatabase database, byte[] slotKey, LockResultData lockResultData) {
+        if (lockResultData == null) return null;
+        byte[] data = lockResultData.getDataAsBytes();
+        if (data == null) return null;
+        TaskEnvelope envelope;
+        try {
+            Object value = slockTemplate.getSerializater().deserialize(data, TaskEnvelope.class);
+            if (!(value instanceof TaskEnvelope)) return null;
+            envelope = (TaskEnvelope) value;
+        } catch (IOException e) {
+            return null;
+        }
+        try {
+            new Lock(database, slotKey, envelope.getLockId(), 0, 0, (short) 0, (byte) 0).release();
+        } catch (SlockException e) {
+            return null;
+        }
+        return envelope;
+    }
+
+    private void run(TaskEnvelope envelope) {
+        try {
+            EventFuture<Object> eventFuture = newResultFuture(envelope.getTaskId());
+            Object result;
+            try {
+                result = execute(envelope);
+            } catch (Throwable e) {
+                publishException(eventFuture, envelope.getTaskId(), e);
+                return;
+            }
+            try {
+                eventFuture.setResult(result, taskTimeout, TimeUnit.MILLISECONDS);
+            } catch (IOException e) {
+                logger.warn("SlockTaskExecutor {} serialize task {} result error {}", poolName, envelope.getTaskId(), e, e);
+                publishException(eventFuture, envelope.getTaskId(), e);
+            } catch (SlockException e) {
+                logger.warn("SlockTaskExecutor {} publish task {} result error {}", poolName, envelope.getTaskId(), e, e);
+            }
+        } finally {
+            workerPermits.release();
+        }
+    }
+
+    private void publishException(EventFuture<Object> eventFuture, String taskId, Throwable exception) {
+        try {
+            try {
+                eventFuture.setException(exception, taskTimeout, TimeUnit.MILLISECONDS);
+            } catch (IOException e) {
+                logger.warn("SlockTaskExecutor {} serialize task {} exception error {}", poolName, taskId, e, e);
+                eventFuture.setException(new RuntimeException(exception.toString()), taskTimeout, TimeUnit.MILLISECONDS);
+            }
+        } catch (SlockException | IOException e) {
+            logger.warn("SlockTaskExecutor {} publish task {} exception error {}", poolName, taskId, e, e);
+        }
+    }
+
+    private Object execute(TaskEnvelope envelope) throws Exception {
+        switch (envelope.getType()) {
+            case TaskEnvelope.TYPE_CALLABLE:
+                return ((Callable<?>) envelope.getTask()).call();
+            case TaskEnvelope.TYPE_RUNNABLE:
+                ((Runnable) envelope.getTask()).run();
+                return null;
+            default:
+                TaskHandler handler = taskHandler;
+                if (handler == null) {
+                    throw new RejectedExecutionException("SlockTaskExecutor " + poolName + " task handler unknown");
+                }
+                return handler.handle(envelope.getTask());
+        }
+    }
+
+    private Event newSignalEvent(SlockDatabase database) {
+        return new Event(database, signalKey, 0, slockTemplate.encodeExpried(pollTimeout, TimeUnit.MILLISECONDS), false);
+    }
+
+    private EventFuture<Object> newResultFuture(String taskId) {
+        return slockTemplate.newEventFuture(databaseId, getResultKey(taskId));
+    }
+
+    private String getResultKey(String taskId) {
+        return poolName + ":result:" + taskId;
+    }
+
+    private static byte[] newLockId() {
+        byte[] lockId = new byte[16];
+        ThreadLocalRandom.current().nextBytes(lockId);
+        return lockId;
+    }
+
+    public void shutdown() {
+        closed = true;
+        Thread thread = pollThread;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        ThreadPoolExecutor executor = workerExecutor;
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    public boolean isShutdown() {
+        return closed;
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        ThreadPoolExecutor executor = workerExecutor;
+        return executor == null || executor.awaitTermination(timeout, unit);
+    }
+
+    @Override
+    public void close() {
+        shutdown();
+    }
+
+    public String getPoolName() {
+        return poolName;
+    }
+
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getActiveCount() {
+        java.util.concurrent.Semaphore permits = workerPermits;
+        return permits == null ? 0 : parallelism - permits.availablePermits();
+    }
+
+    public interface TaskHandler {
+        Object handle(Object payload) throws Exception;
+    }
+
+    public static class TaskEnvelope implements Serializable {
+        public static final byte TYPE_PAYLOAD = 0;
+        public static final byte TYPE_CALLABLE = 1;
+        public static final byte TYPE_RUNNABLE = 2;
+
+        private String taskId;
+        private byte[] lockId;
+        private byte type;
+        private Object task;
+
+        public TaskEnvelope() {
+        }
+
+        public TaskEnvelope(String taskId, byte[] lockId, byte type, Object task) {
+            this.taskId = taskId;
+            this.lockId = lockId;
+            this.type = type;
+            this.task = task;
+        }
+
+        public String getTaskId() {
+            return taskId;
+        }
+
+        public void setTaskId(String taskId) {
+            this.taskId = taskId;
+        }
+
+        public byte[] getLockId() {
+            return lockId;
+        }
+
+        public void setLockId(byte[] lockId) {
+            this.lockId = lockId;
+        }
+
+        public byte getType() {
+            return type;
+        }
+
+        public void setType(byte type) {
+            this.type = type;
+        }
+
+        public Object getTask() {
+            return task;
+        }
+
+        public void setTask(Object task) {
+            this.task = task;
+        }
+    }
+
+    public static class Builder {
+        private final SlockTemplate slockTemplate;
+        private final String poolName;
+        private byte databaseId;
+        private int slotCount = 64;
+        private int batchSize = 8;
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private long taskTimeout = 300000;
+        private long submitTimeout = 5000;
+        private long pollTimeout = 60000;
+
+        public Builder(SlockTemplate slockTemplate, String poolName) {
+            this.slockTemplate = slockTemplate;
+            this.poolName = poolName;
+            this.databaseId = (byte) slockTemplate.getConfiguration().getDatabaseId();
+        }
+
+        public Builder setDatabaseId(byte databaseId) {
+            this.databaseId = databaseId;
+            return this;
+        }
+
+        public Builder setSlotCount(int slotCount) {
+            this.slotCount = slotCount;
+            return this;
+        }
+
+        public Builder setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        public Builder setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public Builder setTaskTimeout(long taskTimeout, TimeUnit unit) {
+            this.taskTimeout = unit.toMillis(taskTimeout);
+            return this;
+        }
+
+        public Builder setSubmitTimeout(long submitTimeout, TimeUnit unit) {
+            this.submitTimeout = unit.toMillis(submitTimeout);
+            return this;
+        }
+
+        public Builder setPollTimeout(long pollTimeout, TimeUnit unit) {
+            this.pollTimeout = unit.toMillis(pollTimeout);
+            return this;
+        }
+
+        public SlockTaskExecutor build() {
+            if (poolName == null || poolName.isEmpty()) {
+                throw new IllegalArgumentException("poolName is empty");
+            }
+            if (slotCount <= 0 || batchSize <= 0 || parallelism <= 0) {
+                throw new IllegalArgumentException("slotCount, batchSize and parallelism must be positive");
+            }
+            return new SlockTaskExecutor(this);
+        }
+    }
+}
@@ -4,11 +4,16 @@ import io.github.snower.jaslock.*;
 import io.github.snower.jaslock.exceptions.ClientUnconnectException;
 
 import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 public class SlockTemplate {
     protected final SlockConfiguration configuration;
     protected SlockSerializater serializater;
     protected volatile ISlockClient client;
+    protected volatile LockRenewalWatchdog lockRenewalWatchdog;
+    protected volatile EventWaitRegistry eventWaitRegistry;
 
     public SlockTemplate(SlockConfiguration configuration, SlockSerializater serializater) {
         this.configuration = configuration;
@@ -66,6 +71,14 @@ public class SlockTemplate {
     }
 
     public synchronized void close() {
+        if (this.lockRenewalWatchdog != null) {
+            this.lockRenewalWatchdog.close();
+            this.lockRenewalWatchdog = null;
+        }
+        if (this.eventWaitRegistry != null) {
+            this.eventWaitRegistry.close();
+            this.eventWaitRegistry = null;
+        }
         if (this.client == null) return;
         this.client.close();
         this.client = null;
@@ -82,6 +95,36 @@ public class SlockTemplate {
         return this.client;
     }
 
+    public LockRenewalWatchdog getLockRenewalWatchdog() {
+        if (this.lockRenewalWatchdog == null) {
+            synchronized (this) {
+                if (this.lockRenewalWatchdog == null) {
+                    this.lockRenewalWatchdog = new LockRenewalWatchdog();
+                }
+            }
+        }
+        return this.lockRenewalWatchdog;
+    }
+
+    public EventWaitRegistry getEventWaitRegistry() {
+        if (this.eventWaitRegistry == null) {
+            synchronized (this) {
+                if (this.eventWaitRegistry == null) {
+                    this.eventWaitRegistry = new EventWaitRegistry(this);
+                }
+            }
+        }
+        return this.eventWaitRegistry;
+    }
+
+    public int encodeTimeout(long timeout, TimeUnit unit) {
+        return TimeEncoding.encodeTimeout(timeout, unit, configuration.isMillisecondTime());
+    }
+
+    public int encodeExpried(long expried, TimeUnit unit) {
+        return TimeEncoding.encodeExpried(expried, unit, configuration.isMillisecondTime());
+    }
+
     public SlockDatabase selectDatabase(byte dbId) {
         return getClient().selectDatabase(dbId);
     }
@@ -94,6 +137,14 @@ public class SlockTemplate {
         return selectDatabase((byte) configuration.getDatabaseId()).newLock(lockKey, timeout, expried);
     }
 
+    public Lock newLock(byte[] lockKey, long timeout, long expried, TimeUnit unit) {
+        return newLock(lockKey, encodeTimeout(timeout, unit), encodeExpried(expried, unit));
+    }
+
+    public Lock newLock(String lockKey, long timeout, long expried, TimeUnit unit) {
+        return newLock(lockKey, encodeTimeout(timeout, unit), encodeExpried(expried, unit));
+    }
+
     public TransactionLock newTransactionLock(String lockKey, int timeout, int expried) {
         return new TransactionLock(getClient().selectDatabase((byte) 0), lockKey, timeout, expried);
     }
@@ -110,6 +161,14 @@ public class SlockTemplate {
         return selectDatabase((byte) configuration.getDatabaseId()).newEvent(eventKey, timeout, expried, defaultSeted);
     }
 
+    public Event newEvent(byte[] eventKey, long timeout, long expried, TimeUnit unit, boolean defaultSeted) {
+        return newEvent(eventKey, encodeTimeout(timeout, unit), encodeExpried(expried, unit), defaultSeted);
+    }
+
+    public Event newEvent(String eventKey, long timeout, long expried, TimeUnit unit, boolean defaultSeted) {
+        return newEvent(eventKey, encodeTimeout(timeout, unit), encodeExpried(expried, unit), defaultSeted);
+    }
+
     public ReentrantLock newReentrantLock(byte[] lockKey, int timeout, int expried) {
         return selectDatabase((byte) configuration.getDatabaseId()).newReentrantLock(lockKey, timeout, expried);
     }
@@ -199,18 +258,91 @@ public class SlockTemplate {
     }
 
     public <T> EventFuture<T> newEventFuture(byte[] eventKey) {
-        return new EventFuture<>(serializater, selectDatabase((byte) configuration.getDatabaseId()), eventKey);
+        return newEventFuture((byte) configuration.getDatabaseId(), eventKey, Object.class);
     }
 
     public <T> EventFuture<T> newEventFuture(String eventKey) {
-        return new EventFuture<>(serializater, selectDatabase((byte) configuration.getDatabaseId()), eventKey);
+        return newEventFuture((byte) configuration.getDatabaseId(), eventKey, Object.class);
+    }
+
+    public <T> EventFuture<T> newEventFuture(byte[] eventKey, Type resultType) {
+        return newEventFuture((byte) configuration.getDatabaseId(), eventKey, resultType);
+    }
+
+    public <T> EventFuture<T> newEventFuture(String eventKey, Type resultType) {
+        return newEventFuture((byte) configuration.getDatabaseId(), eventKey, resultType);
     }
 
     public <T> EventFuture<T> newEventFuture(byte databaseId, byte[] eventKey) {
-        return new EventFuture<>(serializater, selectDatabase(databaseId), eventKey);
+        return newEventFuture(databaseId, eventKey, Object.class);
     }
 
     public <T> EventFuture<T> newEventFuture(byte databaseId, String eventKey) {
-        return new EventFuture<>(serializater, selectDatabase(databaseId), eventKey);
+        return newEventFuture(databaseId, eventKey, Object.class);
+    }
+
+    public <T> EventFuture<T> newEventFuture(byte databaseId, byte[] eventKey, Type resultType) {
+        return configureEventFuture(new EventFuture<>(serializater, selectDatabase(databaseId), eventKey, resultType));
+    }
+
+    public <T> EventFuture<T> newEventFuture(byte databaseId, String eventKey, Type resultType) {
+        return configureEventFuture(new EventFuture<>(serializater, selectDatabase(databaseId), eventKey, resultType));
+    }
+
+    protected <T> EventFuture<T> configureEventFuture(EventFuture<T> eventFuture) {
+        eventFuture.setMillisecondTime(configuration.isMillisecondTime());
+        return eventFuture;
+    }
+
+    public <T> CompletableFuture<T> newEventFutureAsync(byte[] eventKey, long timeout, TimeUnit unit) {
+        return getEventWaitRegistry().waitEvent((byte) configuration.getDatabaseId(), eventKey, Object.class, timeout, unit);
+    }
+
+    public <T> CompletableFuture<T> newEventFutureAsync(String eventKey, long timeout, TimeUnit unit) {
+        return getEventWaitRegistry().waitEvent((byte) configuration.getDatabaseId(), eventKey, Object.class, timeout, unit);
+    }
+
+    public <T> CompletableFuture<T> newEventFutureAsync(byte[] eventKey, Type resultType, long timeout, TimeUnit unit) {
+        return getEventWaitRegistry().waitEvent((byte) configuration.getDatabaseId(), eventKey, resultType, timeout, unit);
+    }
+
+    public <T> CompletableFuture<T> newEventFutureAsync(String eventKey, Type resultType, long timeout, TimeUnit unit) {
+        return getEventWaitRegistry().waitEvent((byte) configuration.getDatabaseId(), eventKey, resultType, timeout, unit);
+    }
+
+    public <T> CompletableFuture<T> newEventFutureAsync(byte databaseId, byte[] eventKey, long timeout, TimeUnit unit) {
+        return getEventWaitRegistry().waitEvent(databaseId, eventKey, Object.class, timeout, unit);
+    }
+
+    public <T> CompletableFuture<T> newEventFutureAsync(byte databaseId, String eventKey, long timeout, TimeUnit unit) {
+        return getEventWaitRegistry().waitEvent(databaseId, eventKey, Object.class, timeout, unit);
+    }
+
+    public <T> CompletableFuture<T> newEventFutureAsync(byte databaseId, byte[] eventKey, Type resultType, long timeout, TimeUnit unit) {
+        return getEventWaitRegistry().waitEvent(databaseId, eventKey, resultType, timeout, unit);
+    }
+
+    public <T> CompletableFuture<T> newEventFutureAsync(byte databaseId, String eventKey, Type resultType, long timeout, TimeUnit unit) {
+        return getEventWaitRegistry().waitEvent(databaseId, eventKey, resultType, timeout, unit);
+    }
+
+    public <T> EventStream<T> newEventStream(String streamKey) {
+        return new EventStream<>(this, (byte) configuration.getDatabaseId(), streamKey);
+    }
+
+    public <T> EventStream<T> newEventStream(String streamKey, Type chunkType) {
+        return new EventStream<>(this, (byte) configuration.getDatabaseId(), streamKey, chunkType);
+    }
+
+    public <T> EventStream<T> newEventStream(byte databaseId, String streamKey) {
+        return new EventStream<>(this, databaseId, streamKey);
+    }
+
+    public <T> EventStream<T> newEventStream(byte databaseId, String streamKey, Type chunkType) {
+        return new EventStream<>(this, databaseId, streamKey, chunkType);
+    }
+
+    public SlockTaskExecutor newTaskExecutor(String poolName) {
+        return SlockTaskExecutor.newBuilder(this, poolName).build();
     }
 }
@@ -0,0 +1,37 @@
+package io.github.snower.jaslock.spring.boot;
+
+import io.github.snower.jaslock.commands.ICommand;
+
+import java.util.concurrent.TimeUnit;
+
+public class TimeEncoding {
+    private static final int MAX_VALUE = 0xffff;
+
+    public static int encodeTimeout(long time, TimeUnit unit) {
+        return encode(time, unit, true, ICommand.TIMEOUT_FLAG_MILLISECOND_TIME);
+    }
+
+    public static int encodeTimeout(long time, TimeUnit unit, boolean millisecondTime) {
+        return encode(time, unit, millisecondTime, ICommand.TIMEOUT_FLAG_MILLISECOND_TIME);
+    }
+
+    public static int encodeExpried(long time, TimeUnit unit) {
+        return encode(time, unit, true, ICommand.EXPRIED_FLAG_MILLISECOND_TIME);
+    }
+
+    public static int encodeExpried(long time, TimeUnit unit, boolean millisecondTime) {
+        return encode(time, unit, millisecondTime, ICommand.EXPRIED_FLAG_MILLISECOND_TIME);
+    }
+
+    private static int encode(long time, TimeUnit unit, boolean millisecondTime, int millisecondFlag) {
+        if (time <= 0) return 0;
+        if (unit == TimeUnit.SECONDS) {
+            return (int) Math.min(time, MAX_VALUE);
+        }
+        long millis = Math.max(unit.toMillis(time), 1);
+        if (millisecondTime && millis % 1000 != 0 && millis <= MAX_VALUE) {
+            return (int) millis | (millisecondFlag << 16);
+        }
+        return (int) Math.min((millis + 999) / 1000, MAX_VALUE);
+    }
+}
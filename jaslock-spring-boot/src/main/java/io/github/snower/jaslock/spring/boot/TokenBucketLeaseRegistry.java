@@ -0,0 +1,225 @@
+package io.github.snower.jaslock.spring.boot;
+
+import io.github.snower.jaslock.TokenBucketFlow;
+import io.github.snower.jaslock.exceptions.SlockException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Node local leases of token bucket tokens, tokens are leased in the background ahead of the recent demand and a
+ * caller that misses waits for an in-flight lease instead of acquiring from the server itself. A node leases at
+ * most leaseCount tokens per period and holds at most leaseOvershoot leased but unused tokens, which bounds the
+ * budget a node can overshoot or waste when its leased tokens expire unused.
+ */
+public class TokenBucketLeaseRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(TokenBucketLeaseRegistry.class);
+    private static final CompletableFuture<Boolean> ACQUIRED = CompletableFuture.completedFuture(true);
+    private static final CompletableFuture<Boolean> MISSED = CompletableFuture.completedFuture(false);
+
+    private final ConcurrentHashMap<Object, TokenLease> leases = new ConcurrentHashMap<>();
+    private final int maxIdleLeases;
+
+    public TokenBucketLeaseRegistry() {
+        this(1024);
+    }
+
+    public TokenBucketLeaseRegistry(int maxIdleLeases) {
+        this.maxIdleLeases = maxIdleLeases;
+    }
+
+    public boolean tryAcquire(Object key, int leaseCount, double period, Supplier<TokenBucketFlow> flowBuilder) {
+        return getOrCreateLease(key, period).acquire(leaseCount, leaseCount, flowBuilder, false).getNow(false);
+    }
+
+    public CompletableFuture<Boolean> acquire(Object key, int leaseCount, int leaseOvershoot, double period, Supplier<TokenBucketFlow> flowBuilder) {
+        return getOrCreateLease(key, period).acquire(leaseCount, leaseOvershoot, flowBuilder, true);
+    }
+
+    public static boolean awaitLease(CompletableFuture<Boolean> lease, long timeout, TimeUnit timeUnit) throws InterruptedException {
+        if (lease.isDone()) return lease.getNow(false);
+        try {
+            return lease.get(timeout, timeUnit);
+        } catch (ExecutionException e) {
+            return false;
+        } catch (TimeoutException e) {
+            return !lease.complete(false) && lease.getNow(false);
+        } catch (InterruptedException e) {
+            lease.complete(false);
+            throw e;
+        }
+    }
+
+    private TokenLease getOrCreateLease(Object key, double period) {
+        Object leaseKey = key instanceof byte[] ? ByteBuffer.wrap((byte[]) key) : key;
+        long periodNanos = Math.max((long) (period * 1000000000L), 1L);
+        TokenLease lease = leases.get(leaseKey);
+        if (lease == null) {
+            if (leases.size() >= maxIdleLeases) {
+                evictIdleLeases();
+            }
+            lease = leases.computeIfAbsent(leaseKey, k -> new TokenLease(periodNanos));
+        }
+        return lease;
+    }
+
+    public TokenLease getLease(Object key) {
+        return leases.get(key instanceof byte[] ? ByteBuffer.wrap((byte[]) key) : key);
+    }
+
+    public int size() {
+        return leases.size();
+    }
+
+    private void evictIdleLeases() {
+        long now = System.nanoTime();
+        leases.entrySet().removeIf(entry -> entry.getValue().isIdle(now));
+    }
+
+    protected void leaseToken(TokenBucketFlow tokenBucketFlow, Consumer<Boolean> callback) throws SlockException {
+        tokenBucketFlow.acquire(future -> callback.accept(future.getException() == null));
+    }
+
+    public class TokenLease {
+        private final long periodNanos;
+        private final ConcurrentLinkedQueue<Long> tokenDeadlines = new ConcurrentLinkedQueue<>();
+        private final ConcurrentLinkedQueue<CompletableFuture<Boolean>> waiters = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger availableCount = new AtomicInteger();
+        private final AtomicInteger inflightCount = new AtomicInteger();
+        private final AtomicInteger waitingCount = new AtomicInteger();
+        private final AtomicBoolean refilling = new AtomicBoolean(false);
+        private final AtomicLong windowStartTime;
+        private final AtomicInteger windowDemand = new AtomicInteger();
+        private final AtomicInteger windowLeasedCount = new AtomicInteger();
+        private volatile int lastDemand;
+        private volatile long lastAccessTime;
+
+        private TokenLease(long periodNanos) {
+            this.periodNanos = periodNanos;
+            this.windowStartTime = new AtomicLong(System.nanoTime());
+            this.lastAccessTime = windowStartTime.get();
+        }
+
+        public CompletableFuture<Boolean> acquire(int leaseCount, int leaseOvershoot, Supplier<TokenBucketFlow> flowBuilder, boolean waitInflight) {
+            long now = System.nanoTime();
+            lastAccessTime = now;
+            recordDemand(now);
+            boolean acquired = pollToken(now) != null;
+            refill(leaseCount, leaseOvershoot, flowBuilder, now);
+            if (acquired) return ACQUIRED;
+            if (!waitInflight) return MISSED;
+            if (waitingCount.incrementAndGet() > inflightCount.get()) {
+                waitingCount.decrementAndGet();
+                return MISSED;
+            }
+            CompletableFuture<Boolean> waiter = new CompletableFuture<>();
+            waiters.offer(waiter);
+            dispatchWaiters();
+            return waiter;
+        }
+
+        public int getAvailableCount() {
+            return availableCount.get();
+        }
+
+        public int getInflightCount() {
+            return inflightCount.get();
+        }
+
+        public int getWaitingCount() {
+            return waitingCount.get();
+        }
+
+        private Long pollToken(long now) {
+            Long deadline;
+            while ((deadline = tokenDeadlines.poll()) != null) {
+                availableCount.decrementAndGet();
+                if (deadline - now > 0) return deadline;
+            }
+            return null;
+        }
+
+        private void offerToken(long deadline) {
+            tokenDeadlines.offer(deadline);
+            availableCount.incrementAndGet();
+        }
+
+        private void dispatchWaiters() {
+            CompletableFuture<Boolean> waiter;
+            while ((waiter = waiters.peek()) != null) {
+                if (!waiter.isDone()) {
+                    Long deadline = pollToken(System.nanoTime());
+                    if (deadline != null) {
+                        if (!waiter.complete(true)) {
+                            offerToken(deadline);
+                        }
+                    } else if (inflightCount.get() <= 0) {
+                        waiter.complete(false);
+                    } else {
+                        return;
+                    }
+                }
+                if (waiters.remove(waiter)) {
+                    waitingCount.decrementAndGet();
+                }
+            }
+        }
+
+        private void recordDemand(long now) {
+            long windowStart = windowStartTime.get();
+            if (now - windowStart >= periodNanos && windowStartTime.compareAndSet(windowStart, now)) {
+                lastDemand = windowDemand.getAndSet(0);
+                windowLeasedCount.set(0);
+            }
+            windowDemand.incrementAndGet();
+        }
+
+        private int getLeasedCount() {
+            return availableCount.get() + Math.max(inflightCount.get() - waitingCount.get(), 0);
+        }
+
+        private void refill(int leaseCount, int leaseOvershoot, Supplier<TokenBucketFlow> flowBuilder, long now) {
+            int targetCount = Math.min(Math.max(leaseOvershoot, 1), Math.max(1, Math.max(lastDemand, windowDemand.get())));
+            if (getLeasedCount() * 2 > targetCount || !refilling.compareAndSet(false, true)) return;
+            try {
+                long deadline = now + periodNanos;
+                for (int i = getLeasedCount(); i < targetCount && windowLeasedCount.get() < leaseCount; i++) {
+                    windowLeasedCount.incrementAndGet();
+                    inflightCount.incrementAndGet();
+                    try {
+                        leaseToken(flowBuilder.get(), leased -> {
+                            if (leased) {
+                                offerToken(deadline);
+                            }
+                            inflightCount.decrementAndGet();
+                            dispatchWaiters();
+                        });
+                    } catch (SlockException | RuntimeException e) {
+                        inflightCount.decrementAndGet();
+                        dispatchWaiters();
+                        logger.warn("TokenBucketLeaseRegistry lease token error {}", e, e);
+                        break;
+                    }
+                }
+            } finally {
+                refilling.set(false);
+            }
+        }
+
+        private boolean isIdle(long now) {
+            return inflightCount.get() == 0 && now - lastAccessTime > Math.max(periodNanos, 1000000000L);
+        }
+    }
+}
@@ -3,232 +3,180 @@ package io.github.snower.jaslock.spring.boot;
 import io.github.snower.jaslock.Lock;
 import io.github.snower.jaslock.SlockDatabase;
 import io.github.snower.jaslock.callback.CallbackCommandResult;
+import io.github.snower.jaslock.commands.ICommand;
 import io.github.snower.jaslock.datas.LockData;
 import io.github.snower.jaslock.exceptions.SlockException;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.transaction.support.TransactionSynchronization;
-import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.nio.charset.StandardCharsets;
 import java.util.function.Consumer;
 
 public class TransactionLock extends Lock {
-    private static final Logger logger = LoggerFactory.getLogger(TransactionLock.class);
-    private final String bindTransactionKey;
+    private final String transactionKey;
+    private final int timeout;
+    private final int expried;
     private boolean acquired = false;
+    private volatile boolean lost = false;
+    private LockRenewalWatchdog lockRenewalWatchdog;
+    private volatile LockRenewalWatchdog.Renewal renewal;
 
     public TransactionLock(SlockDatabase database, byte[] lockKey, byte[] lockId, int timeout, int expried, short count, byte rCount) {
         super(database, lockKey, lockId, timeout, expried, count, rCount);
-
-        this.bindTransactionKey = "__SLOCK___LockWithTransaction___::" + new String(lockKey, StandardCharsets.UTF_8);
+        this.timeout = timeout;
+        this.expried = expried;
+        this.transactionKey = new String(lockKey, StandardCharsets.UTF_8);
     }
 
     public TransactionLock(SlockDatabase database, byte[] lockKey, int timeout, int expried) {
         super(database, lockKey, timeout, expried);
-
-        this.bindTransactionKey = "__SLOCK___LockWithTransaction___::" + new String(lockKey, StandardCharsets.UTF_8);
+        this.timeout = timeout;
+        this.expried = expried;
+        this.transactionKey = new String(lockKey, StandardCharsets.UTF_8);
     }
 
     public TransactionLock(SlockDatabase database, String lockKey, int timeout, int expried) {
         super(database, lockKey, timeout, expried);
-
-        this.bindTransactionKey = "__SLOCK___LockWithTransaction___::" + lockKey;
+        this.timeout = timeout;
+        this.expried = expried;
+        this.transactionKey = lockKey;
     }
 
     public void acquire(byte flag, Consumer<CallbackCommandResult> callback) throws SlockException {
-        if (TransactionSynchronizationManager.hasResource(bindTransactionKey)) {
+        if (isTransactionBound()) {
             return;
         }
         super.acquire(flag, callback);
         this.acquired = true;
-        try {
-            TransactionSynchronizationManager.bindResource(bindTransactionKey, this);
-        } catch (Exception e) {
-            this.acquired = false;
-            super.release();
-            throw e;
-        }
+        startRenewal();
+        TransactionLockRegistry.bind().register(transactionKey, newLockReleaser((byte) 0, null, null));
     }
 
     public void acquire(byte flag, LockData lockData, Consumer<CallbackCommandResult> callback) throws SlockException {
-        if (TransactionSynchronizationManager.hasResource(bindTransactionKey)) {
+        if (isTransactionBound()) {
             return;
         }
         super.acquire(flag, lockData, callback);
         this.acquired = true;
-        try {
-            TransactionSynchronizationManager.bindResource(bindTransactionKey, this);
-        } catch (Exception e) {
-            this.acquired = false;
-            super.release();
-            throw e;
-        }
+        startRenewal();
+        TransactionLockRegistry.bind().register(transactionKey, newLockReleaser((byte) 0, null, null));
     }
 
     public void acquire() throws SlockException {
-        if (TransactionSynchronizationManager.hasResource(bindTransactionKey)) {
+        if (isTransactionBound()) {
             return;
         }
         super.acquire();
         this.acquired = true;
-        try {
-            TransactionSynchronizationManager.bindResource(bindTransactionKey, this);
-        } catch (Exception e) {
-            this.acquired = false;
-            super.release();
-            throw e;
-        }
+        startRenewal();
+        TransactionLockRegistry.bind().register(transactionKey, newLockReleaser((byte) 0, null, null));
     }
 
     public void acquire(LockData lockData) throws SlockException {
-        if (TransactionSynchronizationManager.hasResource(bindTransactionKey)) {
+        if (isTransactionBound()) {
             return;
         }
         super.acquire(lockData);
         this.acquired = true;
-        try {
-            TransactionSynchronizationManager.bindResource(bindTransactionKey, this);
-        } catch (Exception e) {
-            this.acquired = false;
-            super.release();
-            throw e;
-        }
+        startRenewal();
+        TransactionLockRegistry.bind().register(transactionKey, newLockReleaser((byte) 0, null, null));
     }
 
     public void release(byte flag, Consumer<CallbackCommandResult> callback) throws SlockException {
         if (!this.acquired) return;
-        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
-            this.acquired = false;
-            try {
-                super.release(flag, callback);
-            } finally {
-                try {
-                    TransactionSynchronizationManager.unbindResource(bindTransactionKey);
-                } catch (Exception e) {
-                    logger.warn("LockWithTransaction " + bindTransactionKey + " unbind error " + e);
-                }
-            }
-        } else {
-            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-                @Override
-                public void afterCompletion(int status) {
-                    TransactionLock.this.acquired = false;
-                    try {
-                        TransactionLock.super.release(flag, callback);
-                    } catch (SlockException e) {
-                        logger.warn("LockWithTransaction release error: {}", this);
-                    }
-                    try {
-                        TransactionSynchronizationManager.unbindResource(bindTransactionKey);
-                    } catch (Exception e) {
-                        logger.warn("LockWithTransaction " + bindTransactionKey + " unbind error " + e);
-                    }
-                }
-            });
-        }
+        TransactionLockRegistry.bind().release(transactionKey, newLockReleaser(flag, null, callback));
     }
 
     public void release(byte flag, LockData lockData, Consumer<CallbackCommandResult> callback) throws SlockException {
         if (!this.acquired) return;
-        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
-            this.acquired = false;
-            try {
-                super.release(flag, lockData, callback);
-            } finally {
-                try {
-                    TransactionSynchronizationManager.unbindResource(bindTransactionKey);
-                } catch (Exception e) {
-                    logger.warn("LockWithTransaction " + bindTransactionKey + " unbind error " + e);
-                }
-            }
-        } else {
-            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-                @Override
-                public void afterCompletion(int status) {
-                    TransactionLock.this.acquired = false;
-                    try {
-                        TransactionLock.super.release(flag, lockData, callback);
-                    } catch (SlockException e) {
-                        logger.warn("LockWithTransaction release error: {}", this);
-                    }
-                    try {
-                        TransactionSynchronizationManager.unbindResource(bindTransactionKey);
-                    } catch (Exception e) {
-                        logger.warn("LockWithTransaction " + bindTransactionKey + " unbind error " + e);
-                    }
-                }
-            });
-        }
+        TransactionLockRegistry.bind().release(transactionKey, newLockReleaser(flag, lockData, callback));
     }
 
     @Override
     public void release() throws SlockException {
         if (!this.acquired) return;
-        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
-            this.acquired = false;
-            try {
-                super.release();
-            } finally {
-                try {
-                    TransactionSynchronizationManager.unbindResource(bindTransactionKey);
-                } catch (Exception e) {
-                    logger.warn("LockWithTransaction " + bindTransactionKey + " unbind error " + e);
-                }
-            }
-        } else {
-            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-                @Override
-                public void afterCompletion(int status) {
-                    TransactionLock.this.acquired = false;
-                    try {
-                        TransactionLock.super.release();
-                    } catch (SlockException e) {
-                        logger.warn("LockWithTransaction release error: {}", this);
-                    }
-                    try {
-                        TransactionSynchronizationManager.unbindResource(bindTransactionKey);
-                    } catch (Exception e) {
-                        logger.warn("LockWithTransaction " + bindTransactionKey + " unbind error " + e);
-                    }
-                }
-            });
-        }
+        TransactionLockRegistry.bind().release(transactionKey, newLockReleaser((byte) 0, null, null));
     }
 
     public void release(LockData lockData) throws SlockException {
         if (!this.acquired) return;
-        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
-            this.acquired = false;
-            try {
-                super.release((byte) 0, lockData);
-            } finally {
-                try {
-                    TransactionSynchronizationManager.unbindResource(bindTransactionKey);
-                } catch (Exception e) {
-                    logger.warn("LockWithTransaction " + bindTransactionKey + " unbind error " + e);
+        TransactionLockRegistry.bind().release(transactionKey, newLockReleaser((byte) 0, lockData, null));
+    }
+
+    private boolean isTransactionBound() {
+        TransactionLockRegistry registry = TransactionLockRegistry.getCurrent();
+        return registry != null && registry.contains(transactionKey);
+    }
+
+    private TransactionLockRegistry.LockReleaser newLockReleaser(byte flag, LockData lockData, Consumer<CallbackCommandResult> callback) {
+        return new TransactionLockRegistry.LockReleaser() {
+            @Override
+            public void release() throws SlockException {
+                TransactionLock.this.acquired = false;
+                TransactionLock.this.stopRenewal();
+                if (callback != null) {
+                    if (lockData != null) {
+                        TransactionLock.super.release(flag, lockData, callback);
+                    } else {
+                        TransactionLock.super.release(flag, callback);
+                    }
+                } else if (lockData != null) {
+                    TransactionLock.super.release(flag, lockData);
+                } else {
+                    TransactionLock.super.release();
                 }
             }
-        } else {
-            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-                @Override
-                public void afterCompletion(int status) {
-                    TransactionLock.this.acquired = false;
-                    try {
-                        TransactionLock.super.release((byte) 0, lockData);
-                    } catch (SlockException e) {
-                        logger.warn("LockWithTransaction release error: {}", this);
-                    }
-                    try {
-                        TransactionSynchronizationManager.unbindResource(bindTransactionKey);
-                    } catch (Exception e) {
-                        logger.warn("LockWithTransaction " + bindTransactionKey + " error " + e);
-                    }
+
+            @Override
+            public void releaseAsync(Consumer<CallbackCommandResult> releaseCallback) throws SlockException {
+                TransactionLock.this.acquired = false;
+                TransactionLock.this.stopRenewal();
+                Consumer<CallbackCommandResult> resultCallback = callback != null ? releaseCallback.andThen(callback) : releaseCallback;
+                if (lockData != null) {
+                    TransactionLock.super.release(flag, lockData, resultCallback);
+                } else {
+                    TransactionLock.super.release(flag, resultCallback);
                 }
-            });
+            }
+        };
+    }
+
+    public void enableAutoRenew(LockRenewalWatchdog lockRenewalWatchdog) {
+        this.lockRenewalWatchdog = lockRenewalWatchdog;
+    }
+
+    public boolean isLost() {
+        LockRenewalWatchdog.Renewal renewal = this.renewal;
+        return lost || (renewal != null && renewal.isLost());
+    }
+
+    private void startRenewal() throws SlockException {
+        if (lockRenewalWatchdog == null || renewal != null) return;
+        lost = false;
+        try {
+            renewal = lockRenewalWatchdog.register(lockRenewal -> {
+                super.setTimeout((short) 0);
+                super.acquire(ICommand.LOCK_FLAG_UPDATE_WHEN_LOCKED, result -> {
+                    if (result.getException() != null) {
+                        lockRenewal.lost(result.getException());
+                    }
+                });
+            }, LockRenewalWatchdog.getRenewalIntervalMillis(expried));
+        } catch (IllegalStateException e) {
+            this.acquired = false;
+            super.release();
+            SlockException exception = new SlockException(e.getMessage());
+            exception.initCause(e);
+            throw exception;
         }
     }
 
+    private void stopRenewal() {
+        if (renewal == null) return;
+        renewal.cancel();
+        lost = renewal.isLost();
+        renewal = null;
+        super.setTimeout((short) (timeout & 0xffff));
+    }
+
     @Override
     public AutoCloseable with() throws SlockException {
         acquire();
@@ -0,0 +1,143 @@
+package io.github.snower.jaslock.spring.boot;
+
+import io.github.snower.jaslock.Lock;
+import io.github.snower.jaslock.callback.CallbackCommandResult;
+import io.github.snower.jaslock.exceptions.SlockException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Holds every lock acquired by LockWithTransaction and TransactionLock on the current thread under one bound
+ * resource, locks released inside a transaction are deferred to a single synchronization per transaction which
+ * sends all releases at once through the callback api.
+ */
+public class TransactionLockRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionLockRegistry.class);
+    private static final Object RESOURCE_KEY = TransactionLockRegistry.class;
+
+    private final Map<Object, LockReleaser> locks = new HashMap<>();
+    private Completion completion;
+
+    public static TransactionLockRegistry getCurrent() {
+        return (TransactionLockRegistry) TransactionSynchronizationManager.getResource(RESOURCE_KEY);
+    }
+
+    public static TransactionLockRegistry bind() {
+        TransactionLockRegistry registry = getCurrent();
+        if (registry == null) {
+            registry = new TransactionLockRegistry();
+            TransactionSynchronizationManager.bindResource(RESOURCE_KEY, registry);
+        }
+        return registry;
+    }
+
+    public static LockReleaser newLockReleaser(Lock lock, LockRenewalWatchdog.Renewal renewal) {
+        return new LockReleaser() {
+            @Override
+            public void release() throws SlockException {
+                if (renewal != null) {
+                    renewal.cancel();
+                }
+                lock.release();
+            }
+
+            @Override
+            public void releaseAsync(Consumer<CallbackCommandResult> callback) throws SlockException {
+                if (renewal != null) {
+                    renewal.cancel();
+                }
+                lock.release((byte) 0, callback);
+            }
+        };
+    }
+
+    public boolean contains(Object key) {
+        return locks.containsKey(key);
+    }
+
+    public int size() {
+        return locks.size();
+    }
+
+    public void register(Object key, LockReleaser releaser) {
+        locks.put(key, releaser);
+    }
+
+    public void release(Object key) throws SlockException {
+        release(key, null);
+    }
+
+    public void release(Object key, LockReleaser releaser) throws SlockException {
+        LockReleaser lockReleaser = releaser != null ? releaser : locks.get(key);
+        if (lockReleaser == null) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            locks.put(key, lockReleaser);
+            getCompletion().keys.add(key);
+            return;
+        }
+
+        locks.remove(key);
+        try {
+            lockReleaser.release();
+        } finally {
+            unbindIfEmpty();
+        }
+    }
+
+    private Completion getCompletion() {
+        if (completion == null || completion.completed
+                || !TransactionSynchronizationManager.getSynchronizations().contains(completion)) {
+            completion = new Completion();
+            TransactionSynchronizationManager.registerSynchronization(completion);
+        }
+        return completion;
+    }
+
+    private void unbindIfEmpty() {
+        if (!locks.isEmpty() || getCurrent() != this) return;
+        try {
+            TransactionSynchronizationManager.unbindResource(RESOURCE_KEY);
+        } catch (Exception e) {
+            logger.warn("TransactionLockRegistry unbind error " + e);
+        }
+    }
+
+    private class Completion implements TransactionSynchronization {
+        private final List<Object> keys = new ArrayList<>();
+        private boolean completed;
+
+        @Override
+        public void afterCompletion(int status) {
+            completed = true;
+            for (Object key : keys) {
+                LockReleaser lockReleaser = locks.remove(key);
+                if (lockReleaser == null) continue;
+                try {
+                    lockReleaser.releaseAsync(result -> {
+                        if (result.getException() != null) {
+                            logger.warn("LockWithTransaction release {} error {}", key, result.getException().toString());
+                        }
+                    });
+                } catch (Exception e) {
+                    logger.warn("LockWithTransaction release {} error {}", key, e.toString());
+                }
+            }
+            keys.clear();
+            unbindIfEmpty();
+        }
+    }
+
+    public interface LockReleaser {
+        void release() throws SlockException;
+
+        void releaseAsync(Consumer<CallbackCommandResult> callback) throws SlockException;
+    }
+}
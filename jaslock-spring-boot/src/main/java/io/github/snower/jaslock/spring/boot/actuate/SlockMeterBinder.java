@@ -0,0 +1,54 @@
+package io.github.snower.jaslock.spring.boot.actuate;
+
+import io.github.snower.jaslock.spring.boot.AdaptiveConcurrencyLimiter;
+import io.github.snower.jaslock.spring.boot.AdaptiveLimiterRegistry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+public class SlockMeterBinder implements MeterBinder {
+    private final AdaptiveLimiterRegistry adaptiveLimiterRegistry;
+
+    public SlockMeterBinder(AdaptiveLimiterRegistry adaptiveLimiterRegistry) {
+        this.adaptiveLimiterRegistry = adaptiveLimiterRegistry;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Set<AdaptiveConcurrencyLimiter> boundLimiters = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+        adaptiveLimiterRegistry.addListener(limiter -> {
+            if (boundLimiters.add(limiter)) bindLimiter(registry, limiter);
+        });
+        for (AdaptiveConcurrencyLimiter limiter : adaptiveLimiterRegistry.getLimiters()) {
+            if (boundLimiters.add(limiter)) bindLimiter(registry, limiter);
+        }
+    }
+
+    protected void bindLimiter(MeterRegistry registry, AdaptiveConcurrencyLimiter limiter) {
+        Gauge.builder("slock.adaptive.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .tags("name", limiter.getName())
+                .description("Current adaptive concurrency limit")
+                .register(registry);
+        Gauge.builder("slock.adaptive.inflight", limiter, AdaptiveConcurrencyLimiter::getInflight)
+                .tags("name", limiter.getName())
+                .description("Current in-flight calls admitted by the adaptive limiter")
+                .register(registry);
+        FunctionCounter.builder("slock.adaptive.accepted", limiter, AdaptiveConcurrencyLimiter::getAcceptedCount)
+                .tags("name", limiter.getName())
+                .description("Calls admitted by the adaptive limiter")
+                .register(registry);
+        FunctionCounter.builder("slock.adaptive.rejected", limiter, AdaptiveConcurrencyLimiter::getRejectedCount)
+                .tags("name", limiter.getName())
+                .description("Calls rejected locally by the adaptive limiter")
+                .register(registry);
+        FunctionCounter.builder("slock.adaptive.dropped", limiter, AdaptiveConcurrencyLimiter::getDroppedCount)
+                .tags("name", limiter.getName())
+                .description("Admitted calls that timed out waiting for the distributed flow")
+                .register(registry);
+    }
+}
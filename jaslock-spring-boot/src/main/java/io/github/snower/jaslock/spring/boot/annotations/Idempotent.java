@@ -5,6 +5,7 @@ import io.github.snower.jaslock.exceptions.SlockException;
 import org.springframework.core.annotation.AliasFor;
 
 import java.lang.annotation.*;
+import java.util.concurrent.TimeUnit;
 
 @Target({ElementType.METHOD})
 @Retention(RetentionPolicy.RUNTIME)
@@ -30,6 +31,12 @@ public @interface Idempotent {
 
     int persistenceFlag() default 0;
 
+    TimeUnit timeUnit() default TimeUnit.SECONDS;
+
+    KeyEncoding keyEncoding() default KeyEncoding.DEFAULT;
+
+    String fallback() default "";
+
     Class<? extends Exception> timeoutException() default LockTimeoutException.class;
 
     Class<? extends Exception> exception() default SlockException.class;
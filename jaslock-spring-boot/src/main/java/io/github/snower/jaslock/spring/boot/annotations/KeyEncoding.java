@@ -0,0 +1,7 @@
+package io.github.snower.jaslock.spring.boot.annotations;
+
+public enum KeyEncoding {
+    DEFAULT,
+    RAW,
+    HASH128
+}
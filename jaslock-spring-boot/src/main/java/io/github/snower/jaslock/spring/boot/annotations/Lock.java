@@ -5,6 +5,7 @@ import io.github.snower.jaslock.exceptions.SlockException;
 import org.springframework.core.annotation.AliasFor;
 
 import java.lang.annotation.*;
+import java.util.concurrent.TimeUnit;
 
 @Target({ElementType.METHOD})
 @Retention(RetentionPolicy.RUNTIME)
@@ -26,6 +27,18 @@ public @interface Lock {
 
     int expriedFlag() default 0;
 
+    TimeUnit timeUnit() default TimeUnit.SECONDS;
+
+    boolean autoRenew() default false;
+
+    KeyEncoding keyEncoding() default KeyEncoding.DEFAULT;
+
+    String fallback() default "";
+
+    boolean localQueue() default false;
+
+    boolean reentrant() default true;
+
     Class<? extends Exception> timeoutException() default LockTimeoutException.class;
 
     Class<? extends Exception> exception() default SlockException.class;
@@ -5,6 +5,7 @@ import io.github.snower.jaslock.exceptions.SlockException;
 import org.springframework.core.annotation.AliasFor;
 
 import java.lang.annotation.*;
+import java.util.concurrent.TimeUnit;
 
 @Target({ElementType.METHOD})
 @Retention(RetentionPolicy.RUNTIME)
@@ -28,6 +29,18 @@ public @interface MaxConcurrentFlow {
 
     int expriedFlag() default 0;
 
+    TimeUnit timeUnit() default TimeUnit.SECONDS;
+
+    KeyEncoding keyEncoding() default KeyEncoding.DEFAULT;
+
+    String fallback() default "";
+
+    boolean adaptive() default false;
+
+    int adaptiveQueueTimeout() default 0;
+
+    int adaptiveMaxLimit() default 0;
+
     Class<? extends Exception> timeoutException() default LockTimeoutException.class;
 
     Class<? extends Exception> exception() default SlockException.class;
@@ -7,8 +7,13 @@ import io.github.snower.jaslock.datas.LockUnsetData;
 import io.github.snower.jaslock.exceptions.LockTimeoutException;
 import io.github.snower.jaslock.exceptions.SlockException;
 import io.github.snower.jaslock.spring.boot.AbstractBaseAspect;
+import io.github.snower.jaslock.spring.boot.AsyncAspectSupport;
+import io.github.snower.jaslock.spring.boot.IdempotentResultCache;
+import io.github.snower.jaslock.spring.boot.KeyBuffer;
+import io.github.snower.jaslock.spring.boot.SlockConfiguration;
 import io.github.snower.jaslock.spring.boot.SlockSerializater;
 import io.github.snower.jaslock.spring.boot.SlockTemplate;
+import io.github.snower.jaslock.spring.boot.annotations.KeyEncoding;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
@@ -18,12 +23,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.aop.aspectj.MethodInvocationProceedingJoinPoint;
 import org.springframework.core.Ordered;
+import org.springframework.core.ResolvableType;
 import org.springframework.core.annotation.Order;
+import org.springframework.util.ClassUtils;
 
 import java.io.*;
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
 
 @Aspect
 @Order(Ordered.HIGHEST_PRECEDENCE + 9000)
@@ -31,11 +42,25 @@ public class IdempotentAspect extends AbstractBaseAspect {
     private static final Logger logger = LoggerFactory.getLogger(IdempotentAspect.class);
 
     private final SlockSerializater serializater;
-    private final Map<String, IdempotentEvaluation> idempotentEvaluationCache = new ConcurrentHashMap<>();
+    private final Map<String, IdempotentEvaluation> idempotentEvaluations = new ConcurrentHashMap<>();
+    private IdempotentResultCache idempotentResultCache;
 
     public IdempotentAspect(SlockTemplate slockTemplate, SlockSerializater serializater) {
         super(slockTemplate);
         this.serializater = serializater == null ? slockTemplate.getSerializater() : serializater;
+        SlockConfiguration configuration = slockTemplate == null ? null : slockTemplate.getConfiguration();
+        if (configuration != null && configuration.getIdempotentCacheSize() > 0) {
+            this.idempotentResultCache = new IdempotentResultCache(configuration.getIdempotentCacheSize(),
+                    configuration.getIdempotentCacheTtl() * 1000L);
+        }
+    }
+
+    public IdempotentResultCache getIdempotentResultCache() {
+        return idempotentResultCache;
+    }
+
+    public void setIdempotentResultCache(IdempotentResultCache idempotentResultCache) {
+        this.idempotentResultCache = idempotentResultCache;
     }
 
     @Pointcut("@annotation(io.github.snower.jaslock.spring.boot.annotations.Idempotent)")
@@ -48,57 +73,83 @@ public class IdempotentAspect extends AbstractBaseAspect {
         Method method = methodSignature.getMethod();
         KeyEvaluate keyEvaluate = keyEvaluateCache.get(method);
         if (keyEvaluate == null) {
-            io.github.snower.jaslock.spring.boot.annotations.Idempotent idempotentAnnotation =
-                    method.getAnnotation(io.github.snower.jaslock.spring.boot.annotations.Idempotent.class);
-            if (idempotentAnnotation == null) {
-                throw new IllegalArgumentException("unknown Idempotent annotation");
-            }
-            String templateKey = idempotentAnnotation.value();
-            if (isBlank(templateKey)) {
-                templateKey = idempotentAnnotation.key();
-                if (isBlank(templateKey)) {
-                    throw new IllegalArgumentException("key is empty");
-                }
-            }
-            keyEvaluate = compileKeyEvaluate(methodSignature.getMethod(), templateKey,  ke -> {
-                ke.setTargetParameter(idempotentAnnotation);
-                int timeout = idempotentAnnotation.timeout() | (idempotentAnnotation.timeoutFlag() << 16) | (ICommand.TIMEOUT_FLAG_TIMEOUT_WHEN_CONTAINS_DATA << 16);
-                int expried = idempotentAnnotation.expried() | (idempotentAnnotation.expriedFlag() << 16);
-                byte databaseId = idempotentAnnotation.databaseId();
-                if (databaseId >= 0 && databaseId < 127) {
-                    ke.setTargetInstanceBuilder(key -> slockTemplate.selectDatabase(databaseId)
-                            .newLock((String) key, timeout, expried));
-                }
-                ke.setTargetInstanceBuilder(key -> slockTemplate.newLock((String) key, timeout, expried));
-                return ke;
-            });
+            keyEvaluate = compileMethodKeyEvaluate(method);
+        }
+        Object key = evaluateKey(keyEvaluate, method, methodJoinPoint.getArgs(), methodJoinPoint.getThis());
+        return execute(joinPoint, method, keyEvaluate, key, joinPoint::proceed);
+    }
+
+    @Override
+    public Object execute(ProceedingJoinPoint joinPoint, Method method, KeyEvaluate keyEvaluate, Object key, Invocation next) throws Throwable {
+        if (AsyncAspectSupport.isSingleValueAsyncMethod(method)) {
+            Class<?> resultClass = ResolvableType.forMethodReturnType(method).getGeneric(0).resolve(Object.class);
+            return AsyncAspectSupport.execute(method, new IdempotentPermit(keyEvaluate, (String) key, resultClass), next, asyncExecutor);
         }
-        String key = keyEvaluate.evaluate(methodSignature.getMethod(), methodJoinPoint.getArgs(), methodJoinPoint.getThis());
         Class<?> resultClass = method.getReturnType();
-        IdempotentEvaluation idempotentEvaluation = idempotentEvaluationCache.computeIfAbsent(key, k -> new IdempotentEvaluation());
-        synchronized (idempotentEvaluation) {
-            if (resultClass.isInstance(idempotentEvaluation.result)) {
-                return idempotentEvaluation.result;
+        IdempotentResultCache resultCache = idempotentResultCache;
+        if (resultCache != null) {
+            Object result = resultCache.get(getCacheKey((io.github.snower.jaslock.spring.boot.annotations.Idempotent) keyEvaluate.getTargetParameter(),
+                    (String) key), resultClass);
+            if (result != null) return result;
+        }
+        IdempotentEvaluation idempotentEvaluation = new IdempotentEvaluation();
+        IdempotentEvaluation currentEvaluation = idempotentEvaluations.putIfAbsent((String) key, idempotentEvaluation);
+        if (currentEvaluation == null) {
+            try {
+                Object result = executeIdempotent(joinPoint, keyEvaluate, (String) key, resultClass, next);
+                idempotentEvaluation.complete(result);
+                return result;
+            } catch (Throwable e) {
+                idempotentEvaluation.completeExceptionally(e);
+                throw e;
+            } finally {
+                idempotentEvaluations.remove(key, idempotentEvaluation);
+            }
+        }
+        if (currentEvaluation.thread == Thread.currentThread()) {
+            return executeIdempotent(joinPoint, keyEvaluate, (String) key, resultClass, next);
+        }
+
+        io.github.snower.jaslock.spring.boot.annotations.Idempotent idempotentAnnotation =
+                (io.github.snower.jaslock.spring.boot.annotations.Idempotent) keyEvaluate.getTargetParameter();
+        try {
+            Object result = currentEvaluation.get(idempotentAnnotation.timeout(), idempotentAnnotation.timeUnit());
+            if (ClassUtils.isAssignableValue(resultClass, result)) {
+                return result;
             }
-            Object result = execute(methodJoinPoint, keyEvaluate, key, resultClass);
-            idempotentEvaluation.result = result;
-            idempotentEvaluationCache.remove(key);
-            return result;
+        } catch (ExecutionException ignored) {
+        } catch (TimeoutException e) {
+            if (keyEvaluate.getFallbackMethod() != null) {
+                return invokeFallbackMethod(keyEvaluate, joinPoint);
+            }
+            throw translateException(new LockTimeoutException("idempotent evaluation wait timeout"),
+                    idempotentAnnotation.timeoutException(), idempotentAnnotation.exception());
         }
+        return executeIdempotent(joinPoint, keyEvaluate, (String) key, resultClass, next);
     }
 
-    private Object execute(ProceedingJoinPoint joinPoint, KeyEvaluate keyEvaluate, String key, Class<?> resultClass) throws Throwable {
+    protected Object executeIdempotent(ProceedingJoinPoint joinPoint, KeyEvaluate keyEvaluate, String key, Class<?> resultClass, Invocation next) throws Throwable {
         Lock lock = (Lock) keyEvaluate.buildTargetInstance(key);
         try {
-            lock.acquire();
+            try {
+                lock.acquire();
+            } catch (LockTimeoutException e) {
+                if (lock.getCurrentLockData() == null && keyEvaluate.getFallbackMethod() != null) {
+                    return invokeFallbackMethod(keyEvaluate, joinPoint);
+                }
+                throw e;
+            }
             boolean isUpdateResult = false;
             try {
                 if (lock.getCurrentLockData() != null) {
                     Object result = getResult(lock, resultClass);
-                    if (result != null) return result;
+                    if (result != null) {
+                        return result;
+                    }
                 }
-                Object result = joinPoint.proceed();
+                Object result = next.proceed();
                 isUpdateResult = updateResult(lock, result, (io.github.snower.jaslock.spring.boot.annotations.Idempotent) keyEvaluate.getTargetParameter());
+                cacheResult(key, result, (io.github.snower.jaslock.spring.boot.annotations.Idempotent) keyEvaluate.getTargetParameter());
                 return result;
             } finally {
                 if (!isUpdateResult) {
@@ -116,11 +167,11 @@ public class IdempotentAspect extends AbstractBaseAspect {
                 }
             }
         } catch (LockTimeoutException e) {
+            io.github.snower.jaslock.spring.boot.annotations.Idempotent idempotentAnnotation =
+                    (io.github.snower.jaslock.spring.boot.annotations.Idempotent) keyEvaluate.getTargetParameter();
             if (lock.getCurrentLockData() != null) {
                 return getResult(lock, resultClass);
             }
-            io.github.snower.jaslock.spring.boot.annotations.Idempotent idempotentAnnotation =
-                    (io.github.snower.jaslock.spring.boot.annotations.Idempotent) keyEvaluate.getTargetParameter();
             if (!idempotentAnnotation.timeoutException().isInstance(e)) {
                 throw idempotentAnnotation.timeoutException().getConstructor(String.class, Throwable.class)
                         .newInstance(e.getMessage(), e);
@@ -143,13 +194,29 @@ public class IdempotentAspect extends AbstractBaseAspect {
         if (idempotent.persistence() <= 0) {
             lock.release(new LockSetData(serializater.serializate(result)));
         } else {
-            lock.setExpried((short) idempotent.persistence());
-            lock.setExpriedFlag((short) idempotent.persistenceFlag());
+            int persistence = encodeExpried(idempotent.persistence(), idempotent.persistenceFlag(), idempotent.timeUnit());
+            lock.setExpried((short) (persistence & 0xffff));
+            lock.setExpriedFlag((short) (persistence >>> 16));
             lock.releaseHeadRetoLockWait(new LockSetData(serializater.serializate(result)));
         }
         return true;
     }
 
+    private void cacheResult(String key, Object result, io.github.snower.jaslock.spring.boot.annotations.Idempotent idempotent) {
+        IdempotentResultCache resultCache = idempotentResultCache;
+        if (resultCache == null || result == null) return;
+        int persistence = encodeExpried(idempotent.persistence(), idempotent.persistenceFlag(), idempotent.timeUnit());
+        resultCache.put(getCacheKey(idempotent, key), result, IdempotentResultCache.getPersistenceMillis(persistence & 0xffff, persistence >>> 16));
+    }
+
+    private String getCacheKey(io.github.snower.jaslock.spring.boot.annotations.Idempotent idempotent, String key) {
+        byte databaseId = idempotent.databaseId();
+        if (databaseId < 0 || databaseId >= 127) {
+            databaseId = (byte) slockTemplate.getConfiguration().getDatabaseId();
+        }
+        return databaseId + ":" + key;
+    }
+
     private Object getResult(Lock lock, Class<?> resultClass) throws IOException {
         if (lock.getCurrentLockData() == null) return null;
         byte[] lockData = lock.getCurrentLockData().getDataAsBytes();
@@ -159,7 +226,155 @@ public class IdempotentAspect extends AbstractBaseAspect {
         return idempotentResult;
     }
 
-    public static class IdempotentEvaluation {
-        private Object result;
+    @Override
+    public Class<? extends Annotation> getAnnotationType() {
+        return io.github.snower.jaslock.spring.boot.annotations.Idempotent.class;
+    }
+
+    @Override
+    public Class<?> getKeyType() {
+        return String.class;
+    }
+
+    @Override
+    public Object evaluateKey(KeyEvaluate keyEvaluate, Method method, Object[] args, Object target) {
+        return keyEvaluate.evaluate(method, args, target);
+    }
+
+    @Override
+    protected String getTemplateKey(Annotation annotation) {
+        io.github.snower.jaslock.spring.boot.annotations.Idempotent idempotentAnnotation =
+                (io.github.snower.jaslock.spring.boot.annotations.Idempotent) annotation;
+        if (idempotentAnnotation == null) {
+            throw new IllegalArgumentException("unknown Idempotent annotation");
+        }
+        String templateKey = idempotentAnnotation.value();
+        if (isBlank(templateKey)) {
+            templateKey = idempotentAnnotation.key();
+            if (isBlank(templateKey)) {
+                throw new IllegalArgumentException("key is empty");
+            }
+        }
+        return templateKey;
+    }
+
+    @Override
+    protected void checkAsyncMethod(Method method, Annotation annotation) {
+        if (AsyncAspectSupport.isSingleValueAsyncMethod(method) && !isBlank(getFallback(annotation))) {
+            throw newAsyncUnsupportedException(method, "fallback");
+        }
+    }
+
+    @Override
+    protected String getFallback(Annotation annotation) {
+        return ((io.github.snower.jaslock.spring.boot.annotations.Idempotent) annotation).fallback();
+    }
+
+    @Override
+    protected KeyEvaluate configureKeyEvaluate(Annotation annotation, KeyEvaluate keyEvaluate) {
+        io.github.snower.jaslock.spring.boot.annotations.Idempotent idempotentAnnotation =
+                (io.github.snower.jaslock.spring.boot.annotations.Idempotent) annotation;
+        keyEvaluate.setTargetParameter(idempotentAnnotation);
+        int timeout = encodeTimeout(idempotentAnnotation.timeout(), idempotentAnnotation.timeoutFlag(), idempotentAnnotation.timeUnit()) | (ICommand.TIMEOUT_FLAG_TIMEOUT_WHEN_CONTAINS_DATA << 16);
+        int expried = encodeExpried(idempotentAnnotation.expried(), idempotentAnnotation.expriedFlag(), idempotentAnnotation.timeUnit());
+        KeyEncoding keyEncoding = resolveKeyEncoding(idempotentAnnotation.keyEncoding());
+        byte databaseId = idempotentAnnotation.databaseId();
+        if (databaseId >= 0 && databaseId < 127) {
+            keyEvaluate.setTargetInstanceBuilder(key -> slockTemplate.selectDatabase(databaseId)
+                    .newLock(KeyBuffer.encode((String) key, keyEncoding), timeout, expried));
+        } else {
+            keyEvaluate.setTargetInstanceBuilder(key -> slockTemplate.newLock(KeyBuffer.encode((String) key, keyEncoding), timeout, expried));
+        }
+        return keyEvaluate;
+    }
+
+    private static class IdempotentEvaluation extends CompletableFuture<Object> {
+        private final Thread thread = Thread.currentThread();
+    }
+
+    private class IdempotentPermit implements AsyncAspectSupport.AsyncPermit {
+        private final Lock lock;
+        private final io.github.snower.jaslock.spring.boot.annotations.Idempotent idempotentAnnotation;
+        private final String key;
+        private final Class<?> resultClass;
+
+        private IdempotentPermit(KeyEvaluate keyEvaluate, String key, Class<?> resultClass) {
+            this.lock = (Lock) keyEvaluate.buildTargetInstance(key);
+            this.idempotentAnnotation = (io.github.snower.jaslock.spring.boot.annotations.Idempotent) keyEvaluate.getTargetParameter();
+            this.key = key;
+            this.resultClass = resultClass;
+        }
+
+        @Override
+        public void acquire(AsyncAspectSupport.AsyncAcquireCallback callback) {
+            IdempotentResultCache resultCache = idempotentResultCache;
+            if (resultCache != null) {
+                Object idempotentResult = resultCache.get(getCacheKey(idempotentAnnotation, key), resultClass);
+                if (idempotentResult != null) {
+                    callback.completed(idempotentResult);
+                    return;
+                }
+            }
+            try {
+                lock.acquire((byte) 0, result -> {
+                    Exception e = result.getException();
+                    if (e == null) {
+                        try {
+                            result.getResult();
+                        } catch (SlockException ex) {
+                            e = ex;
+                        }
+                    }
+                    try {
+                        if (e == null) {
+                            Object idempotentResult = getResult(lock, resultClass);
+                            if (idempotentResult == null) {
+                                callback.acquired();
+                                return;
+                            }
+                            releaseLock();
+                            callback.completed(idempotentResult);
+                        } else if (e instanceof LockTimeoutException && lock.getCurrentLockData() != null) {
+                            callback.completed(getResult(lock, resultClass));
+                        } else {
+                            callback.failed(translateException(e, idempotentAnnotation.timeoutException(), idempotentAnnotation.exception()));
+                        }
+                    } catch (IOException ex) {
+                        if (e == null) {
+                            releaseLock();
+                        }
+                        callback.failed(ex);
+                    }
+                });
+            } catch (SlockException e) {
+                callback.failed(translateException(e, idempotentAnnotation.timeoutException(), idempotentAnnotation.exception()));
+            }
+        }
+
+        @Override
+        public void release(Object value, Throwable exception) {
+            if (exception == null) {
+                try {
+                    updateResult(lock, value, idempotentAnnotation);
+                    cacheResult(key, value, idempotentAnnotation);
+                    return;
+                } catch (Exception e) {
+                    logger.warn("IdempotentAspect update result {} error {}", key, e, e);
+                }
+            }
+            releaseLock();
+        }
+
+        private void releaseLock() {
+            try {
+                if (idempotentAnnotation.persistence() <= 0) {
+                    lock.release(new LockUnsetData(ICommand.LOCK_DATA_FLAG_PROCESS_FIRST_OR_LAST));
+                } else {
+                    lock.release();
+                }
+            } catch (Exception e) {
+                logger.warn("IdempotentAspect release {} error {}", key, e, e);
+            }
+        }
     }
 }
@@ -1,8 +1,5 @@
 package io.github.snower.jaslock.spring.boot.aspects;
 
-import io.github.snower.jaslock.Lock;
-import io.github.snower.jaslock.exceptions.LockTimeoutException;
-import io.github.snower.jaslock.exceptions.SlockException;
 import io.github.snower.jaslock.spring.boot.AbstractBaseAspect;
 import io.github.snower.jaslock.spring.boot.SlockTemplate;
 import org.aspectj.lang.ProceedingJoinPoint;
@@ -10,19 +7,16 @@ import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
 import org.aspectj.lang.reflect.MethodSignature;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.aop.aspectj.MethodInvocationProceedingJoinPoint;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 
 @Aspect
 @Order(Ordered.HIGHEST_PRECEDENCE + 10000)
 public class LockAspect extends AbstractBaseAspect {
-    private static final Logger logger = LoggerFactory.getLogger(LockAspect.class);
-
     public LockAspect(SlockTemplate slockTemplate) {
         super(slockTemplate);
     }
@@ -37,62 +31,59 @@ public class LockAspect extends AbstractBaseAspect {
         Method method = methodSignature.getMethod();
         KeyEvaluate keyEvaluate = keyEvaluateCache.get(method);
         if (keyEvaluate == null) {
-            io.github.snower.jaslock.spring.boot.annotations.Lock lockAnnotation =
-                    method.getAnnotation(io.github.snower.jaslock.spring.boot.annotations.Lock.class);
-            if (lockAnnotation == null) {
-                throw new IllegalArgumentException("unknown Lock annotation");
-            }
-            String templateKey = lockAnnotation.value();
+            keyEvaluate = compileMethodKeyEvaluate(method);
+        }
+        Object key = evaluateKey(keyEvaluate, method, methodJoinPoint.getArgs(), methodJoinPoint.getThis());
+        return execute(joinPoint, method, keyEvaluate, key, joinPoint::proceed);
+    }
+
+    @Override
+    public Object execute(ProceedingJoinPoint joinPoint, Method method, KeyEvaluate keyEvaluate, Object key, Invocation next) throws Throwable {
+        return executeLock(joinPoint, method, keyEvaluate, key, next);
+    }
+
+    @Override
+    public Class<? extends Annotation> getAnnotationType() {
+        return io.github.snower.jaslock.spring.boot.annotations.Lock.class;
+    }
+
+    @Override
+    protected String getTemplateKey(Annotation annotation) {
+        io.github.snower.jaslock.spring.boot.annotations.Lock lockAnnotation =
+                (io.github.snower.jaslock.spring.boot.annotations.Lock) annotation;
+        if (lockAnnotation == null) {
+            throw new IllegalArgumentException("unknown Lock annotation");
+        }
+        String templateKey = lockAnnotation.value();
+        if (isBlank(templateKey)) {
+            templateKey = lockAnnotation.key();
             if (isBlank(templateKey)) {
-                templateKey = lockAnnotation.key();
-                if (isBlank(templateKey)) {
-                    throw new IllegalArgumentException("key is empty");
-                }
+                throw new IllegalArgumentException("key is empty");
             }
-            keyEvaluate = compileKeyEvaluate(methodSignature.getMethod(), templateKey, ke -> {
-                ke.setTargetParameter(lockAnnotation);
-                int timeout = lockAnnotation.timeout() | (lockAnnotation.timeoutFlag() << 16);
-                int expried = lockAnnotation.expried() | (lockAnnotation.expriedFlag() << 16);
-                byte databaseId = lockAnnotation.databaseId();
-                if (databaseId >= 0 && databaseId < 127) {
-                    ke.setTargetInstanceBuilder(key -> slockTemplate.selectDatabase(databaseId)
-                            .newLock((String) key, timeout, expried));
-                }
-                ke.setTargetInstanceBuilder(key -> slockTemplate.newLock((String) key, timeout, expried));
-                return ke;
-            });
         }
-        String key = keyEvaluate.evaluate(methodSignature.getMethod(), methodJoinPoint.getArgs(), methodJoinPoint.getThis());
-        Lock lock = (Lock) keyEvaluate.buildTargetInstance(key);
-        try {
-            lock.acquire();
-            try {
-                return joinPoint.proceed();
-            } finally {
-                try {
-                    lock.release();
-                } catch (Exception e) {
-                    logger.warn("LockAspect release {} error {}", key, e, e);
-                }
-            }
-        } catch (LockTimeoutException e) {
-            io.github.snower.jaslock.spring.boot.annotations.Lock lockAnnotation =
-                    (io.github.snower.jaslock.spring.boot.annotations.Lock) keyEvaluate.getTargetParameter();
-            if (!lockAnnotation.timeoutException().isInstance(e)) {
-                throw lockAnnotation.timeoutException().getConstructor(String.class, Throwable.class)
-                        .newInstance(e.getMessage(), e);
-            } else {
-                throw e;
-            }
-        } catch (SlockException e) {
-            io.github.snower.jaslock.spring.boot.annotations.Lock lockAnnotation =
-                    (io.github.snower.jaslock.spring.boot.annotations.Lock) keyEvaluate.getTargetParameter();
-            if (!lockAnnotation.exception().isInstance(e)) {
-                throw lockAnnotation.exception().getConstructor(String.class, Throwable.class)
-                        .newInstance(e.getMessage(), e);
-            } else {
-                throw e;
-            }
+        return templateKey;
+    }
+
+    @Override
+    protected String getFallback(Annotation annotation) {
+        return ((io.github.snower.jaslock.spring.boot.annotations.Lock) annotation).fallback();
+    }
+
+    @Override
+    protected KeyEvaluate configureKeyEvaluate(Annotation annotation, KeyEvaluate keyEvaluate) {
+        io.github.snower.jaslock.spring.boot.annotations.Lock lockAnnotation =
+                (io.github.snower.jaslock.spring.boot.annotations.Lock) annotation;
+        keyEvaluate.setTargetParameter(lockAnnotation);
+        keyEvaluate.setKeyEncoding(resolveKeyEncoding(lockAnnotation.keyEncoding()));
+        int timeout = encodeTimeout(lockAnnotation.timeout(), lockAnnotation.timeoutFlag(), lockAnnotation.timeUnit());
+        int expried = encodeExpried(lockAnnotation.expried(), lockAnnotation.expriedFlag(), lockAnnotation.timeUnit());
+        byte databaseId = lockAnnotation.databaseId();
+        if (databaseId >= 0 && databaseId < 127) {
+            keyEvaluate.setTargetInstanceBuilder(key -> slockTemplate.selectDatabase(databaseId)
+                    .newLock((byte[]) key, timeout, expried));
+        } else {
+            keyEvaluate.setTargetInstanceBuilder(key -> slockTemplate.newLock((byte[]) key, timeout, expried));
         }
+        return keyEvaluate;
     }
 }
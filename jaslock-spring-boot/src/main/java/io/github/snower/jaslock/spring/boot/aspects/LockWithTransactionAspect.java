@@ -4,7 +4,9 @@ import io.github.snower.jaslock.Lock;
 import io.github.snower.jaslock.exceptions.LockTimeoutException;
 import io.github.snower.jaslock.exceptions.SlockException;
 import io.github.snower.jaslock.spring.boot.AbstractBaseAspect;
+import io.github.snower.jaslock.spring.boot.LockRenewalWatchdog;
 import io.github.snower.jaslock.spring.boot.SlockTemplate;
+import io.github.snower.jaslock.spring.boot.TransactionLockRegistry;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
@@ -15,9 +17,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.aop.aspectj.MethodInvocationProceedingJoinPoint;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
-import org.springframework.transaction.support.TransactionSynchronization;
-import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 
 @Aspect
@@ -39,75 +40,47 @@ public class LockWithTransactionAspect extends AbstractBaseAspect {
         Method method = methodSignature.getMethod();
         AbstractBaseAspect.KeyEvaluate keyEvaluate = keyEvaluateCache.get(method);
         if (keyEvaluate == null) {
-            io.github.snower.jaslock.spring.boot.annotations.LockWithTransaction lockAnnotation =
-                    method.getAnnotation(io.github.snower.jaslock.spring.boot.annotations.LockWithTransaction.class);
-            if (lockAnnotation == null) {
-                throw new IllegalArgumentException("unknown LockWithTransaction annotation");
-            }
-            String templateKey = lockAnnotation.value();
-            if (isBlank(templateKey)) {
-                templateKey = lockAnnotation.key();
-                if (isBlank(templateKey)) {
-                    throw new IllegalArgumentException("key is empty");
-                }
-            }
-            keyEvaluate = compileKeyEvaluate(methodSignature.getMethod(), templateKey, ke -> {
-                ke.setTargetParameter(lockAnnotation);
-                int timeout = lockAnnotation.timeout() | (lockAnnotation.timeoutFlag() << 16);
-                int expried = lockAnnotation.expried() | (lockAnnotation.expriedFlag() << 16);
-                byte databaseId = lockAnnotation.databaseId();
-                if (databaseId >= 0 && databaseId < 127) {
-                    ke.setTargetInstanceBuilder(key -> slockTemplate.selectDatabase(databaseId)
-                            .newLock((String) key, timeout, expried));
-                }
-                ke.setTargetInstanceBuilder(key -> slockTemplate.newLock((String) key, timeout, expried));
-                return ke;
-            });
+            keyEvaluate = compileMethodKeyEvaluate(method);
         }
-        String key = keyEvaluate.evaluate(methodSignature.getMethod(), methodJoinPoint.getArgs(), methodJoinPoint.getThis());
-        String bindTransactionKey = "__SLOCK___LockWithTransaction___::" + key;
-        if (TransactionSynchronizationManager.hasResource(bindTransactionKey)) {
-            return joinPoint.proceed();
+        Object key = evaluateKey(keyEvaluate, method, methodJoinPoint.getArgs(), methodJoinPoint.getThis());
+        return execute(joinPoint, method, keyEvaluate, key, joinPoint::proceed);
+    }
+
+    @Override
+    public Object execute(ProceedingJoinPoint joinPoint, Method method, KeyEvaluate keyEvaluate, Object key, Invocation next) throws Throwable {
+        TransactionLockRegistry registry = TransactionLockRegistry.getCurrent();
+        if (registry != null && registry.contains(key)) {
+            return next.proceed();
         }
+        io.github.snower.jaslock.spring.boot.annotations.LockWithTransaction lockAnnotation =
+                (io.github.snower.jaslock.spring.boot.annotations.LockWithTransaction) keyEvaluate.getTargetParameter();
         Lock lock = (Lock) keyEvaluate.buildTargetInstance(key);
         try {
             lock.acquire();
+            LockRenewalWatchdog.Renewal renewal;
             try {
-                TransactionSynchronizationManager.bindResource(bindTransactionKey, lock);
-                return joinPoint.proceed();
+                renewal = lockAnnotation.autoRenew() ? registerRenewal(lock, encodeExpried(lockAnnotation.expried(),
+                        lockAnnotation.expriedFlag(), lockAnnotation.timeUnit())) : null;
+            } catch (SlockException e) {
+                try {
+                    lock.release();
+                } catch (Exception ex) {
+                    logger.warn("LockWithTransactionAspect release {} error {}", key, ex, ex);
+                }
+                throw e;
+            }
+            registry = TransactionLockRegistry.bind();
+            registry.register(key, TransactionLockRegistry.newLockReleaser(lock, renewal));
+            try {
+                return next.proceed();
             } finally {
-                if (!TransactionSynchronizationManager.isSynchronizationActive()) {
-                    try {
-                        lock.release();
-                    } catch (Exception e) {
-                        logger.warn("LockWithTransactionAspect release {} error {}", key, e, e);
-                    }
-                    try {
-                        TransactionSynchronizationManager.unbindResource(bindTransactionKey);
-                    } catch (Exception e) {
-                        logger.warn("LockWithTransactionAspect " + bindTransactionKey + " unbind error " + e);
-                    }
-                } else {
-                    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-                        @Override
-                        public void afterCompletion(int status) {
-                            try {
-                                lock.release();
-                            } catch (Exception e) {
-                                logger.warn("LockWithTransactionAspect release {} error {}", key, e, e);
-                            }
-                            try {
-                                TransactionSynchronizationManager.unbindResource(bindTransactionKey);
-                            } catch (Exception e) {
-                                logger.warn("LockWithTransactionAspect " + bindTransactionKey + " unbind error " + e);
-                            }
-                        }
-                    });
+                try {
+                    registry.release(key);
+                } catch (Exception e) {
+                    logger.warn("LockWithTransactionAspect release {} error {}", key, e, e);
                 }
             }
         } catch (LockTimeoutException e) {
-            io.github.snower.jaslock.spring.boot.annotations.LockWithTransaction lockAnnotation =
-                    (io.github.snower.jaslock.spring.boot.annotations.LockWithTransaction) keyEvaluate.getTargetParameter();
             if (!lockAnnotation.timeoutException().isInstance(e)) {
                 throw lockAnnotation.timeoutException().getConstructor(String.class, Throwable.class)
                         .newInstance(e.getMessage(), e);
@@ -115,8 +88,6 @@ public class LockWithTransactionAspect extends AbstractBaseAspect {
                 throw e;
             }
         } catch (SlockException e) {
-            io.github.snower.jaslock.spring.boot.annotations.LockWithTransaction lockAnnotation =
-                    (io.github.snower.jaslock.spring.boot.annotations.LockWithTransaction) keyEvaluate.getTargetParameter();
             if (!lockAnnotation.exception().isInstance(e)) {
                 throw lockAnnotation.exception().getConstructor(String.class, Throwable.class)
                         .newInstance(e.getMessage(), e);
@@ -125,4 +96,53 @@ public class LockWithTransactionAspect extends AbstractBaseAspect {
             }
         }
     }
+
+    @Override
+    public Class<? extends Annotation> getAnnotationType() {
+        return io.github.snower.jaslock.spring.boot.annotations.LockWithTransaction.class;
+    }
+
+    @Override
+    public Class<?> getKeyType() {
+        return String.class;
+    }
+
+    @Override
+    public Object evaluateKey(KeyEvaluate keyEvaluate, Method method, Object[] args, Object target) {
+        return keyEvaluate.evaluate(method, args, target);
+    }
+
+    @Override
+    protected String getTemplateKey(Annotation annotation) {
+        io.github.snower.jaslock.spring.boot.annotations.LockWithTransaction lockAnnotation =
+                (io.github.snower.jaslock.spring.boot.annotations.LockWithTransaction) annotation;
+        if (lockAnnotation == null) {
+            throw new IllegalArgumentException("unknown LockWithTransaction annotation");
+        }
+        String templateKey = lockAnnotation.value();
+        if (isBlank(templateKey)) {
+            templateKey = lockAnnotation.key();
+            if (isBlank(templateKey)) {
+                throw new IllegalArgumentException("key is empty");
+            }
+        }
+        return templateKey;
+    }
+
+    @Override
+    protected KeyEvaluate configureKeyEvaluate(Annotation annotation, KeyEvaluate keyEvaluate) {
+        io.github.snower.jaslock.spring.boot.annotations.LockWithTransaction lockAnnotation =
+                (io.github.snower.jaslock.spring.boot.annotations.LockWithTransaction) annotation;
+        keyEvaluate.setTargetParameter(lockAnnotation);
+        int timeout = encodeTimeout(lockAnnotation.timeout(), lockAnnotation.timeoutFlag(), lockAnnotation.timeUnit());
+        int expried = encodeExpried(lockAnnotation.expried(), lockAnnotation.expriedFlag(), lockAnnotation.timeUnit());
+        byte databaseId = lockAnnotation.databaseId();
+        if (databaseId >= 0 && databaseId < 127) {
+            keyEvaluate.setTargetInstanceBuilder(key -> slockTemplate.selectDatabase(databaseId)
+                    .newLock((String) key, timeout, expried));
+        } else {
+            keyEvaluate.setTargetInstanceBuilder(key -> slockTemplate.newLock((String) key, timeout, expried));
+        }
+        return keyEvaluate;
+    }
 }
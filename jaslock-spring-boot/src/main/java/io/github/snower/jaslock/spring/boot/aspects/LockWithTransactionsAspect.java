@@ -4,7 +4,9 @@ import io.github.snower.jaslock.Lock;
 import io.github.snower.jaslock.exceptions.LockTimeoutException;
 import io.github.snower.jaslock.exceptions.SlockException;
 import io.github.snower.jaslock.spring.boot.AbstractMultiBaseAspect;
+import io.github.snower.jaslock.spring.boot.LockRenewalWatchdog;
 import io.github.snower.jaslock.spring.boot.SlockTemplate;
+import io.github.snower.jaslock.spring.boot.TransactionLockRegistry;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
@@ -15,8 +17,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.aop.aspectj.MethodInvocationProceedingJoinPoint;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
-import org.springframework.transaction.support.TransactionSynchronization;
-import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
@@ -40,21 +40,30 @@ public class LockWithTransactionsAspect extends AbstractMultiBaseAspect {
         Method method = methodSignature.getMethod();
         AbstractMultiBaseAspect.MultiEvaluates keyEvaluate = (AbstractMultiBaseAspect.MultiEvaluates) keyEvaluateCache.get(method);
         if (keyEvaluate == null) {
-            io.github.snower.jaslock.spring.boot.annotations.LockWithTransactions locksAnnotation =
-                    method.getAnnotation(io.github.snower.jaslock.spring.boot.annotations.LockWithTransactions.class);
-            if (locksAnnotation == null || locksAnnotation.value() == null || locksAnnotation.value().length == 0) {
-                throw new IllegalArgumentException("LockWithTransactions is empty");
-            }
-            keyEvaluate = compileKeyEvaluates(method, locksAnnotation.value());
-        }
-        Object[] args = methodJoinPoint.getArgs();
-        Object target = methodJoinPoint.getThis();
-        KeyEvaluate[] keyEvaluates = keyEvaluate.getKeyEvaluates();
-        String[] keys = new String[keyEvaluates.length];
-        for (int i = 0; i < keyEvaluates.length; i++) {
-            keys[i] = keyEvaluates[i].evaluate(method, args, target);
+            keyEvaluate = (AbstractMultiBaseAspect.MultiEvaluates) compileMethodKeyEvaluate(method);
         }
-        return proceed(joinPoint, keyEvaluates, keys, 0);
+        Object[] keys = evaluateKeys(keyEvaluate, method, methodJoinPoint.getArgs(), methodJoinPoint.getThis());
+        return proceed(joinPoint, method, keyEvaluate.getKeyEvaluates(), keys, 0);
+    }
+
+    @Override
+    public Class<? extends Annotation> getAnnotationType() {
+        return io.github.snower.jaslock.spring.boot.annotations.LockWithTransactions.class;
+    }
+
+    @Override
+    protected Annotation[] getAnnotations(Annotation annotation) {
+        return annotation == null ? null : ((io.github.snower.jaslock.spring.boot.annotations.LockWithTransactions) annotation).value();
+    }
+
+    @Override
+    public Class<?> getKeyType() {
+        return String.class;
+    }
+
+    @Override
+    public Object evaluateKey(KeyEvaluate keyEvaluate, Method method, Object[] args, Object target) {
+        return keyEvaluate.evaluate(method, args, target);
     }
 
     @Override
@@ -79,64 +88,53 @@ public class LockWithTransactionsAspect extends AbstractMultiBaseAspect {
         io.github.snower.jaslock.spring.boot.annotations.LockWithTransaction lockAnnotation =
                 (io.github.snower.jaslock.spring.boot.annotations.LockWithTransaction) annotation;
         keyEvaluate.setTargetParameter(lockAnnotation);
-        int timeout = lockAnnotation.timeout() | (lockAnnotation.timeoutFlag() << 16);
-        int expried = lockAnnotation.expried() | (lockAnnotation.expriedFlag() << 16);
+        int timeout = encodeTimeout(lockAnnotation.timeout(), lockAnnotation.timeoutFlag(), lockAnnotation.timeUnit());
+        int expried = encodeExpried(lockAnnotation.expried(), lockAnnotation.expriedFlag(), lockAnnotation.timeUnit());
         byte databaseId = lockAnnotation.databaseId();
         if (databaseId >= 0 && databaseId < 127) {
             keyEvaluate.setTargetInstanceBuilder(key -> slockTemplate.selectDatabase(databaseId)
                     .newLock((String) key, timeout, expried));
+        } else {
+            keyEvaluate.setTargetInstanceBuilder(key -> slockTemplate.newLock((String) key, timeout, expried));
         }
-        keyEvaluate.setTargetInstanceBuilder(key -> slockTemplate.newLock((String) key, timeout, expried));
         return keyEvaluate;
     }
 
     @Override
-    protected Object execute(ProceedingJoinPoint joinPoint, KeyEvaluate[] keyEvaluates, String[] keys, int index) throws Throwable {
-        KeyEvaluate keyEvaluate = keyEvaluates[index];
-        String key = keys[index];
-        String bindTransactionKey = "__SLOCK___LockWithTransaction___::" + key;
-        if (TransactionSynchronizationManager.hasResource(bindTransactionKey)) {
-            return joinPoint.proceed();
+    public Object execute(ProceedingJoinPoint joinPoint, Method method, KeyEvaluate keyEvaluate, Object key, Invocation next) throws Throwable {
+        TransactionLockRegistry registry = TransactionLockRegistry.getCurrent();
+        if (registry != null && registry.contains(key)) {
+            return next.proceed();
         }
+        io.github.snower.jaslock.spring.boot.annotations.LockWithTransaction lockAnnotation =
+                (io.github.snower.jaslock.spring.boot.annotations.LockWithTransaction) keyEvaluate.getTargetParameter();
         Lock lock = (Lock) keyEvaluate.buildTargetInstance(key);
         try {
             lock.acquire();
+            LockRenewalWatchdog.Renewal renewal;
+            try {
+                renewal = lockAnnotation.autoRenew() ? registerRenewal(lock, encodeExpried(lockAnnotation.expried(),
+                        lockAnnotation.expriedFlag(), lockAnnotation.timeUnit())) : null;
+            } catch (SlockException e) {
+                try {
+                    lock.release();
+                } catch (Exception ex) {
+                    logger.warn("LockWithTransactionAspect release {} error {}", key, ex, ex);
+                }
+                throw e;
+            }
+            registry = TransactionLockRegistry.bind();
+            registry.register(key, TransactionLockRegistry.newLockReleaser(lock, renewal));
             try {
-                TransactionSynchronizationManager.bindResource(bindTransactionKey, lock);
-                return proceed(joinPoint, keyEvaluates, keys, index + 1);
+                return next.proceed();
             } finally {
-                if (!TransactionSynchronizationManager.isSynchronizationActive()) {
-                    try {
-                        lock.release();
-                    } catch (Exception e) {
-                        logger.warn("LockWithTransactionAspect release {} error {}", key, e, e);
-                    }
-                    try {
-                        TransactionSynchronizationManager.unbindResource(bindTransactionKey);
-                    } catch (Exception e) {
-                        logger.warn("LockWithTransactionAspect " + bindTransactionKey + " unbind error " + e);
-                    }
-                } else {
-                    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-                        @Override
-                        public void afterCompletion(int status) {
-                            try {
-                                lock.release();
-                            } catch (Exception e) {
-                                logger.warn("LockWithTransactionAspect release {} error {}", key, e, e);
-                            }
-                            try {
-                                TransactionSynchronizationManager.unbindResource(bindTransactionKey);
-                            } catch (Exception e) {
-                                logger.warn("LockWithTransactionAspect " + bindTransactionKey + " unbind error " + e);
-                            }
-                        }
-                    });
+                try {
+                    registry.release(key);
+                } catch (Exception e) {
+                    logger.warn("LockWithTransactionAspect release {} error {}", key, e, e);
                 }
             }
         } catch (LockTimeoutException e) {
-            io.github.snower.jaslock.spring.boot.annotations.LockWithTransaction lockAnnotation =
-                    (io.github.snower.jaslock.spring.boot.annotations.LockWithTransaction) keyEvaluate.getTargetParameter();
             if (!lockAnnotation.timeoutException().isInstance(e)) {
                 throw lockAnnotation.timeoutException().getConstructor(String.class, Throwable.class)
                         .newInstance(e.getMessage(), e);
@@ -144,8 +142,6 @@ public class LockWithTransactionsAspect extends AbstractMultiBaseAspect {
                 throw e;
             }
         } catch (SlockException e) {
-            io.github.snower.jaslock.spring.boot.annotations.LockWithTransaction lockAnnotation =
-                    (io.github.snower.jaslock.spring.boot.annotations.LockWithTransaction) keyEvaluate.getTargetParameter();
             if (!lockAnnotation.exception().isInstance(e)) {
                 throw lockAnnotation.exception().getConstructor(String.class, Throwable.class)
                         .newInstance(e.getMessage(), e);
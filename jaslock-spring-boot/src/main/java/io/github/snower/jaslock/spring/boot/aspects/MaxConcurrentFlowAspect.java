@@ -4,6 +4,8 @@ import io.github.snower.jaslock.MaxConcurrentFlow;
 import io.github.snower.jaslock.exceptions.LockTimeoutException;
 import io.github.snower.jaslock.exceptions.SlockException;
 import io.github.snower.jaslock.spring.boot.AbstractBaseAspect;
+import io.github.snower.jaslock.spring.boot.AdaptiveConcurrencyLimiter;
+import io.github.snower.jaslock.spring.boot.AsyncAspectSupport;
 import io.github.snower.jaslock.spring.boot.SlockTemplate;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
@@ -16,7 +18,9 @@ import org.springframework.aop.aspectj.MethodInvocationProceedingJoinPoint;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 
 @Aspect
 @Order(Ordered.HIGHEST_PRECEDENCE + 8000)
@@ -37,48 +41,74 @@ public class MaxConcurrentFlowAspect extends AbstractBaseAspect {
         Method method = methodSignature.getMethod();
         KeyEvaluate keyEvaluate = keyEvaluateCache.get(method);
         if (keyEvaluate == null) {
-            io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlow maxConcurrentFlowAnnotation = methodSignature.getMethod()
-                    .getAnnotation(io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlow.class);
-            if (maxConcurrentFlowAnnotation == null) {
-                throw new IllegalArgumentException("unknown MaxConcurrentFlow annotation");
-            }
-            String templateKey = maxConcurrentFlowAnnotation.value();
-            if (isBlank(templateKey)) {
-                templateKey = maxConcurrentFlowAnnotation.key();
-                if (isBlank(templateKey)) {
-                    throw new IllegalArgumentException("key is empty");
-                }
-            }
-            keyEvaluate = compileKeyEvaluate(methodSignature.getMethod(), templateKey, ke -> {
-                ke.setTargetParameter(maxConcurrentFlowAnnotation);
-                int timeout = maxConcurrentFlowAnnotation.timeout() | (maxConcurrentFlowAnnotation.timeoutFlag() << 16);
-                int expried = maxConcurrentFlowAnnotation.expried() | (maxConcurrentFlowAnnotation.expriedFlag() << 16);
-                short count = maxConcurrentFlowAnnotation.count();
-                byte databaseId = maxConcurrentFlowAnnotation.databaseId();
-                if (databaseId >= 0 && databaseId < 127) {
-                    ke.setTargetInstanceBuilder(key -> slockTemplate.selectDatabase(databaseId)
-                            .newMaxConcurrentFlow((String) key, count, timeout, expried));
+            keyEvaluate = compileMethodKeyEvaluate(method);
+        }
+        Object key = evaluateKey(keyEvaluate, method, methodJoinPoint.getArgs(), methodJoinPoint.getThis());
+        return execute(joinPoint, method, keyEvaluate, key, joinPoint::proceed);
+    }
+
+    @Override
+    public Object execute(ProceedingJoinPoint joinPoint, Method method, KeyEvaluate keyEvaluate, Object key, Invocation next) throws Throwable {
+        io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlow maxConcurrentFlowAnnotation =
+                (io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlow) keyEvaluate.getTargetParameter();
+        if (AsyncAspectSupport.isAsyncMethod(method)) {
+            return AsyncAspectSupport.execute(method, new AsyncAspectSupport.MaxConcurrentFlowPermit((MaxConcurrentFlow) keyEvaluate.buildTargetInstance(key),
+                    maxConcurrentFlowAnnotation.timeoutException(), maxConcurrentFlowAnnotation.exception()), next, asyncExecutor);
+        }
+        if (!maxConcurrentFlowAnnotation.adaptive()) {
+            return executeFlow(joinPoint, keyEvaluate, maxConcurrentFlowAnnotation, key, next);
+        }
+        AdaptiveConcurrencyLimiter limiter = adaptiveLimiterRegistry.getLimiter(keyEvaluate, () -> new AdaptiveConcurrencyLimiter(
+                method.getDeclaringClass().getSimpleName() + "." + method.getName() + "(" + keyEvaluate.getTemplateKey() + ")",
+                maxConcurrentFlowAnnotation.adaptiveMaxLimit() > 0 ? maxConcurrentFlowAnnotation.adaptiveMaxLimit() : maxConcurrentFlowAnnotation.count()));
+        if (!limiter.acquire(maxConcurrentFlowAnnotation.adaptiveQueueTimeout(), maxConcurrentFlowAnnotation.timeUnit())) {
+            if (keyEvaluate.getFallbackMethod() != null) return invokeFallbackMethod(keyEvaluate, joinPoint);
+            throw newException(maxConcurrentFlowAnnotation.timeoutException(), "adaptive concurrency limit "
+                    + limiter.getLimit() + " exceeded: " + limiter.getName());
+        }
+        long[] latency = new long[]{-1};
+        boolean dropped = false;
+        try {
+            return executeFlow(joinPoint, keyEvaluate, maxConcurrentFlowAnnotation, key, () -> {
+                long startTime = System.nanoTime();
+                try {
+                    return next.proceed();
+                } finally {
+                    latency[0] = System.nanoTime() - startTime;
                 }
-                ke.setTargetInstanceBuilder(key -> slockTemplate.newMaxConcurrentFlow((String) key, count, timeout, expried));
-                return ke;
             });
+        } catch (Throwable e) {
+            dropped = e instanceof LockTimeoutException || maxConcurrentFlowAnnotation.timeoutException().isInstance(e);
+            throw e;
+        } finally {
+            if (latency[0] >= 0 || dropped) {
+                limiter.release(Math.max(latency[0], 0), dropped);
+            } else {
+                limiter.release();
+            }
         }
-        String key = keyEvaluate.evaluate(methodSignature.getMethod(), methodJoinPoint.getArgs(), methodJoinPoint.getThis());
+    }
+
+    protected Object executeFlow(ProceedingJoinPoint joinPoint, KeyEvaluate keyEvaluate, io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlow maxConcurrentFlowAnnotation,
+                                 Object key, Invocation next) throws Throwable {
         MaxConcurrentFlow maxConcurrentFlow = (MaxConcurrentFlow) keyEvaluate.buildTargetInstance(key);
         try {
-            maxConcurrentFlow.acquire();
             try {
-                return joinPoint.proceed();
+                maxConcurrentFlow.acquire();
+            } catch (LockTimeoutException e) {
+                if (keyEvaluate.getFallbackMethod() != null) return invokeFallbackMethod(keyEvaluate, joinPoint);
+                throw e;
+            }
+            try {
+                return next.proceed();
             } finally {
                 try {
                     maxConcurrentFlow.release();
                 } catch (Exception e) {
-                    logger.warn("MaxConcurrentFlowAspect release {} error {}", key, e, e);
+                    logger.warn("MaxConcurrentFlowAspect release {} error {}", new String((byte[]) key, StandardCharsets.UTF_8), e, e);
                 }
             }
         } catch (LockTimeoutException e) {
-            io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlow maxConcurrentFlowAnnotation =
-                    (io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlow) keyEvaluate.getTargetParameter();
             if (!maxConcurrentFlowAnnotation.timeoutException().isInstance(e)) {
                 throw maxConcurrentFlowAnnotation.timeoutException().getConstructor(String.class, Throwable.class)
                         .newInstance(e.getMessage(), e);
@@ -86,8 +116,6 @@ public class MaxConcurrentFlowAspect extends AbstractBaseAspect {
                 throw e;
             }
         } catch (SlockException e) {
-            io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlow maxConcurrentFlowAnnotation =
-                    (io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlow) keyEvaluate.getTargetParameter();
             if (!maxConcurrentFlowAnnotation.exception().isInstance(e)) {
                 throw maxConcurrentFlowAnnotation.exception().getConstructor(String.class, Throwable.class)
                         .newInstance(e.getMessage(), e);
@@ -96,4 +124,63 @@ public class MaxConcurrentFlowAspect extends AbstractBaseAspect {
             }
         }
     }
+
+    @Override
+    public Class<? extends Annotation> getAnnotationType() {
+        return io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlow.class;
+    }
+
+    @Override
+    protected String getTemplateKey(Annotation annotation) {
+        io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlow maxConcurrentFlowAnnotation =
+                (io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlow) annotation;
+        if (maxConcurrentFlowAnnotation == null) {
+            throw new IllegalArgumentException("unknown MaxConcurrentFlow annotation");
+        }
+        String templateKey = maxConcurrentFlowAnnotation.value();
+        if (isBlank(templateKey)) {
+            templateKey = maxConcurrentFlowAnnotation.key();
+            if (isBlank(templateKey)) {
+                throw new IllegalArgumentException("key is empty");
+            }
+        }
+        return templateKey;
+    }
+
+    @Override
+    protected String getFallback(Annotation annotation) {
+        return ((io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlow) annotation).fallback();
+    }
+
+    @Override
+    protected void checkAsyncMethod(Method method, Annotation annotation) {
+        super.checkAsyncMethod(method, annotation);
+        if (AsyncAspectSupport.isAsyncMethod(method)
+                && ((io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlow) annotation).adaptive()) {
+            throw newAsyncUnsupportedException(method, "adaptive");
+        }
+    }
+
+    @Override
+    protected KeyEvaluate configureKeyEvaluate(Annotation annotation, KeyEvaluate keyEvaluate) {
+        io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlow maxConcurrentFlowAnnotation =
+                (io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlow) annotation;
+        if (maxConcurrentFlowAnnotation.adaptive() && maxConcurrentFlowAnnotation.adaptiveMaxLimit() <= 0
+                && !(keyEvaluate instanceof ConstKeyEvaluate)) {
+            throw new IllegalArgumentException("adaptiveMaxLimit is required when adaptive key is not constant: " + keyEvaluate.getTemplateKey());
+        }
+        keyEvaluate.setTargetParameter(maxConcurrentFlowAnnotation);
+        keyEvaluate.setKeyEncoding(resolveKeyEncoding(maxConcurrentFlowAnnotation.keyEncoding()));
+        int timeout = encodeTimeout(maxConcurrentFlowAnnotation.timeout(), maxConcurrentFlowAnnotation.timeoutFlag(), maxConcurrentFlowAnnotation.timeUnit());
+        int expried = encodeExpried(maxConcurrentFlowAnnotation.expried(), maxConcurrentFlowAnnotation.expriedFlag(), maxConcurrentFlowAnnotation.timeUnit());
+        short count = maxConcurrentFlowAnnotation.count();
+        byte databaseId = maxConcurrentFlowAnnotation.databaseId();
+        if (databaseId >= 0 && databaseId < 127) {
+            keyEvaluate.setTargetInstanceBuilder(key -> slockTemplate.selectDatabase(databaseId)
+                    .newMaxConcurrentFlow((byte[]) key, count, timeout, expried));
+        } else {
+            keyEvaluate.setTargetInstanceBuilder(key -> slockTemplate.newMaxConcurrentFlow((byte[]) key, count, timeout, expried));
+        }
+        return keyEvaluate;
+    }
 }
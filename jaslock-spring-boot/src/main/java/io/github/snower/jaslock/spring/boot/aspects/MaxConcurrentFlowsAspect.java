@@ -4,6 +4,8 @@ import io.github.snower.jaslock.MaxConcurrentFlow;
 import io.github.snower.jaslock.exceptions.LockTimeoutException;
 import io.github.snower.jaslock.exceptions.SlockException;
 import io.github.snower.jaslock.spring.boot.AbstractMultiBaseAspect;
+import io.github.snower.jaslock.spring.boot.AdaptiveConcurrencyLimiter;
+import io.github.snower.jaslock.spring.boot.AsyncAspectSupport;
 import io.github.snower.jaslock.spring.boot.SlockTemplate;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
@@ -18,6 +20,7 @@ import org.springframework.core.annotation.Order;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 
 @Aspect
 @Order(Ordered.HIGHEST_PRECEDENCE + 8000)
@@ -38,21 +41,20 @@ public class MaxConcurrentFlowsAspect extends AbstractMultiBaseAspect {
         Method method = methodSignature.getMethod();
         AbstractMultiBaseAspect.MultiEvaluates keyEvaluate = (AbstractMultiBaseAspect.MultiEvaluates) keyEvaluateCache.get(method);
         if (keyEvaluate == null) {
-            io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlows maxConcurrentFlowAnnotations =
-                    method.getAnnotation(io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlows.class);
-            if (maxConcurrentFlowAnnotations == null || maxConcurrentFlowAnnotations.value() == null || maxConcurrentFlowAnnotations.value().length == 0) {
-                throw new IllegalArgumentException("MaxConcurrentFlows is empty");
-            }
-            keyEvaluate = compileKeyEvaluates(method, maxConcurrentFlowAnnotations.value());
-        }
-        Object[] args = methodJoinPoint.getArgs();
-        Object target = methodJoinPoint.getThis();
-        KeyEvaluate[] keyEvaluates = keyEvaluate.getKeyEvaluates();
-        String[] keys = new String[keyEvaluates.length];
-        for (int i = 0; i < keyEvaluates.length; i++) {
-            keys[i] = keyEvaluates[i].evaluate(method, args, target);
+            keyEvaluate = (AbstractMultiBaseAspect.MultiEvaluates) compileMethodKeyEvaluate(method);
         }
-        return proceed(joinPoint, keyEvaluates, keys, 0);
+        Object[] keys = evaluateKeys(keyEvaluate, method, methodJoinPoint.getArgs(), methodJoinPoint.getThis());
+        return proceed(joinPoint, method, keyEvaluate.getKeyEvaluates(), keys, 0);
+    }
+
+    @Override
+    public Class<? extends Annotation> getAnnotationType() {
+        return io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlows.class;
+    }
+
+    @Override
+    protected Annotation[] getAnnotations(Annotation annotation) {
+        return annotation == null ? null : ((io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlows) annotation).value();
     }
 
     @Override
@@ -72,42 +74,105 @@ public class MaxConcurrentFlowsAspect extends AbstractMultiBaseAspect {
         return templateKey;
     }
 
+    @Override
+    protected String getFallback(Annotation annotation) {
+        return ((io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlow) annotation).fallback();
+    }
+
+    @Override
+    protected void checkAsyncMethod(Method method, Annotation annotation) {
+        super.checkAsyncMethod(method, annotation);
+        if (AsyncAspectSupport.isAsyncMethod(method)
+                && ((io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlow) annotation).adaptive()) {
+            throw newAsyncUnsupportedException(method, "adaptive");
+        }
+    }
+
     @Override
     protected KeyEvaluate configureKeyEvaluate(Annotation annotation, KeyEvaluate keyEvaluate) {
         io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlow maxConcurrentFlowAnnotation =
                 (io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlow) annotation;
+        if (maxConcurrentFlowAnnotation.adaptive() && maxConcurrentFlowAnnotation.adaptiveMaxLimit() <= 0
+                && !(keyEvaluate instanceof ConstKeyEvaluate)) {
+            throw new IllegalArgumentException("adaptiveMaxLimit is required when adaptive key is not constant: " + keyEvaluate.getTemplateKey());
+        }
         keyEvaluate.setTargetParameter(maxConcurrentFlowAnnotation);
-        int timeout = maxConcurrentFlowAnnotation.timeout() | (maxConcurrentFlowAnnotation.timeoutFlag() << 16);
-        int expried = maxConcurrentFlowAnnotation.expried() | (maxConcurrentFlowAnnotation.expriedFlag() << 16);
+        keyEvaluate.setKeyEncoding(resolveKeyEncoding(maxConcurrentFlowAnnotation.keyEncoding()));
+        int timeout = encodeTimeout(maxConcurrentFlowAnnotation.timeout(), maxConcurrentFlowAnnotation.timeoutFlag(), maxConcurrentFlowAnnotation.timeUnit());
+        int expried = encodeExpried(maxConcurrentFlowAnnotation.expried(), maxConcurrentFlowAnnotation.expriedFlag(), maxConcurrentFlowAnnotation.timeUnit());
         short count = maxConcurrentFlowAnnotation.count();
         byte databaseId = maxConcurrentFlowAnnotation.databaseId();
         if (databaseId >= 0 && databaseId < 127) {
             keyEvaluate.setTargetInstanceBuilder(key -> slockTemplate.selectDatabase(databaseId)
-                    .newMaxConcurrentFlow((String) key, count, timeout, expried));
+                    .newMaxConcurrentFlow((byte[]) key, count, timeout, expried));
+        } else {
+            keyEvaluate.setTargetInstanceBuilder(key -> slockTemplate.newMaxConcurrentFlow((byte[]) key, count, timeout, expried));
         }
-        keyEvaluate.setTargetInstanceBuilder(key -> slockTemplate.newMaxConcurrentFlow((String) key, count, timeout, expried));
         return keyEvaluate;
     }
 
     @Override
-    protected Object execute(ProceedingJoinPoint joinPoint, KeyEvaluate[] keyEvaluates, String[] keys, int index) throws Throwable {
-        KeyEvaluate keyEvaluate = keyEvaluates[index];
-        String key = keys[index];
+    public Object execute(ProceedingJoinPoint joinPoint, Method method, KeyEvaluate keyEvaluate, Object key, Invocation next) throws Throwable {
+        io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlow maxConcurrentFlowAnnotation =
+                (io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlow) keyEvaluate.getTargetParameter();
+        if (AsyncAspectSupport.isAsyncMethod(method)) {
+            return AsyncAspectSupport.execute(method, new AsyncAspectSupport.MaxConcurrentFlowPermit((MaxConcurrentFlow) keyEvaluate.buildTargetInstance(key),
+                    maxConcurrentFlowAnnotation.timeoutException(), maxConcurrentFlowAnnotation.exception()), next, asyncExecutor);
+        }
+        if (!maxConcurrentFlowAnnotation.adaptive()) {
+            return executeFlow(joinPoint, keyEvaluate, maxConcurrentFlowAnnotation, key, next);
+        }
+        AdaptiveConcurrencyLimiter limiter = adaptiveLimiterRegistry.getLimiter(keyEvaluate, () -> new AdaptiveConcurrencyLimiter(
+                method.getDeclaringClass().getSimpleName() + "." + method.getName() + "(" + keyEvaluate.getTemplateKey() + ")",
+                maxConcurrentFlowAnnotation.adaptiveMaxLimit() > 0 ? maxConcurrentFlowAnnotation.adaptiveMaxLimit() : maxConcurrentFlowAnnotation.count()));
+        if (!limiter.acquire(maxConcurrentFlowAnnotation.adaptiveQueueTimeout(), maxConcurrentFlowAnnotation.timeUnit())) {
+            if (keyEvaluate.getFallbackMethod() != null) return invokeFallbackMethod(keyEvaluate, joinPoint);
+            throw newException(maxConcurrentFlowAnnotation.timeoutException(), "adaptive concurrency limit "
+                    + limiter.getLimit() + " exceeded: " + limiter.getName());
+        }
+        long[] latency = new long[]{-1};
+        boolean dropped = false;
+        try {
+            return executeFlow(joinPoint, keyEvaluate, maxConcurrentFlowAnnotation, key, () -> {
+                long startTime = System.nanoTime();
+                try {
+                    return next.proceed();
+                } finally {
+                    latency[0] = System.nanoTime() - startTime;
+                }
+            });
+        } catch (Throwable e) {
+            dropped = e instanceof LockTimeoutException || maxConcurrentFlowAnnotation.timeoutException().isInstance(e);
+            throw e;
+        } finally {
+            if (latency[0] >= 0 || dropped) {
+                limiter.release(Math.max(latency[0], 0), dropped);
+            } else {
+                limiter.release();
+            }
+        }
+    }
+
+    protected Object executeFlow(ProceedingJoinPoint joinPoint, KeyEvaluate keyEvaluate, io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlow maxConcurrentFlowAnnotation,
+                                 Object key, Invocation next) throws Throwable {
         MaxConcurrentFlow maxConcurrentFlow = (MaxConcurrentFlow) keyEvaluate.buildTargetInstance(key);
         try {
-            maxConcurrentFlow.acquire();
             try {
-                return proceed(joinPoint, keyEvaluates, keys, index + 1);
+                maxConcurrentFlow.acquire();
+            } catch (LockTimeoutException e) {
+                if (keyEvaluate.getFallbackMethod() != null) return invokeFallbackMethod(keyEvaluate, joinPoint);
+                throw e;
+            }
+            try {
+                return next.proceed();
             } finally {
                 try {
                     maxConcurrentFlow.release();
                 } catch (Exception e) {
-                    logger.warn("MaxConcurrentFlowAspect release {} error {}", key, e, e);
+                    logger.warn("MaxConcurrentFlowAspect release {} error {}", new String((byte[]) key, StandardCharsets.UTF_8), e, e);
                 }
             }
         } catch (LockTimeoutException e) {
-            io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlow maxConcurrentFlowAnnotation =
-                    (io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlow) keyEvaluate.getTargetParameter();
             if (!maxConcurrentFlowAnnotation.timeoutException().isInstance(e)) {
                 throw maxConcurrentFlowAnnotation.timeoutException().getConstructor(String.class, Throwable.class)
                         .newInstance(e.getMessage(), e);
@@ -115,8 +180,6 @@ public class MaxConcurrentFlowsAspect extends AbstractMultiBaseAspect {
                 throw e;
             }
         } catch (SlockException e) {
-            io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlow maxConcurrentFlowAnnotation =
-                    (io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlow) keyEvaluate.getTargetParameter();
             if (!maxConcurrentFlowAnnotation.exception().isInstance(e)) {
                 throw maxConcurrentFlowAnnotation.exception().getConstructor(String.class, Throwable.class)
                         .newInstance(e.getMessage(), e);
@@ -0,0 +1,260 @@
+package io.github.snower.jaslock.spring.boot.aspects;
+
+import io.github.snower.jaslock.spring.boot.AbstractBaseAspect;
+import io.github.snower.jaslock.spring.boot.AbstractMultiBaseAspect;
+import io.github.snower.jaslock.spring.boot.AdaptiveLimiterRegistry;
+import io.github.snower.jaslock.spring.boot.LocalLockRegistry;
+import io.github.snower.jaslock.spring.boot.SlockSerializater;
+import io.github.snower.jaslock.spring.boot.SlockTemplate;
+import io.github.snower.jaslock.spring.boot.annotations.KeyEncoding;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.aspectj.MethodInvocationProceedingJoinPoint;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+import org.springframework.core.annotation.Order;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.Executor;
+
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE + 7000)
+public class SlockAnnotationsAspect extends AbstractBaseAspect {
+    private static final String TRANSACTION_SYNCHRONIZATION_MANAGER_CLASS_NAME =
+            "org.springframework.transaction.support.TransactionSynchronizationManager";
+
+    private final List<AbstractBaseAspect> aspects;
+
+    public SlockAnnotationsAspect(SlockTemplate slockTemplate, SlockSerializater serializater) {
+        this(slockTemplate, createAspects(slockTemplate, serializater));
+    }
+
+    public SlockAnnotationsAspect(SlockTemplate slockTemplate, List<? extends AbstractBaseAspect> aspects) {
+        super(slockTemplate);
+        List<AbstractBaseAspect> sortedAspects = new ArrayList<>(aspects);
+        AnnotationAwareOrderComparator.sort(sortedAspects);
+        this.aspects = Collections.unmodifiableList(sortedAspects);
+        for (AbstractBaseAspect aspect : this.aspects) {
+            aspect.setAdaptiveLimiterRegistry(adaptiveLimiterRegistry);
+        }
+    }
+
+    private static List<AbstractBaseAspect> createAspects(SlockTemplate slockTemplate, SlockSerializater serializater) {
+        List<AbstractBaseAspect> aspects = new ArrayList<>();
+        aspects.add(new TokenBucketFlowAspect(slockTemplate));
+        aspects.add(new TokenBucketFlowsAspect(slockTemplate));
+        aspects.add(new MaxConcurrentFlowAspect(slockTemplate));
+        aspects.add(new MaxConcurrentFlowsAspect(slockTemplate));
+        aspects.add(new IdempotentAspect(slockTemplate, serializater));
+        aspects.add(new LockAspect(slockTemplate));
+        aspects.add(new LocksAspect(slockTemplate));
+        if (ClassUtils.isPresent(TRANSACTION_SYNCHRONIZATION_MANAGER_CLASS_NAME, SlockAnnotationsAspect.class.getClassLoader())) {
+            aspects.add(new LockWithTransactionAspect(slockTemplate));
+            aspects.add(new LockWithTransactionsAspect(slockTemplate));
+        }
+        return aspects;
+    }
+
+    public List<AbstractBaseAspect> getAspects() {
+        return aspects;
+    }
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        super.setBeanFactory(beanFactory);
+        for (AbstractBaseAspect aspect : aspects) {
+            aspect.setBeanFactory(beanFactory);
+        }
+    }
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
+        super.setApplicationContext(applicationContext);
+        for (AbstractBaseAspect aspect : aspects) {
+            aspect.setApplicationContext(applicationContext);
+        }
+    }
+
+    @Override
+    public void setCompileKeyEvaluate(boolean compileKeyEvaluate) {
+        super.setCompileKeyEvaluate(compileKeyEvaluate);
+        for (AbstractBaseAspect aspect : aspects) {
+            aspect.setCompileKeyEvaluate(compileKeyEvaluate);
+        }
+    }
+
+    @Override
+    public void setSpelCompilerMode(SpelCompilerMode spelCompilerMode) {
+        super.setSpelCompilerMode(spelCompilerMode);
+        for (AbstractBaseAspect aspect : aspects) {
+            aspect.setSpelCompilerMode(spelCompilerMode);
+        }
+    }
+
+    @Override
+    public void setKeyEncoding(KeyEncoding keyEncoding) {
+        super.setKeyEncoding(keyEncoding);
+        for (AbstractBaseAspect aspect : aspects) {
+            aspect.setKeyEncoding(keyEncoding);
+        }
+    }
+
+    @Override
+    public void setAdaptiveLimiterRegistry(AdaptiveLimiterRegistry adaptiveLimiterRegistry) {
+        super.setAdaptiveLimiterRegistry(adaptiveLimiterRegistry);
+        for (AbstractBaseAspect aspect : aspects) {
+            aspect.setAdaptiveLimiterRegistry(adaptiveLimiterRegistry);
+        }
+    }
+
+    @Override
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        super.setAsyncExecutor(asyncExecutor);
+        for (AbstractBaseAspect aspect : aspects) {
+            aspect.setAsyncExecutor(asyncExecutor);
+        }
+    }
+
+    @Override
+    public void setLocalLockRegistry(LocalLockRegistry localLockRegistry) {
+        super.setLocalLockRegistry(localLockRegistry);
+        for (AbstractBaseAspect aspect : aspects) {
+            aspect.setLocalLockRegistry(localLockRegistry);
+        }
+    }
+
+    @Pointcut("@annotation(io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlow) " +
+            "|| @annotation(io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlows) " +
+            "|| @annotation(io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlow) " +
+            "|| @annotation(io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlows) " +
+            "|| @annotation(io.github.snower.jaslock.spring.boot.annotations.Idempotent) " +
+            "|| @annotation(io.github.snower.jaslock.spring.boot.annotations.Lock) " +
+            "|| @annotation(io.github.snower.jaslock.spring.boot.annotations.Locks) " +
+            "|| @annotation(io.github.snower.jaslock.spring.boot.annotations.LockWithTransaction) " +
+            "|| @annotation(io.github.snower.jaslock.spring.boot.annotations.LockWithTransactions)")
+    private void SlockAnnotations() {}
+
+    @Around("SlockAnnotations()")
+    public Object around(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodInvocationProceedingJoinPoint methodJoinPoint = (MethodInvocationProceedingJoinPoint) joinPoint;
+        MethodSignature methodSignature = (MethodSignature) methodJoinPoint.getSignature();
+        Method method = methodSignature.getMethod();
+        ExecutionPlan executionPlan = (ExecutionPlan) keyEvaluateCache.get(method);
+        if (executionPlan == null) {
+            executionPlan = (ExecutionPlan) compileMethodKeyEvaluate(method);
+        }
+        Object[] keys = executionPlan.evaluateKeys(method, methodJoinPoint.getArgs(), methodJoinPoint.getThis());
+        return executionPlan.proceed(joinPoint, method, keys, 0);
+    }
+
+    @Override
+    public boolean isAnnotated(Method method) {
+        for (AbstractBaseAspect aspect : aspects) {
+            if (aspect.isAnnotated(method)) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public KeyEvaluate compileMethodKeyEvaluate(Method method) {
+        return keyEvaluateCache.computeIfAbsent(method, this::compileExecutionPlan);
+    }
+
+    protected ExecutionPlan compileExecutionPlan(Method method) {
+        List<AbstractBaseAspect> stepAspects = new ArrayList<>();
+        List<KeyEvaluate> stepKeyEvaluates = new ArrayList<>();
+        List<Integer> stepKeyIndexes = new ArrayList<>();
+        List<AbstractBaseAspect> keyAspects = new ArrayList<>();
+        List<KeyEvaluate> keyEvaluates = new ArrayList<>();
+        Map<String, Integer> templateKeyIndexes = new HashMap<>();
+        for (AbstractBaseAspect aspect : aspects) {
+            if (!aspect.isAnnotated(method)) continue;
+            KeyEvaluate keyEvaluate = aspect.compileMethodKeyEvaluate(method);
+            KeyEvaluate[] aspectKeyEvaluates = keyEvaluate instanceof AbstractMultiBaseAspect.MultiEvaluates ?
+                    ((AbstractMultiBaseAspect.MultiEvaluates) keyEvaluate).getKeyEvaluates() : new KeyEvaluate[]{keyEvaluate};
+            for (KeyEvaluate aspectKeyEvaluate : aspectKeyEvaluates) {
+                String templateKey = aspectKeyEvaluate.getTemplateKey() == null ? null : aspect.getKeyType().getName()
+                        + ":" + aspectKeyEvaluate.getKeyEncoding() + ":" + aspectKeyEvaluate.getTemplateKey();
+                Integer keyIndex = templateKey == null ? null : templateKeyIndexes.get(templateKey);
+                if (keyIndex == null) {
+                    keyIndex = keyEvaluates.size();
+                    keyAspects.add(aspect);
+                    keyEvaluates.add(aspectKeyEvaluate);
+                    if (templateKey != null) {
+                        templateKeyIndexes.put(templateKey, keyIndex);
+                    }
+                }
+                stepAspects.add(aspect);
+                stepKeyEvaluates.add(aspectKeyEvaluate);
+                stepKeyIndexes.add(keyIndex);
+            }
+        }
+        int[] keyIndexes = new int[stepKeyIndexes.size()];
+        for (int i = 0; i < keyIndexes.length; i++) {
+            keyIndexes[i] = stepKeyIndexes.get(i);
+        }
+        return new ExecutionPlan(stepAspects.toArray(new AbstractBaseAspect[0]), stepKeyEvaluates.toArray(new KeyEvaluate[0]),
+                keyIndexes, keyAspects.toArray(new AbstractBaseAspect[0]), keyEvaluates.toArray(new KeyEvaluate[0]));
+    }
+
+    public static class ExecutionPlan implements KeyEvaluate {
+        private final AbstractBaseAspect[] aspects;
+        private final KeyEvaluate[] keyEvaluates;
+        private final int[] keyIndexes;
+        private final AbstractBaseAspect[] keyAspects;
+        private final KeyEvaluate[] distinctKeyEvaluates;
+
+        public ExecutionPlan(AbstractBaseAspect[] aspects, KeyEvaluate[] keyEvaluates, int[] keyIndexes,
+                             AbstractBaseAspect[] keyAspects, KeyEvaluate[] distinctKeyEvaluates) {
+            this.aspects = aspects;
+            this.keyEvaluates = keyEvaluates;
+            this.keyIndexes = keyIndexes;
+            this.keyAspects = keyAspects;
+            this.distinctKeyEvaluates = distinctKeyEvaluates;
+        }
+
+        public Object[] evaluateKeys(Method method, Object[] args, Object target) {
+            Object[] keys = new Object[distinctKeyEvaluates.length];
+            for (int i = 0; i < distinctKeyEvaluates.length; i++) {
+                keys[i] = keyAspects[i].evaluateKey(distinctKeyEvaluates[i], method, args, target);
+            }
+            return keys;
+        }
+
+        public Object proceed(ProceedingJoinPoint joinPoint, Method method, Object[] keys, int index) throws Throwable {
+            if (index >= aspects.length) return joinPoint.proceed();
+            return aspects[index].execute(joinPoint, method, keyEvaluates[index], keys[keyIndexes[index]],
+                    () -> proceed(joinPoint, method, keys, index + 1));
+        }
+
+        @Override
+        public String evaluate(Method method, Object[] args, Object target) {
+            throw new UnsupportedOperationException();
+        }
+
+        public AbstractBaseAspect[] getAspects() {
+            return aspects;
+        }
+
+        public KeyEvaluate[] getKeyEvaluates() {
+            return keyEvaluates;
+        }
+
+        public int[] getKeyIndexes() {
+            return keyIndexes;
+        }
+
+        public int getKeyCount() {
+            return distinctKeyEvaluates.length;
+        }
+    }
+}
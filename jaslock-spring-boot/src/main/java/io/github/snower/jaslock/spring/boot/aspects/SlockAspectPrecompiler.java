@@ -0,0 +1,99 @@
+package io.github.snower.jaslock.spring.boot.aspects;
+
+import io.github.snower.jaslock.spring.boot.AbstractBaseAspect;
+import io.github.snower.jaslock.spring.boot.AbstractMultiBaseAspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.framework.autoproxy.AutoProxyUtils;
+import org.springframework.aop.scope.ScopedProxyUtils;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.util.*;
+
+public class SlockAspectPrecompiler implements SmartInitializingSingleton, BeanFactoryAware {
+    private static final Logger logger = LoggerFactory.getLogger(SlockAspectPrecompiler.class);
+
+    private ListableBeanFactory beanFactory;
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        if (beanFactory instanceof ListableBeanFactory) {
+            this.beanFactory = (ListableBeanFactory) beanFactory;
+        }
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (beanFactory == null) return;
+        Collection<AbstractBaseAspect> aspects = beanFactory.getBeansOfType(AbstractBaseAspect.class, false, false).values();
+        if (aspects.isEmpty()) return;
+
+        Set<Class<?>> precompiledTypes = new HashSet<>();
+        int count = 0;
+        for (String beanName : beanFactory.getBeanNamesForType(Object.class, true, false)) {
+            if (ScopedProxyUtils.isScopedTarget(beanName)) continue;
+            Class<?> beanType = getBeanType(beanName);
+            if (beanType == null || !precompiledTypes.add(beanType)) continue;
+            count += precompile(beanType, aspects);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("SlockAspectPrecompiler precompiled {} annotated methods", count);
+        }
+    }
+
+    public int precompile(Class<?> beanType, Collection<? extends AbstractBaseAspect> aspects) {
+        int[] count = new int[]{0};
+        ReflectionUtils.doWithMethods(beanType, method -> {
+            for (AbstractBaseAspect aspect : aspects) {
+                if (!aspect.isAnnotated(method)) continue;
+                try {
+                    validateFallbackMethods(aspect.compileMethodKeyEvaluate(method), beanType);
+                    count[0]++;
+                } catch (RuntimeException e) {
+                    throw new IllegalStateException(aspect.getClass().getSimpleName() + " compile " + method
+                            + " error: " + e.getMessage(), e);
+                }
+            }
+        }, method -> !method.isBridge() && !method.isSynthetic() && method.getDeclaringClass() != Object.class);
+        return count[0];
+    }
+
+    private void validateFallbackMethods(AbstractBaseAspect.KeyEvaluate keyEvaluate, Class<?> beanType) {
+        if (keyEvaluate instanceof SlockAnnotationsAspect.ExecutionPlan) {
+            for (AbstractBaseAspect.KeyEvaluate stepKeyEvaluate : ((SlockAnnotationsAspect.ExecutionPlan) keyEvaluate).getKeyEvaluates()) {
+                validateFallbackMethods(stepKeyEvaluate, beanType);
+            }
+        } else if (keyEvaluate instanceof AbstractMultiBaseAspect.MultiEvaluates) {
+            for (AbstractBaseAspect.KeyEvaluate multiKeyEvaluate : ((AbstractMultiBaseAspect.MultiEvaluates) keyEvaluate).getKeyEvaluates()) {
+                validateFallbackMethods(multiKeyEvaluate, beanType);
+            }
+        } else if (keyEvaluate.getFallbackMethod() != null && !beanType.isInterface()) {
+            keyEvaluate.getFallbackMethod().validate(beanType);
+        }
+    }
+
+    private Class<?> getBeanType(String beanName) {
+        try {
+            Class<?> beanType = null;
+            if (beanFactory instanceof ConfigurableListableBeanFactory) {
+                beanType = AutoProxyUtils.determineTargetClass((ConfigurableListableBeanFactory) beanFactory, beanName);
+            }
+            if (beanType == null) {
+                beanType = beanFactory.getType(beanName);
+            }
+            return beanType == null ? null : ClassUtils.getUserClass(beanType);
+        } catch (BeansException e) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("SlockAspectPrecompiler resolve bean {} type error {}", beanName, e.toString());
+            }
+            return null;
+        }
+    }
+}
@@ -4,7 +4,9 @@ import io.github.snower.jaslock.TokenBucketFlow;
 import io.github.snower.jaslock.exceptions.LockTimeoutException;
 import io.github.snower.jaslock.exceptions.SlockException;
 import io.github.snower.jaslock.spring.boot.AbstractBaseAspect;
+import io.github.snower.jaslock.spring.boot.AsyncAspectSupport;
 import io.github.snower.jaslock.spring.boot.SlockTemplate;
+import io.github.snower.jaslock.spring.boot.TokenBucketLeaseRegistry;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
@@ -14,15 +16,23 @@ import org.springframework.aop.aspectj.MethodInvocationProceedingJoinPoint;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
 
 @Aspect
 @Order(Ordered.HIGHEST_PRECEDENCE + 7000)
 public class TokenBucketFlowAspect extends AbstractBaseAspect {
+    protected final TokenBucketLeaseRegistry tokenBucketLeaseRegistry = new TokenBucketLeaseRegistry();
+
     public TokenBucketFlowAspect(SlockTemplate slockTemplate) {
         super(slockTemplate);
     }
 
+    public TokenBucketLeaseRegistry getTokenBucketLeaseRegistry() {
+        return tokenBucketLeaseRegistry;
+    }
+
     @Pointcut("@annotation(io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlow)")
     private void TokenBucketFlow() {}
 
@@ -33,40 +43,40 @@ public class TokenBucketFlowAspect extends AbstractBaseAspect {
         Method method = methodSignature.getMethod();
         KeyEvaluate keyEvaluate = keyEvaluateCache.get(method);
         if (keyEvaluate == null) {
-            io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlow tokenBucketFlowAnnotation = methodSignature.getMethod()
-                    .getAnnotation(io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlow.class);
-            if (tokenBucketFlowAnnotation == null) {
-                throw new IllegalArgumentException("unknown TokenBucketFlow annotation");
-            }
-            String templateKey = tokenBucketFlowAnnotation.value();
-            if (isBlank(templateKey)) {
-                templateKey = tokenBucketFlowAnnotation.key();
-                if (isBlank(templateKey)) {
-                    throw new IllegalArgumentException("key is empty");
-                }
-            }
-            keyEvaluate = compileKeyEvaluate(methodSignature.getMethod(), templateKey, ke -> {
-                ke.setTargetParameter(tokenBucketFlowAnnotation);
-                int timeout = tokenBucketFlowAnnotation.timeout() | (tokenBucketFlowAnnotation.timeoutFlag() << 16);
-                double period = tokenBucketFlowAnnotation.period();
-                short count = tokenBucketFlowAnnotation.count();
-                byte databaseId = tokenBucketFlowAnnotation.databaseId();
-                if (databaseId >= 0 && databaseId < 127) {
-                    ke.setTargetInstanceBuilder(key -> slockTemplate.selectDatabase(databaseId)
-                            .newTokenBucketFlow((String) key, count, timeout, period));
-                }
-                ke.setTargetInstanceBuilder(key -> slockTemplate.newTokenBucketFlow((String) key, count, timeout, period));
-                return ke;
-            });
+            keyEvaluate = compileMethodKeyEvaluate(method);
+        }
+        Object key = evaluateKey(keyEvaluate, method, methodJoinPoint.getArgs(), methodJoinPoint.getThis());
+        return execute(joinPoint, method, keyEvaluate, key, joinPoint::proceed);
+    }
+
+    @Override
+    public Object execute(ProceedingJoinPoint joinPoint, Method method, KeyEvaluate keyEvaluate, Object key, Invocation next) throws Throwable {
+        io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlow tokenBucketFlowAnnotation =
+                (io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlow) keyEvaluate.getTargetParameter();
+        CompletableFuture<Boolean> lease = null;
+        if (tokenBucketFlowAnnotation.leaseCount() > 0) {
+            lease = tokenBucketLeaseRegistry.acquire(key, tokenBucketFlowAnnotation.leaseCount(), tokenBucketFlowAnnotation.leaseOvershoot() > 0 ?
+                    tokenBucketFlowAnnotation.leaseOvershoot() : tokenBucketFlowAnnotation.leaseCount(), tokenBucketFlowAnnotation.period(),
+                    () -> newLeaseTokenBucketFlow(tokenBucketFlowAnnotation, key));
+            if (lease.getNow(false)) return next.proceed();
         }
-        String key = keyEvaluate.evaluate(methodSignature.getMethod(), methodJoinPoint.getArgs(), methodJoinPoint.getThis());
         TokenBucketFlow tokenBucketFlow = (TokenBucketFlow) keyEvaluate.buildTargetInstance(key);
+        if (AsyncAspectSupport.isAsyncMethod(method)) {
+            return AsyncAspectSupport.execute(method, new AsyncAspectSupport.TokenBucketFlowPermit(tokenBucketFlow, lease,
+                    tokenBucketFlowAnnotation.timeoutException(), tokenBucketFlowAnnotation.exception()), next, asyncExecutor);
+        }
+        if (lease != null && TokenBucketLeaseRegistry.awaitLease(lease, tokenBucketFlowAnnotation.timeout(), tokenBucketFlowAnnotation.timeUnit())) {
+            return next.proceed();
+        }
         try {
-            tokenBucketFlow.acquire();
-            return joinPoint.proceed();
+            try {
+                tokenBucketFlow.acquire();
+            } catch (LockTimeoutException e) {
+                if (keyEvaluate.getFallbackMethod() != null) return invokeFallbackMethod(keyEvaluate, joinPoint);
+                throw e;
+            }
+            return next.proceed();
         } catch (LockTimeoutException e) {
-            io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlow tokenBucketFlowAnnotation =
-                    (io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlow) keyEvaluate.getTargetParameter();
             if (!tokenBucketFlowAnnotation.timeoutException().isInstance(e)) {
                 throw tokenBucketFlowAnnotation.timeoutException().getConstructor(String.class, Throwable.class)
                         .newInstance(e.getMessage(), e);
@@ -74,8 +84,6 @@ public class TokenBucketFlowAspect extends AbstractBaseAspect {
                 throw e;
             }
         } catch (SlockException e) {
-            io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlow tokenBucketFlowAnnotation =
-                    (io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlow) keyEvaluate.getTargetParameter();
             if (!tokenBucketFlowAnnotation.exception().isInstance(e)) {
                 throw tokenBucketFlowAnnotation.exception().getConstructor(String.class, Throwable.class)
                         .newInstance(e.getMessage(), e);
@@ -84,4 +92,59 @@ public class TokenBucketFlowAspect extends AbstractBaseAspect {
             }
         }
     }
+
+    private TokenBucketFlow newLeaseTokenBucketFlow(io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlow tokenBucketFlowAnnotation, Object key) {
+        byte databaseId = tokenBucketFlowAnnotation.databaseId();
+        if (databaseId >= 0 && databaseId < 127) {
+            return slockTemplate.selectDatabase(databaseId).newTokenBucketFlow((byte[]) key, tokenBucketFlowAnnotation.count(),
+                    0, tokenBucketFlowAnnotation.period());
+        }
+        return slockTemplate.newTokenBucketFlow((byte[]) key, tokenBucketFlowAnnotation.count(), 0, tokenBucketFlowAnnotation.period());
+    }
+
+    @Override
+    public Class<? extends Annotation> getAnnotationType() {
+        return io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlow.class;
+    }
+
+    @Override
+    protected String getTemplateKey(Annotation annotation) {
+        io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlow tokenBucketFlowAnnotation =
+                (io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlow) annotation;
+        if (tokenBucketFlowAnnotation == null) {
+            throw new IllegalArgumentException("unknown TokenBucketFlow annotation");
+        }
+        String templateKey = tokenBucketFlowAnnotation.value();
+        if (isBlank(templateKey)) {
+            templateKey = tokenBucketFlowAnnotation.key();
+            if (isBlank(templateKey)) {
+                throw new IllegalArgumentException("key is empty");
+            }
+        }
+        return templateKey;
+    }
+
+    @Override
+    protected String getFallback(Annotation annotation) {
+        return ((io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlow) annotation).fallback();
+    }
+
+    @Override
+    protected KeyEvaluate configureKeyEvaluate(Annotation annotation, KeyEvaluate keyEvaluate) {
+        io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlow tokenBucketFlowAnnotation =
+                (io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlow) annotation;
+        keyEvaluate.setTargetParameter(tokenBucketFlowAnnotation);
+        keyEvaluate.setKeyEncoding(resolveKeyEncoding(tokenBucketFlowAnnotation.keyEncoding()));
+        int timeout = encodeTimeout(tokenBucketFlowAnnotation.timeout(), tokenBucketFlowAnnotation.timeoutFlag(), tokenBucketFlowAnnotation.timeUnit());
+        double period = tokenBucketFlowAnnotation.period();
+        short count = tokenBucketFlowAnnotation.count();
+        byte databaseId = tokenBucketFlowAnnotation.databaseId();
+        if (databaseId >= 0 && databaseId < 127) {
+            keyEvaluate.setTargetInstanceBuilder(key -> slockTemplate.selectDatabase(databaseId)
+                    .newTokenBucketFlow((byte[]) key, count, timeout, period));
+        } else {
+            keyEvaluate.setTargetInstanceBuilder(key -> slockTemplate.newTokenBucketFlow((byte[]) key, count, timeout, period));
+        }
+        return keyEvaluate;
+    }
 }
@@ -4,7 +4,9 @@ import io.github.snower.jaslock.TokenBucketFlow;
 import io.github.snower.jaslock.exceptions.LockTimeoutException;
 import io.github.snower.jaslock.exceptions.SlockException;
 import io.github.snower.jaslock.spring.boot.AbstractMultiBaseAspect;
+import io.github.snower.jaslock.spring.boot.AsyncAspectSupport;
 import io.github.snower.jaslock.spring.boot.SlockTemplate;
+import io.github.snower.jaslock.spring.boot.TokenBucketLeaseRegistry;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
@@ -16,14 +18,21 @@ import org.springframework.core.annotation.Order;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
 
 @Aspect
 @Order(Ordered.HIGHEST_PRECEDENCE + 7000)
 public class TokenBucketFlowsAspect extends AbstractMultiBaseAspect {
+    protected final TokenBucketLeaseRegistry tokenBucketLeaseRegistry = new TokenBucketLeaseRegistry();
+
     public TokenBucketFlowsAspect(SlockTemplate slockTemplate) {
         super(slockTemplate);
     }
 
+    public TokenBucketLeaseRegistry getTokenBucketLeaseRegistry() {
+        return tokenBucketLeaseRegistry;
+    }
+
     @Pointcut("@annotation(io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlows)")
     private void TokenBucketFlows() {}
 
@@ -34,21 +43,29 @@ public class TokenBucketFlowsAspect extends AbstractMultiBaseAspect {
         Method method = methodSignature.getMethod();
         AbstractMultiBaseAspect.MultiEvaluates keyEvaluate = (AbstractMultiBaseAspect.MultiEvaluates) keyEvaluateCache.get(method);
         if (keyEvaluate == null) {
-            io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlows tokenBucketFlowAnnotations =
-                    method.getAnnotation(io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlows.class);
-            if (tokenBucketFlowAnnotations == null || tokenBucketFlowAnnotations.value() == null || tokenBucketFlowAnnotations.value().length == 0) {
-                throw new IllegalArgumentException("TokenBucketFlows is empty");
-            }
-            keyEvaluate = compileKeyEvaluates(method, tokenBucketFlowAnnotations.value());
+            keyEvaluate = (AbstractMultiBaseAspect.MultiEvaluates) compileMethodKeyEvaluate(method);
         }
-        Object[] args = methodJoinPoint.getArgs();
-        Object target = methodJoinPoint.getThis();
-        KeyEvaluate[] keyEvaluates = keyEvaluate.getKeyEvaluates();
-        String[] keys = new String[keyEvaluates.length];
-        for (int i = 0; i < keyEvaluates.length; i++) {
-            keys[i] = keyEvaluates[i].evaluate(method, args, target);
+        Object[] keys = evaluateKeys(keyEvaluate, method, methodJoinPoint.getArgs(), methodJoinPoint.getThis());
+        return proceed(joinPoint, method, keyEvaluate.getKeyEvaluates(), keys, 0);
+    }
+
+    private TokenBucketFlow newLeaseTokenBucketFlow(io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlow tokenBucketFlowAnnotation, Object key) {
+        byte databaseId = tokenBucketFlowAnnotation.databaseId();
+        if (databaseId >= 0 && databaseId < 127) {
+            return slockTemplate.selectDatabase(databaseId).newTokenBucketFlow((byte[]) key, tokenBucketFlowAnnotation.count(),
+                    0, tokenBucketFlowAnnotation.period());
         }
-        return proceed(joinPoint, keyEvaluates, keys, 0);
+        return slockTemplate.newTokenBucketFlow((byte[]) key, tokenBucketFlowAnnotation.count(), 0, tokenBucketFlowAnnotation.period());
+    }
+
+    @Override
+    public Class<? extends Annotation> getAnnotationType() {
+        return io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlows.class;
+    }
+
+    @Override
+    protected Annotation[] getAnnotations(Annotation annotation) {
+        return annotation == null ? null : ((io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlows) annotation).value();
     }
 
     @Override
@@ -68,34 +85,58 @@ public class TokenBucketFlowsAspect extends AbstractMultiBaseAspect {
         return templateKey;
     }
 
+    @Override
+    protected String getFallback(Annotation annotation) {
+        return ((io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlow) annotation).fallback();
+    }
+
     @Override
     protected KeyEvaluate configureKeyEvaluate(Annotation annotation, KeyEvaluate keyEvaluate) {
         io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlow tokenBucketFlowAnnotation =
                 (io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlow) annotation;
         keyEvaluate.setTargetParameter(tokenBucketFlowAnnotation);
-        int timeout = tokenBucketFlowAnnotation.timeout() | (tokenBucketFlowAnnotation.timeoutFlag() << 16);
+        keyEvaluate.setKeyEncoding(resolveKeyEncoding(tokenBucketFlowAnnotation.keyEncoding()));
+        int timeout = encodeTimeout(tokenBucketFlowAnnotation.timeout(), tokenBucketFlowAnnotation.timeoutFlag(), tokenBucketFlowAnnotation.timeUnit());
         double period = tokenBucketFlowAnnotation.period();
         short count = tokenBucketFlowAnnotation.count();
         byte databaseId = tokenBucketFlowAnnotation.databaseId();
         if (databaseId >= 0 && databaseId < 127) {
             keyEvaluate.setTargetInstanceBuilder(key -> slockTemplate.selectDatabase(databaseId)
-                    .newTokenBucketFlow((String) key, count, timeout, period));
+                    .newTokenBucketFlow((byte[]) key, count, timeout, period));
+        } else {
+            keyEvaluate.setTargetInstanceBuilder(key -> slockTemplate.newTokenBucketFlow((byte[]) key, count, timeout, period));
         }
-        keyEvaluate.setTargetInstanceBuilder(key -> slockTemplate.newTokenBucketFlow((String) key, count, timeout, period));
         return keyEvaluate;
     }
 
     @Override
-    protected Object execute(ProceedingJoinPoint joinPoint, KeyEvaluate[] keyEvaluates, String[] keys, int index) throws Throwable {
-        KeyEvaluate keyEvaluate = keyEvaluates[index];
-        String key = keys[index];
+    public Object execute(ProceedingJoinPoint joinPoint, Method method, KeyEvaluate keyEvaluate, Object key, Invocation next) throws Throwable {
+        io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlow tokenBucketFlowAnnotation =
+                (io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlow) keyEvaluate.getTargetParameter();
+        CompletableFuture<Boolean> lease = null;
+        if (tokenBucketFlowAnnotation.leaseCount() > 0) {
+            lease = tokenBucketLeaseRegistry.acquire(key, tokenBucketFlowAnnotation.leaseCount(), tokenBucketFlowAnnotation.leaseOvershoot() > 0 ?
+                    tokenBucketFlowAnnotation.leaseOvershoot() : tokenBucketFlowAnnotation.leaseCount(), tokenBucketFlowAnnotation.period(),
+                    () -> newLeaseTokenBucketFlow(tokenBucketFlowAnnotation, key));
+            if (lease.getNow(false)) return next.proceed();
+        }
         TokenBucketFlow tokenBucketFlow = (TokenBucketFlow) keyEvaluate.buildTargetInstance(key);
+        if (AsyncAspectSupport.isAsyncMethod(method)) {
+            return AsyncAspectSupport.execute(method, new AsyncAspectSupport.TokenBucketFlowPermit(tokenBucketFlow, lease,
+                    tokenBucketFlowAnnotation.timeoutException(), tokenBucketFlowAnnotation.exception()), next, asyncExecutor);
+        }
+        if (lease != null && TokenBucketLeaseRegistry.awaitLease(lease, tokenBucketFlowAnnotation.timeout(), tokenBucketFlowAnnotation.timeUnit())) {
+            return next.proceed();
+        }
         try {
-            tokenBucketFlow.acquire();
-            return proceed(joinPoint, keyEvaluates, keys, index + 1);
+            try {
+                tokenBucketFlow.acquire();
+            } catch (LockTimeoutException e) {
+                if (keyEvaluate.getFallbackMethod() != null) return invokeFallbackMethod(keyEvaluate, joinPoint);
+                throw e;
+            }
+            return next.proceed();
         } catch (LockTimeoutException e) {
-            io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlow tokenBucketFlowAnnotation =
-                    (io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlow) keyEvaluate.getTargetParameter();
             if (!tokenBucketFlowAnnotation.timeoutException().isInstance(e)) {
                 throw tokenBucketFlowAnnotation.timeoutException().getConstructor(String.class, Throwable.class)
                         .newInstance(e.getMessage(), e);
@@ -103,8 +144,6 @@ public class TokenBucketFlowsAspect extends AbstractMultiBaseAspect {
                 throw e;
             }
         } catch (SlockException e) {
-            io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlow tokenBucketFlowAnnotation =
-                    (io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlow) keyEvaluate.getTargetParameter();
             if (!tokenBucketFlowAnnotation.exception().isInstance(e)) {
                 throw tokenBucketFlowAnnotation.exception().getConstructor(String.class, Throwable.class)
                         .newInstance(e.getMessage(), e);
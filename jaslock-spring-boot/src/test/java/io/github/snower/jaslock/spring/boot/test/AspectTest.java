@@ -1,18 +1,62 @@
 package io.github.snower.jaslock.spring.boot.test;
 
+import io.github.snower.jaslock.callback.CallbackCommandResult;
+import io.github.snower.jaslock.commands.ICommand;
+import io.github.snower.jaslock.exceptions.LockTimeoutException;
 import io.github.snower.jaslock.spring.boot.AbstractBaseAspect;
+import io.github.snower.jaslock.spring.boot.AbstractMultiBaseAspect;
+import io.github.snower.jaslock.spring.boot.AdaptiveConcurrencyLimiter;
+import io.github.snower.jaslock.spring.boot.AdaptiveLimiterRegistry;
+import io.github.snower.jaslock.spring.boot.AsyncAspectSupport;
+import io.github.snower.jaslock.spring.boot.FallbackMethod;
+import io.github.snower.jaslock.spring.boot.HeldLockKeys;
+import io.github.snower.jaslock.spring.boot.IdempotentResultCache;
+import io.github.snower.jaslock.spring.boot.JacksonSerializater;
+import io.github.snower.jaslock.spring.boot.KeyBuffer;
+import io.github.snower.jaslock.spring.boot.LocalLockRegistry;
+import io.github.snower.jaslock.spring.boot.LockRenewalWatchdog;
 import io.github.snower.jaslock.spring.boot.SlockTemplate;
+import io.github.snower.jaslock.spring.boot.TimeEncoding;
+import io.github.snower.jaslock.spring.boot.TokenBucketLeaseRegistry;
+import io.github.snower.jaslock.spring.boot.TransactionLockRegistry;
+import io.github.snower.jaslock.spring.boot.annotations.Idempotent;
+import io.github.snower.jaslock.spring.boot.annotations.KeyEncoding;
+import io.github.snower.jaslock.spring.boot.annotations.Lock;
+import io.github.snower.jaslock.spring.boot.annotations.Locks;
+import io.github.snower.jaslock.spring.boot.annotations.MaxConcurrentFlow;
+import io.github.snower.jaslock.spring.boot.annotations.TokenBucketFlow;
+import io.github.snower.jaslock.spring.boot.aspects.IdempotentAspect;
+import io.github.snower.jaslock.spring.boot.aspects.LockAspect;
+import io.github.snower.jaslock.spring.boot.aspects.LocksAspect;
+import io.github.snower.jaslock.spring.boot.aspects.MaxConcurrentFlowAspect;
+import io.github.snower.jaslock.spring.boot.aspects.SlockAnnotationsAspect;
+import io.github.snower.jaslock.spring.boot.aspects.SlockAspectPrecompiler;
+import io.github.snower.jaslock.spring.boot.aspects.TokenBucketFlowAspect;
+import org.aspectj.lang.ProceedingJoinPoint;
 import org.junit.Assert;
 import org.junit.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.expression.spel.SpelCompilerMode;
 import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 public class AspectTest {
     @Test
@@ -112,6 +156,31 @@ public class AspectTest {
 
     }
 
+    @Test
+    public void testCompileAndEvaluateSPELKeyModes() throws NoSuchMethodException {
+        KeyEvaluateBenchmarkTest.BenchmarkAspect compiledAspect = new KeyEvaluateBenchmarkTest.BenchmarkAspect(null, SpelCompilerMode.IMMEDIATE);
+        KeyEvaluateBenchmarkTest.BenchmarkAspect interpretedAspect = new KeyEvaluateBenchmarkTest.BenchmarkAspect(null, SpelCompilerMode.OFF);
+
+        TestClass t = new TestClass();
+        Method m = t.getClass().getMethod("process", int.class, String.class, LocalDateTime.class, TestDto.class);
+        Object[] args = new Object[]{1, "a", null, new TestDto("b", 2, null)};
+
+        AbstractBaseAspect.KeyEvaluate valueGetterKeyEvaluate = compiledAspect.compileKeyEvaluate(m, "order_{arg3.age}_{arg1}");
+        AbstractBaseAspect.KeyEvaluate compiledKeyEvaluate = compiledAspect.compileKeyEvaluate(m, "order_#{#p3.age}_#{#p1}");
+        AbstractBaseAspect.KeyEvaluate interpretedKeyEvaluate = interpretedAspect.compileKeyEvaluate(m, "order_#{#p3.age}_#{#p1}");
+        Assert.assertEquals(AbstractBaseAspect.SPELKeyEvaluate.class, compiledKeyEvaluate.getClass());
+        Assert.assertEquals(AbstractBaseAspect.SPELKeyEvaluate.class, interpretedKeyEvaluate.getClass());
+
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals("order_2_a", valueGetterKeyEvaluate.evaluate(m, args, t));
+            Assert.assertEquals("order_2_a", compiledKeyEvaluate.evaluate(m, args, t));
+            Assert.assertEquals("order_2_a", interpretedKeyEvaluate.evaluate(m, args, t));
+        }
+        Object[] otherArgs = new Object[]{1, "c", null, new TestDto("d", 4, null)};
+        Assert.assertEquals("order_4_c", compiledKeyEvaluate.evaluate(m, otherArgs, t));
+        Assert.assertEquals("order_4_c", interpretedKeyEvaluate.evaluate(m, otherArgs, t));
+    }
+
     @Test
     public void testCompileAndEvaluateKeyMap() throws NoSuchMethodException {
         TestAspect testAspect = new TestAspect(null);
@@ -195,6 +264,986 @@ public class AspectTest {
         Assert.assertNotEquals("null", testAspect.compileKeyEvaluate(m, "{arg0.valueDto.date}").evaluate(m, args, t));
     }
 
+    @Test
+    public void testCompileFieldGetter() throws NoSuchMethodException, NoSuchFieldException {
+        TestDto testDto = new TestDto("a", 1, null);
+        AbstractBaseAspect.IFieldGetter methodGetter = AbstractBaseAspect.compileFieldGetter(TestDto.class.getMethod("getAge"));
+        Assert.assertFalse(methodGetter instanceof AbstractBaseAspect.MethodFieldGetter);
+        Assert.assertFalse(methodGetter instanceof AbstractBaseAspect.MethodHandleFieldGetter);
+        Assert.assertEquals(1, methodGetter.getValue(testDto));
+        Assert.assertEquals("a", AbstractBaseAspect.compileFieldGetter(TestDto.class.getMethod("getName")).getValue(testDto));
+
+        AbstractBaseAspect.IFieldGetter fieldGetter = AbstractBaseAspect.compileFieldGetter(TestDto.class.getField("name"));
+        Assert.assertEquals(AbstractBaseAspect.MethodHandleFieldGetter.class, fieldGetter.getClass());
+        Assert.assertEquals("a", fieldGetter.getValue(testDto));
+
+        AbstractBaseAspect.IFieldGetter privateGetter = AbstractBaseAspect.compileFieldGetter(PrivateDto.class.getDeclaredMethod("getId"));
+        Assert.assertEquals(AbstractBaseAspect.MethodHandleFieldGetter.class, privateGetter.getClass());
+        Assert.assertEquals(10L, privateGetter.getValue(new PrivateDto()));
+    }
+
+    @Test
+    public void testCompileAndEvaluateKeyFallback() throws NoSuchMethodException {
+        TestAspect compiledAspect = new TestAspect(null);
+        TestAspect reflectAspect = new TestAspect(null);
+        reflectAspect.setCompileKeyEvaluate(false);
+
+        TestClass t = new TestClass();
+        Method m = t.getClass().getMethod("process3", TestDto.class, FieldDto.class);
+        Map<String, Object> map = new HashMap<>();
+        map.put("age", 1);
+        Object[] args = new Object[]{new TestDto("a", 1, new ValueDto("b", 2, new ValueDto("c", 3, null, map), map)),
+                new FieldDto("f", new ValueDto("d", 4, null, map))};
+        String[] templateKeys = new String[]{"{arg0.name}", "{arg0.valueDto.valueDto.age}", "{arg0.valueDto.map.age}",
+                "t_{arg1.name}_{arg1.valueDto.age}_{arg1.valueDto.map.age}", "{arg1.valueDto.valueDto.age:none}",
+                "{arg0.error:e}"};
+        String[] values = new String[]{"a", "3", "1", "t_f_4_1", "none", "e"};
+        for (int i = 0; i < templateKeys.length; i++) {
+            Assert.assertEquals(values[i], compiledAspect.compileKeyEvaluate(m, templateKeys[i]).evaluate(m, args, t));
+            Assert.assertEquals(values[i], reflectAspect.compileKeyEvaluate(m, templateKeys[i]).evaluate(m, args, t));
+        }
+
+        Object[] nullArgs = new Object[]{null, new FieldDto(null, null)};
+        Assert.assertEquals("null", compiledAspect.compileKeyEvaluate(m, "{arg0.name}").evaluate(m, nullArgs, t));
+        Assert.assertEquals("n", compiledAspect.compileKeyEvaluate(m, "{arg1.name:n}").evaluate(m, nullArgs, t));
+        Assert.assertEquals("n", compiledAspect.compileKeyEvaluate(m, "{arg1.valueDto.name:n}").evaluate(m, nullArgs, t));
+        Assert.assertEquals("n", reflectAspect.compileKeyEvaluate(m, "{arg1.valueDto.name:n}").evaluate(m, nullArgs, t));
+    }
+
+    @Test
+    public void testEvaluateKeyBytes() throws NoSuchMethodException {
+        TestAspect compiledAspect = new TestAspect(null);
+        TestAspect reflectAspect = new TestAspect(null);
+        reflectAspect.setCompileKeyEvaluate(false);
+
+        TestClass t = new TestClass();
+        Method m = t.getClass().getMethod("process", int.class, String.class, LocalDateTime.class, TestDto.class);
+        Map<String, Object> map = new HashMap<>();
+        map.put("age", -12L);
+        Object[] args = new Object[]{-2147483648, "\u9501\uD83D\uDE00a", null, new TestDto("\u540d\u5b57", 1, new ValueDto("b", 2, null, map))};
+        String[] templateKeys = new String[]{"", "test", "{arg0}", "{arg1}", "t_{arg0}_{arg1}_{arg2}_{arg2:d}",
+                "t_{arg3.name}_{arg3.age}_{arg3.valueDto.age}_{arg3.valueDto.map.age}_{arg3.valueDto.valueDto.age:n}",
+                "aaa_#{#p0}_#{#p1}"};
+        for (String templateKey : templateKeys) {
+            for (TestAspect testAspect : new TestAspect[]{compiledAspect, reflectAspect}) {
+                AbstractBaseAspect.KeyEvaluate keyEvaluate = testAspect.compileKeyEvaluate(m, templateKey);
+                Assert.assertArrayEquals(keyEvaluate.evaluate(m, args, t).getBytes(StandardCharsets.UTF_8),
+                        keyEvaluate.evaluateBytes(m, args, t));
+            }
+        }
+    }
+
+    @Test
+    public void testKeyBuffer() {
+        KeyBuffer keyBuffer = KeyBuffer.acquire();
+        try {
+            long[] values = new long[]{0, 1, -1, 9, 10, 99, 100, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE};
+            for (long value : values) {
+                Assert.assertArrayEquals(String.valueOf(value).getBytes(StandardCharsets.UTF_8), keyBuffer.reset().writeLong(value).toByteArray());
+            }
+            StringBuilder longValue = new StringBuilder();
+            for (int i = 0; i < 100; i++) {
+                longValue.append("key_\u00e9_\u9501_").append(i);
+            }
+            Assert.assertArrayEquals(longValue.toString().getBytes(StandardCharsets.UTF_8),
+                    keyBuffer.reset().writeString(longValue.toString()).toByteArray());
+            KeyBuffer nestedKeyBuffer = KeyBuffer.acquire();
+            Assert.assertNotSame(keyBuffer, nestedKeyBuffer);
+            nestedKeyBuffer.release();
+        } finally {
+            keyBuffer.release();
+        }
+    }
+
+    @Test
+    public void testEvaluateKeyHash128() throws NoSuchMethodException {
+        TestAspect testAspect = new TestAspect(null);
+
+        TestClass t = new TestClass();
+        Method m = t.getClass().getMethod("process", int.class, String.class, LocalDateTime.class, TestDto.class);
+        Object[] args = new Object[]{12345, "a", null, new TestDto("b", 1, null)};
+        String[] templateKeys = new String[]{"docking_cloud_polling_submit_task_result_12345",
+                "{arg0}", "docking_cloud_polling_submit_task_result_{arg0}", "docking_cloud_polling_submit_task_result_#{#p0}"};
+        for (String templateKey : templateKeys) {
+            AbstractBaseAspect.KeyEvaluate keyEvaluate = testAspect.compileKeyEvaluate(m, templateKey);
+            keyEvaluate.setKeyEncoding(KeyEncoding.HASH128);
+            byte[] key = keyEvaluate.evaluate(m, args, t).getBytes(StandardCharsets.UTF_8);
+            byte[] hashKey = keyEvaluate.evaluateBytes(m, args, t);
+            Assert.assertEquals(16, hashKey.length);
+            Assert.assertArrayEquals(KeyBuffer.hash128(key, 0, key.length), hashKey);
+        }
+
+        AbstractBaseAspect.KeyEvaluate keyEvaluate = testAspect.compileKeyEvaluate(m, "docking_cloud_polling_submit_task_result_{arg0}");
+        keyEvaluate.setKeyEncoding(KeyEncoding.HASH128);
+        StringBuilder hex = new StringBuilder();
+        for (byte b : keyEvaluate.evaluateBytes(m, args, t)) {
+            hex.append(String.format("%02x", b));
+        }
+        Assert.assertEquals("e813d4e7620cc117395a19fd6ac43db5", hex.toString());
+        Assert.assertArrayEquals(new byte[16], KeyBuffer.hash128(new byte[0], 0, 0));
+        Assert.assertEquals(KeyEncoding.HASH128, new TestAspect(null) {{
+            setKeyEncoding(KeyEncoding.HASH128);
+        }}.resolveKeyEncoding(KeyEncoding.DEFAULT));
+    }
+
+    @Test
+    public void testPrecompileAspects() throws NoSuchMethodException {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        TestLockAspect lockAspect = new TestLockAspect();
+        lockAspect.setBeanFactory(beanFactory);
+        LocksAspect locksAspect = new LocksAspect(null);
+        locksAspect.setBeanFactory(beanFactory);
+        beanFactory.registerSingleton("lockAspect", lockAspect);
+        beanFactory.registerSingleton("locksAspect", locksAspect);
+        beanFactory.registerSingleton("lockedService", new LockedService());
+
+        SlockAspectPrecompiler precompiler = new SlockAspectPrecompiler();
+        precompiler.setBeanFactory(beanFactory);
+        precompiler.afterSingletonsInstantiated();
+        Method m = LockedService.class.getMethod("process", String.class);
+        Assert.assertNotNull(lockAspect.getKeyEvaluateCache().get(m));
+        Assert.assertSame(lockAspect.getKeyEvaluateCache().get(m), lockAspect.compileMethodKeyEvaluate(m));
+        Assert.assertEquals(1, lockAspect.getKeyEvaluateCache().size());
+        Assert.assertEquals(2, ((AbstractMultiBaseAspect.MultiEvaluates) locksAspect.compileMethodKeyEvaluate(
+                LockedService.class.getMethod("processAll", String.class, int.class))).getKeyEvaluates().length);
+
+        beanFactory.registerSingleton("invalidLockedService", new InvalidLockedService());
+        Assert.assertThrows(IllegalStateException.class, precompiler::afterSingletonsInstantiated);
+    }
+
+    @Test
+    public void testFuseAspects() throws Throwable {
+        List<String> executions = new ArrayList<>();
+        SlockAnnotationsAspect aspect = new SlockAnnotationsAspect(null, Arrays.asList(new RecordingLockAspect(executions),
+                new RecordingTokenBucketFlowAspect(executions), new RecordingMaxConcurrentFlowAspect(executions)));
+        aspect.setBeanFactory(new DefaultListableBeanFactory());
+        Method m = FusedService.class.getMethod("process", String.class, int.class);
+        Assert.assertTrue(aspect.isAnnotated(m));
+        Assert.assertFalse(aspect.isAnnotated(TestClass.class.getMethod("process2", Map.class)));
+
+        SlockAnnotationsAspect.ExecutionPlan executionPlan = (SlockAnnotationsAspect.ExecutionPlan) aspect.compileMethodKeyEvaluate(m);
+        Assert.assertEquals(3, executionPlan.getAspects().length);
+        Assert.assertEquals(2, executionPlan.getKeyCount());
+        Assert.assertArrayEquals(new int[]{0, 1, 1}, executionPlan.getKeyIndexes());
+
+        Object[] keys = executionPlan.evaluateKeys(m, new Object[]{"a", 1}, null);
+        ProceedingJoinPoint joinPoint = (ProceedingJoinPoint) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ProceedingJoinPoint.class}, (proxy, method, args) -> {
+                    executions.add("proceed");
+                    return "result";
+                });
+        Assert.assertEquals("result", executionPlan.proceed(joinPoint, m, keys, 0));
+        Assert.assertEquals(Arrays.asList("TokenBucketFlowAspect:user_1", "MaxConcurrentFlowAspect:order_a",
+                "LockAspect:order_a", "proceed"), executions);
+    }
+
+    @Test
+    public void testAsyncAspectSupport() throws Throwable {
+        Assert.assertTrue(AsyncAspectSupport.isAsyncReturnType(CompletableFuture.class));
+        Assert.assertTrue(AsyncAspectSupport.isAsyncReturnType(CompletionStage.class));
+        Assert.assertFalse(AsyncAspectSupport.isAsyncReturnType(String.class));
+
+        List<String> executions = new ArrayList<>();
+        RecordingPermit permit = new RecordingPermit(executions);
+        CompletableFuture<String> result = new CompletableFuture<>();
+        CompletableFuture<Object> future = AsyncAspectSupport.executeFuture(permit, () -> {
+            executions.add("proceed");
+            return result;
+        });
+        Assert.assertEquals(Arrays.asList("acquire", "proceed"), executions);
+        Assert.assertFalse(future.isDone());
+        result.complete("result");
+        Assert.assertEquals("result", future.get());
+        Assert.assertEquals(Arrays.asList("acquire", "proceed", "release:result:null"), executions);
+
+        executions.clear();
+        CompletableFuture<String> errorResult = new CompletableFuture<>();
+        future = AsyncAspectSupport.executeFuture(permit, () -> errorResult);
+        errorResult.completeExceptionally(new CompletionException(new IllegalStateException("error")));
+        Assert.assertTrue(future.isCompletedExceptionally());
+        Assert.assertEquals(Arrays.asList("acquire", "release:null:IllegalStateException"), executions);
+
+        executions.clear();
+        List<Runnable> tasks = new ArrayList<>();
+        future = AsyncAspectSupport.executeFuture(permit, () -> {
+            executions.add("proceed");
+            return "result";
+        }, tasks::add);
+        Assert.assertEquals(Collections.singletonList("acquire"), executions);
+        Assert.assertEquals(1, tasks.size());
+        tasks.get(0).run();
+        Assert.assertEquals("result", future.get());
+        Assert.assertEquals(Arrays.asList("acquire", "proceed", "release:result:null"), executions);
+
+        executions.clear();
+        future = AsyncAspectSupport.executeFuture(permit, () -> "result", task -> {
+            throw new RejectedExecutionException("rejected");
+        });
+        Assert.assertTrue(future.isCompletedExceptionally());
+        Assert.assertEquals(Arrays.asList("acquire", "release:null:RejectedExecutionException"), executions);
+
+        IllegalStateException error = new IllegalStateException("error");
+        Assert.assertSame(error, AbstractBaseAspect.translateException(error, IllegalStateException.class, IllegalArgumentException.class));
+    }
+
+    @Test
+    public void testLocalLockRegistry() throws Throwable {
+        LocalLockRegistry registry = new LocalLockRegistry();
+        LocalLockRegistry.LocalLock localLock = registry.acquire("stock_1".getBytes(StandardCharsets.UTF_8), 1, TimeUnit.SECONDS);
+        Assert.assertNotNull(localLock);
+        Assert.assertEquals(1, registry.size());
+
+        AtomicReference<LocalLockRegistry.LocalLock> waited = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            try {
+                Assert.assertNull(registry.acquire("stock_1".getBytes(StandardCharsets.UTF_8), 10, TimeUnit.MILLISECONDS));
+                waited.set(registry.acquire("stock_1".getBytes(StandardCharsets.UTF_8), 5, TimeUnit.SECONDS));
+                registry.release(waited.get());
+            } catch (InterruptedException ignored) {
+            }
+        });
+        thread.start();
+        Thread.sleep(100);
+        Assert.assertNull(waited.get());
+        registry.release(localLock);
+        thread.join(5000);
+        Assert.assertSame(localLock.getKey(), waited.get().getKey());
+        Assert.assertEquals(0, registry.size());
+    }
+
+    @Test
+    public void testLocalQueueTimeout() throws Throwable {
+        TestLockAspect lockAspect = new TestLockAspect();
+        lockAspect.setBeanFactory(new DefaultListableBeanFactory());
+        LocalLockRegistry registry = new LocalLockRegistry();
+        lockAspect.setLocalLockRegistry(registry);
+        LocalQueueService service = new LocalQueueService();
+        Method m = LocalQueueService.class.getMethod("process", String.class);
+        AbstractBaseAspect.KeyEvaluate keyEvaluate = lockAspect.compileMethodKeyEvaluate(m);
+        Object key = lockAspect.evaluateKey(keyEvaluate, m, new Object[]{"a"}, service);
+        ProceedingJoinPoint joinPoint = (ProceedingJoinPoint) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ProceedingJoinPoint.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("getTarget")) return service;
+                    if (method.getName().equals("getArgs")) return new Object[]{"a"};
+                    return null;
+                });
+
+        LocalLockRegistry.LocalLock localLock = registry.acquire(key, 1, TimeUnit.SECONDS);
+        try {
+            CompletableFuture<Object> result = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return lockAspect.execute(joinPoint, m, keyEvaluate, key, () -> "proceed");
+                } catch (Throwable e) {
+                    throw new CompletionException(e);
+                }
+            });
+            Assert.assertEquals("a:fallback", result.get());
+
+            Method m2 = LocalQueueService.class.getMethod("processWithoutFallback", String.class);
+            AbstractBaseAspect.KeyEvaluate keyEvaluate2 = lockAspect.compileMethodKeyEvaluate(m2);
+            result = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return lockAspect.execute(joinPoint, m2, keyEvaluate2, key, () -> "proceed");
+                } catch (Throwable e) {
+                    throw new CompletionException(e);
+                }
+            });
+            try {
+                result.get();
+                Assert.fail();
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof LockTimeoutException);
+            }
+        } finally {
+            registry.release(localLock);
+        }
+        Assert.assertEquals(0, registry.size());
+    }
+
+    @Test
+    public void testHeldLockKeys() throws InterruptedException {
+        HeldLockKeys heldLockKeys = HeldLockKeys.current();
+        Assert.assertSame(heldLockKeys, HeldLockKeys.current());
+        for (int i = 0; i < 6; i++) {
+            heldLockKeys.push((byte) -1, ("order_" + i).getBytes(StandardCharsets.UTF_8));
+        }
+        Assert.assertTrue(heldLockKeys.contains((byte) -1, "order_0".getBytes(StandardCharsets.UTF_8)));
+        Assert.assertTrue(heldLockKeys.contains((byte) -1, "order_5".getBytes(StandardCharsets.UTF_8)));
+        Assert.assertFalse(heldLockKeys.contains((byte) 1, "order_5".getBytes(StandardCharsets.UTF_8)));
+        Assert.assertFalse(heldLockKeys.contains((byte) -1, "order_6".getBytes(StandardCharsets.UTF_8)));
+
+        AtomicReference<Boolean> otherThreadContains = new AtomicReference<>();
+        Thread thread = new Thread(() -> otherThreadContains.set(HeldLockKeys.current()
+                .contains((byte) -1, "order_0".getBytes(StandardCharsets.UTF_8))));
+        thread.start();
+        thread.join();
+        Assert.assertFalse(otherThreadContains.get());
+
+        for (int i = 0; i < 6; i++) {
+            heldLockKeys.pop();
+        }
+        Assert.assertEquals(0, heldLockKeys.size());
+        Assert.assertFalse(heldLockKeys.contains((byte) -1, "order_0".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testAdaptiveConcurrencyLimiter() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 1, 4, 0.9, 2.0, 2);
+        Assert.assertEquals(4, limiter.getLimit());
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(limiter.acquire(0, TimeUnit.MILLISECONDS));
+        }
+        Assert.assertFalse(limiter.acquire(10, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(1, limiter.getRejectedCount());
+        Assert.assertEquals(4, limiter.getInflight());
+
+        for (int i = 0; i < 4; i++) {
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(10), false);
+        }
+        Assert.assertEquals(4, limiter.getLimit());
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(limiter.acquire(0, TimeUnit.MILLISECONDS));
+        }
+        for (int i = 0; i < 4; i++) {
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(100), false);
+        }
+        Assert.assertEquals(3, limiter.getLimit());
+        for (int i = 0; i < 2; i++) {
+            for (int j = 0; j < 3; j++) {
+                Assert.assertTrue(limiter.acquire(0, TimeUnit.MILLISECONDS));
+            }
+            for (int j = 0; j < 3; j++) {
+                limiter.release(TimeUnit.MILLISECONDS.toNanos(10), true);
+            }
+        }
+        Assert.assertEquals(2, limiter.getLimit());
+        Assert.assertEquals(6, limiter.getDroppedCount());
+        Assert.assertEquals(0, limiter.getInflight());
+
+        for (int i = 0; i < 100; i++) {
+            Assert.assertTrue(limiter.acquire(0, TimeUnit.MILLISECONDS));
+            Assert.assertTrue(limiter.acquire(0, TimeUnit.MILLISECONDS));
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(10), false);
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(10), false);
+        }
+        Assert.assertEquals(4, limiter.getLimit());
+
+        AdaptiveConcurrencyLimiter bimodalLimiter = new AdaptiveConcurrencyLimiter("bimodal", 10);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertTrue(bimodalLimiter.acquire(0, TimeUnit.MILLISECONDS));
+            Assert.assertTrue(bimodalLimiter.acquire(0, TimeUnit.MILLISECONDS));
+            bimodalLimiter.release(TimeUnit.MILLISECONDS.toNanos(1), false);
+            bimodalLimiter.release(TimeUnit.MILLISECONDS.toNanos(100), false);
+        }
+        Assert.assertEquals(10, bimodalLimiter.getLimit());
+
+        AdaptiveLimiterRegistry registry = new AdaptiveLimiterRegistry();
+        List<String> createdLimiters = new ArrayList<>();
+        registry.addListener(l -> createdLimiters.add(l.getName()));
+        Assert.assertSame(registry.getLimiter("a", () -> new AdaptiveConcurrencyLimiter("a", 2)),
+                registry.getLimiter("a", () -> new AdaptiveConcurrencyLimiter("b", 2)));
+        Assert.assertEquals(Collections.singletonList("a"), createdLimiters);
+    }
+
+    @Test
+    public void testAdaptiveMaxLimit() throws Throwable {
+        TestAdaptiveFlowAspect flowAspect = new TestAdaptiveFlowAspect();
+        flowAspect.setBeanFactory(new DefaultListableBeanFactory());
+        AdaptiveLimiterRegistry registry = new AdaptiveLimiterRegistry();
+        flowAspect.setAdaptiveLimiterRegistry(registry);
+        Method m = AdaptiveFlowService.class.getMethod("process", String.class);
+        AbstractBaseAspect.KeyEvaluate keyEvaluate = flowAspect.compileMethodKeyEvaluate(m);
+        for (String userId : Arrays.asList("a", "b")) {
+            Object key = flowAspect.evaluateKey(keyEvaluate, m, new Object[]{userId}, null);
+            Assert.assertEquals("result", flowAspect.execute(null, m, keyEvaluate, key, () -> "result"));
+        }
+        Assert.assertEquals(1, registry.getLimiters().size());
+        Assert.assertEquals(20, registry.getLimiters().iterator().next().getMaxLimit());
+
+        flowAspect.execute(null, AdaptiveFlowService.class.getMethod("processConst"), flowAspect.compileMethodKeyEvaluate(
+                AdaptiveFlowService.class.getMethod("processConst")), "flow".getBytes(StandardCharsets.UTF_8), () -> "result");
+        Assert.assertEquals(2, registry.getLimiters().size());
+        Assert.assertThrows(IllegalArgumentException.class, () -> flowAspect.compileMethodKeyEvaluate(
+                AdaptiveFlowService.class.getMethod("processWithoutMaxLimit", String.class)));
+    }
+
+    @Test
+    public void testFallbackMethod() throws Throwable {
+        TestLockAspect lockAspect = new TestLockAspect();
+        lockAspect.setBeanFactory(new DefaultListableBeanFactory());
+        Method m = FallbackService.class.getMethod("process", String.class, int.class);
+        AbstractBaseAspect.KeyEvaluate keyEvaluate = lockAspect.compileMethodKeyEvaluate(m);
+        Assert.assertNotNull(keyEvaluate.getFallbackMethod());
+        Assert.assertEquals("a:1:fallback", keyEvaluate.getFallbackMethod().invoke(new FallbackService(), new Object[]{"a", 1}));
+
+        FallbackMethod staticFallbackMethod = new FallbackMethod(m, "staticProcessFallback");
+        Assert.assertEquals("a:static", staticFallbackMethod.invoke(new FallbackService(), new Object[]{"a", 1}));
+        Assert.assertNull(lockAspect.compileMethodKeyEvaluate(LockedService.class.getMethod("process", String.class)).getFallbackMethod());
+
+        AbstractBaseAspect.KeyEvaluate missingKeyEvaluate = lockAspect.compileMethodKeyEvaluate(
+                FallbackService.class.getMethod("processMissingFallback", String.class));
+        Assert.assertThrows(IllegalArgumentException.class, () -> missingKeyEvaluate.getFallbackMethod().validate(FallbackService.class));
+        Assert.assertThrows(IllegalStateException.class, () -> new SlockAspectPrecompiler().precompile(FallbackService.class,
+                Collections.singletonList(lockAspect)));
+        FallbackMethod invalidReturnFallbackMethod = new FallbackMethod(m, "invalidReturnFallback");
+        Assert.assertThrows(IllegalArgumentException.class, () -> invalidReturnFallbackMethod.validate(FallbackService.class));
+        Assert.assertThrows(IllegalArgumentException.class, () -> invalidReturnFallbackMethod.invoke(new FallbackService(), new Object[]{"a", 1}));
+
+        Method baseMethod = BaseFallbackService.class.getMethod("process", String.class);
+        AbstractBaseAspect.KeyEvaluate subclassKeyEvaluate = lockAspect.compileMethodKeyEvaluate(baseMethod);
+        Assert.assertEquals("a:subclass", subclassKeyEvaluate.getFallbackMethod().invoke(new SubclassFallbackService(), new Object[]{"a"}));
+        Assert.assertEquals(1, new SlockAspectPrecompiler().precompile(SubclassFallbackService.class, Collections.singletonList(lockAspect)));
+        Assert.assertThrows(IllegalArgumentException.class, () -> subclassKeyEvaluate.getFallbackMethod().validate(BaseFallbackService.class));
+    }
+
+    @Test
+    public void testAsyncMethodUnsupportedAttributes() throws Throwable {
+        TestLockAspect lockAspect = new TestLockAspect();
+        lockAspect.setBeanFactory(new DefaultListableBeanFactory());
+        Assert.assertNotNull(lockAspect.compileMethodKeyEvaluate(AsyncService.class.getMethod("process", String.class)));
+        for (String name : Arrays.asList("processFallback", "processLocalQueue", "processAutoRenew")) {
+            Assert.assertThrows(IllegalArgumentException.class, () -> lockAspect.compileMethodKeyEvaluate(
+                    AsyncService.class.getMethod(name, String.class)));
+        }
+
+        TestAdaptiveFlowAspect flowAspect = new TestAdaptiveFlowAspect();
+        flowAspect.setBeanFactory(new DefaultListableBeanFactory());
+        Assert.assertThrows(IllegalArgumentException.class, () -> flowAspect.compileMethodKeyEvaluate(
+                AsyncService.class.getMethod("processAdaptive", String.class)));
+    }
+
+    @Test
+    public void testLockRenewalWatchdog() throws InterruptedException {
+        Assert.assertEquals(3333, LockRenewalWatchdog.getRenewalIntervalMillis(10));
+        Assert.assertEquals(100, LockRenewalWatchdog.getRenewalIntervalMillis(300 | (ICommand.EXPRIED_FLAG_MILLISECOND_TIME << 16)));
+
+        LockRenewalWatchdog watchdog = new LockRenewalWatchdog(5, TimeUnit.MILLISECONDS, 8);
+        AtomicInteger renewCount = new AtomicInteger();
+        AtomicInteger cancelledRenewCount = new AtomicInteger();
+        LockRenewalWatchdog.Renewal renewal = watchdog.register(r -> renewCount.incrementAndGet(), 20);
+        LockRenewalWatchdog.Renewal cancelledRenewal = watchdog.register(r -> cancelledRenewCount.incrementAndGet(), 20);
+        cancelledRenewal.cancel();
+        Thread.sleep(300);
+        Assert.assertTrue(renewCount.get() >= 3);
+        Assert.assertEquals(0, cancelledRenewCount.get());
+
+        renewal.cancel();
+        Thread.sleep(50);
+        int count = renewCount.get();
+        Thread.sleep(100);
+        Assert.assertEquals(count, renewCount.get());
+        Assert.assertEquals(0, watchdog.getRenewalCount());
+
+        CountDownLatch renewing = new CountDownLatch(1);
+        AtomicInteger finishedRenewCount = new AtomicInteger();
+        LockRenewalWatchdog.Renewal slowRenewal = watchdog.register(r -> {
+            renewing.countDown();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ignored) {
+            }
+            finishedRenewCount.incrementAndGet();
+        }, 10);
+        Assert.assertTrue(renewing.await(1, TimeUnit.SECONDS));
+        slowRenewal.cancel();
+        Assert.assertEquals(1, finishedRenewCount.get());
+        Assert.assertFalse(slowRenewal.isLost());
+
+        AtomicInteger lostRenewCount = new AtomicInteger();
+        LockRenewalWatchdog.Renewal lostRenewal = watchdog.register(r -> {
+            lostRenewCount.incrementAndGet();
+            r.lost(new LockTimeoutException("lock lost"));
+        }, 10);
+        Thread.sleep(100);
+        Assert.assertEquals(1, lostRenewCount.get());
+        Assert.assertTrue(lostRenewal.isLost());
+        Assert.assertTrue(lostRenewal.isCancelled());
+        watchdog.close();
+        Assert.assertThrows(IllegalStateException.class, () -> watchdog.register(r -> renewCount.incrementAndGet(), 20));
+    }
+
+    @Test
+    public void testIdempotentResultCache() throws InterruptedException {
+        IdempotentResultCache resultCache = new IdempotentResultCache(2, 0);
+        resultCache.put("a", "1", 60000);
+        resultCache.put("b", "2", 60000);
+        Assert.assertEquals("1", resultCache.get("a", String.class));
+        Assert.assertNull(resultCache.get("a", Integer.class));
+        resultCache.put("c", "3", 60000);
+        Assert.assertEquals(2, resultCache.size());
+        Assert.assertNull(resultCache.get("b", String.class));
+        Assert.assertEquals("1", resultCache.get("a", String.class));
+        Assert.assertEquals("3", resultCache.get("c", String.class));
+
+        resultCache.put("d", "4", 0);
+        Assert.assertNull(resultCache.get("d", String.class));
+        resultCache.put("e", "5", 20);
+        Assert.assertEquals("5", resultCache.get("e", String.class));
+        TimeUnit.MILLISECONDS.sleep(50);
+        Assert.assertNull(resultCache.get("e", String.class));
+
+        IdempotentResultCache boundedCache = new IdempotentResultCache(10, 20);
+        boundedCache.put("a", "1", 60000);
+        TimeUnit.MILLISECONDS.sleep(50);
+        Assert.assertNull(boundedCache.get("a", String.class));
+
+        IdempotentResultCache concurrentCache = new IdempotentResultCache(64, 0);
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            int threadIndex = i;
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    concurrentCache.put(threadIndex + "_" + j, "v", 60000);
+                    concurrentCache.get(threadIndex + "_" + (j / 2), String.class);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        concurrentCache.put("last", "v", 60000);
+        Assert.assertTrue(concurrentCache.size() <= 64);
+        Assert.assertEquals("v", concurrentCache.get("last", String.class));
+
+        Assert.assertEquals(300000, IdempotentResultCache.getPersistenceMillis(300, 0));
+        Assert.assertEquals(300, IdempotentResultCache.getPersistenceMillis(300, ICommand.EXPRIED_FLAG_MILLISECOND_TIME));
+        Assert.assertEquals(0, IdempotentResultCache.getPersistenceMillis(0, 0));
+    }
+
+    @Test
+    public void testTimeEncoding() {
+        Assert.assertEquals(5, TimeEncoding.encodeTimeout(5, TimeUnit.SECONDS));
+        Assert.assertEquals(2, TimeEncoding.encodeTimeout(2000, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(500 | (ICommand.TIMEOUT_FLAG_MILLISECOND_TIME << 16), TimeEncoding.encodeTimeout(500, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(1500 | (ICommand.EXPRIED_FLAG_MILLISECOND_TIME << 16), TimeEncoding.encodeExpried(1500, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(1, TimeEncoding.encodeTimeout(500, TimeUnit.MILLISECONDS, false));
+        Assert.assertEquals(2, TimeEncoding.encodeExpried(1500, TimeUnit.MILLISECONDS, false));
+        Assert.assertEquals(70, TimeEncoding.encodeTimeout(69500, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(1 | (ICommand.TIMEOUT_FLAG_MILLISECOND_TIME << 16), TimeEncoding.encodeTimeout(10, TimeUnit.MICROSECONDS));
+        Assert.assertEquals(0, TimeEncoding.encodeTimeout(0, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(120, TimeEncoding.encodeExpried(2, TimeUnit.MINUTES));
+    }
+
+    @Test
+    public void testTransactionLockRegistry() throws Exception {
+        List<String> releasedKeys = new ArrayList<>();
+        Assert.assertNull(TransactionLockRegistry.getCurrent());
+        TransactionLockRegistry registry = TransactionLockRegistry.bind();
+        registry.register("a", newTestLockReleaser("a", releasedKeys));
+        Assert.assertTrue(registry.contains("a"));
+        registry.release("a");
+        Assert.assertEquals(Collections.singletonList("a"), releasedKeys);
+        Assert.assertNull(TransactionLockRegistry.getCurrent());
+
+        releasedKeys.clear();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            registry = TransactionLockRegistry.bind();
+            for (int i = 0; i < 30; i++) {
+                registry.register("k" + i, newTestLockReleaser("k" + i, releasedKeys));
+                registry.release("k" + i);
+            }
+            Assert.assertTrue(releasedKeys.isEmpty());
+            Assert.assertEquals(30, registry.size());
+            Assert.assertSame(registry, TransactionLockRegistry.getCurrent());
+            Assert.assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        Assert.assertEquals(30, releasedKeys.size());
+        Assert.assertEquals("async:k0", releasedKeys.get(0));
+        Assert.assertEquals(0, registry.size());
+        Assert.assertNull(TransactionLockRegistry.getCurrent());
+    }
+
+    private TransactionLockRegistry.LockReleaser newTestLockReleaser(String key, List<String> releasedKeys) {
+        return new TransactionLockRegistry.LockReleaser() {
+            @Override
+            public void release() {
+                releasedKeys.add(key);
+            }
+
+            @Override
+            public void releaseAsync(Consumer<CallbackCommandResult> callback) {
+                releasedKeys.add("async:" + key);
+            }
+        };
+    }
+
+    @Test(timeout = 10000)
+    public void testIdempotentEvaluation() throws Throwable {
+        TestIdempotentAspect idempotentAspect = new TestIdempotentAspect();
+        idempotentAspect.setBeanFactory(new DefaultListableBeanFactory());
+        IdempotentService service = new IdempotentService();
+        Method m = IdempotentService.class.getMethod("process", String.class);
+        AbstractBaseAspect.KeyEvaluate keyEvaluate = idempotentAspect.compileMethodKeyEvaluate(m);
+        Object key = idempotentAspect.evaluateKey(keyEvaluate, m, new Object[]{"a"}, service);
+        Assert.assertEquals("order_a", key);
+
+        AtomicReference<CompletableFuture<Object>> followerResult = new AtomicReference<>();
+        Object result = idempotentAspect.execute(null, m, keyEvaluate, key, () -> {
+            followerResult.set(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return idempotentAspect.execute(null, m, keyEvaluate, key, () -> "follower");
+                } catch (Throwable e) {
+                    throw new CompletionException(e);
+                }
+            }));
+            Thread.sleep(100);
+            return "leader";
+        });
+        Assert.assertEquals("leader", result);
+        Assert.assertEquals("leader", followerResult.get().get());
+        Assert.assertEquals(1, idempotentAspect.executeCount.get());
+
+        try {
+            idempotentAspect.execute(null, m, keyEvaluate, key, () -> {
+                throw new IllegalStateException("failed");
+            });
+            Assert.fail();
+        } catch (IllegalStateException ignored) {
+        }
+        Assert.assertEquals("next", idempotentAspect.execute(null, m, keyEvaluate, key, () -> "next"));
+        Assert.assertEquals(3, idempotentAspect.executeCount.get());
+
+        result = idempotentAspect.execute(null, m, keyEvaluate, key,
+                () -> "outer:" + idempotentAspect.execute(null, m, keyEvaluate, key, () -> "inner"));
+        Assert.assertEquals("outer:inner", result);
+        Assert.assertEquals(5, idempotentAspect.executeCount.get());
+    }
+
+    @Test
+    public void testTokenBucketLeaseRegistry() {
+        TokenBucketLeaseRegistry registry = new TokenBucketLeaseRegistry();
+        int[] builds = new int[]{0};
+        Assert.assertFalse(registry.tryAcquire("user_1".getBytes(StandardCharsets.UTF_8), 8, 1, () -> {
+            builds[0]++;
+            throw new IllegalStateException("unconnected");
+        }));
+        Assert.assertEquals(1, builds[0]);
+        Assert.assertEquals(1, registry.size());
+        TokenBucketLeaseRegistry.TokenLease lease = registry.getLease("user_1".getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals(0, lease.getAvailableCount());
+        Assert.assertEquals(0, lease.getInflightCount());
+    }
+
+    @Test
+    public void testTokenBucketLeaseRegistryLeaseTokens() {
+        List<Consumer<Boolean>> leaseCallbacks = new ArrayList<>();
+        TokenBucketLeaseRegistry registry = new TokenBucketLeaseRegistry() {
+            @Override
+            protected void leaseToken(io.github.snower.jaslock.TokenBucketFlow tokenBucketFlow, Consumer<Boolean> callback) {
+                leaseCallbacks.add(callback);
+            }
+        };
+        Assert.assertFalse(registry.tryAcquire("user_2", 4, 10, () -> null));
+        TokenBucketLeaseRegistry.TokenLease lease = registry.getLease("user_2");
+        Assert.assertEquals(1, leaseCallbacks.size());
+        Assert.assertEquals(1, lease.getInflightCount());
+        leaseCallbacks.get(0).accept(true);
+        Assert.assertEquals(1, lease.getAvailableCount());
+        Assert.assertEquals(0, lease.getInflightCount());
+
+        Assert.assertTrue(registry.tryAcquire("user_2", 4, 10, () -> null));
+        Assert.assertEquals(0, lease.getAvailableCount());
+        Assert.assertEquals(3, leaseCallbacks.size());
+        Assert.assertEquals(2, lease.getInflightCount());
+        leaseCallbacks.get(1).accept(false);
+        leaseCallbacks.get(2).accept(true);
+        Assert.assertEquals(1, lease.getAvailableCount());
+        Assert.assertEquals(0, lease.getInflightCount());
+
+        Assert.assertTrue(registry.tryAcquire("user_2", 4, 10, () -> null));
+        Assert.assertEquals(0, lease.getAvailableCount());
+        Assert.assertFalse(registry.tryAcquire("user_2", 4, 10, () -> null));
+    }
+
+    @Test
+    public void testTokenBucketLeaseRegistryWaitInflightLease() throws Exception {
+        List<Consumer<Boolean>> leaseCallbacks = new ArrayList<>();
+        TokenBucketLeaseRegistry registry = new TokenBucketLeaseRegistry() {
+            @Override
+            protected void leaseToken(io.github.snower.jaslock.TokenBucketFlow tokenBucketFlow, Consumer<Boolean> callback) {
+                leaseCallbacks.add(callback);
+            }
+        };
+        CompletableFuture<Boolean> waiter = registry.acquire("user_3", 8, 2, 10, () -> null);
+        TokenBucketLeaseRegistry.TokenLease lease = registry.getLease("user_3");
+        Assert.assertFalse(waiter.isDone());
+        Assert.assertEquals(1, leaseCallbacks.size());
+        Assert.assertEquals(1, lease.getWaitingCount());
+        CompletableFuture<Boolean> otherWaiter = registry.acquire("user_3", 8, 2, 10, () -> null);
+        Assert.assertEquals(3, leaseCallbacks.size());
+        Assert.assertEquals(2, lease.getWaitingCount());
+        leaseCallbacks.get(0).accept(true);
+        Assert.assertTrue(waiter.getNow(false));
+        Assert.assertFalse(otherWaiter.isDone());
+        Assert.assertEquals(0, lease.getAvailableCount());
+        leaseCallbacks.get(1).accept(false);
+        Assert.assertFalse(otherWaiter.isDone());
+        leaseCallbacks.get(2).accept(false);
+        Assert.assertFalse(otherWaiter.getNow(true));
+        Assert.assertEquals(0, lease.getWaitingCount());
+
+        waiter = registry.acquire("user_3", 8, 2, 10, () -> null);
+        Assert.assertEquals(5, leaseCallbacks.size());
+        Assert.assertFalse(TokenBucketLeaseRegistry.awaitLease(waiter, 10, TimeUnit.MILLISECONDS));
+        leaseCallbacks.get(3).accept(true);
+        leaseCallbacks.get(4).accept(true);
+        Assert.assertEquals(2, lease.getAvailableCount());
+        Assert.assertEquals(0, lease.getWaitingCount());
+
+        for (int i = 0; i < 10; i++) {
+            int leasedCount = leaseCallbacks.size();
+            registry.acquire("user_3", 8, 2, 10, () -> null);
+            Assert.assertTrue(lease.getAvailableCount() + lease.getInflightCount() <= 2);
+            for (int j = leasedCount; j < leaseCallbacks.size(); j++) {
+                leaseCallbacks.get(j).accept(true);
+            }
+        }
+        Assert.assertEquals(8, leaseCallbacks.size());
+    }
+
+    public static class RecordingPermit implements AsyncAspectSupport.AsyncPermit {
+        private final List<String> executions;
+
+        public RecordingPermit(List<String> executions) {
+            this.executions = executions;
+        }
+
+        @Override
+        public void acquire(AsyncAspectSupport.AsyncAcquireCallback callback) {
+            executions.add("acquire");
+            callback.acquired();
+        }
+
+        @Override
+        public void release(Object value, Throwable exception) {
+            executions.add("release:" + value + ":" + (exception == null ? null : exception.getClass().getSimpleName()));
+        }
+    }
+
+    public static class RecordingLockAspect extends LockAspect {
+        private final List<String> executions;
+
+        public RecordingLockAspect(List<String> executions) {
+            super(null);
+            this.executions = executions;
+        }
+
+        @Override
+        public Object execute(ProceedingJoinPoint joinPoint, Method method, KeyEvaluate keyEvaluate, Object key, Invocation next) throws Throwable {
+            executions.add("LockAspect:" + new String((byte[]) key, StandardCharsets.UTF_8));
+            return next.proceed();
+        }
+    }
+
+    public static class RecordingMaxConcurrentFlowAspect extends MaxConcurrentFlowAspect {
+        private final List<String> executions;
+
+        public RecordingMaxConcurrentFlowAspect(List<String> executions) {
+            super(null);
+            this.executions = executions;
+        }
+
+        @Override
+        public Object execute(ProceedingJoinPoint joinPoint, Method method, KeyEvaluate keyEvaluate, Object key, Invocation next) throws Throwable {
+            executions.add("MaxConcurrentFlowAspect:" + new String((byte[]) key, StandardCharsets.UTF_8));
+            return next.proceed();
+        }
+    }
+
+    public static class TestAdaptiveFlowAspect extends MaxConcurrentFlowAspect {
+        public TestAdaptiveFlowAspect() {
+            super(null);
+        }
+
+        @Override
+        protected Object executeFlow(ProceedingJoinPoint joinPoint, KeyEvaluate keyEvaluate, MaxConcurrentFlow maxConcurrentFlowAnnotation,
+                                     Object key, Invocation next) throws Throwable {
+            return next.proceed();
+        }
+    }
+
+    public static class AdaptiveFlowService {
+        @MaxConcurrentFlow(value = "flow_{arg0}", count = 2, adaptive = true, adaptiveMaxLimit = 20)
+        public String process(String userId) {
+            return userId;
+        }
+
+        @MaxConcurrentFlow(value = "flow", count = 2, adaptive = true)
+        public String processConst() {
+            return "flow";
+        }
+
+        @MaxConcurrentFlow(value = "flow_{arg0}", count = 2, adaptive = true)
+        public String processWithoutMaxLimit(String userId) {
+            return userId;
+        }
+    }
+
+    public static class RecordingTokenBucketFlowAspect extends TokenBucketFlowAspect {
+        private final List<String> executions;
+
+        public RecordingTokenBucketFlowAspect(List<String> executions) {
+            super(null);
+            this.executions = executions;
+        }
+
+        @Override
+        public Object execute(ProceedingJoinPoint joinPoint, Method method, KeyEvaluate keyEvaluate, Object key, Invocation next) throws Throwable {
+            executions.add("TokenBucketFlowAspect:" + new String((byte[]) key, StandardCharsets.UTF_8));
+            return next.proceed();
+        }
+    }
+
+    public static class FusedService {
+        @Lock("order_{arg0}")
+        @MaxConcurrentFlow("order_{arg0}")
+        @TokenBucketFlow("user_{arg1}")
+        public String process(String id, int userId) {
+            return id + userId;
+        }
+    }
+
+    public static class TestLockAspect extends LockAspect {
+        public TestLockAspect() {
+            super(null);
+        }
+
+        public Map<Method, KeyEvaluate> getKeyEvaluateCache() {
+            return keyEvaluateCache;
+        }
+    }
+
+    public static class LockedService {
+        @Lock("order_{arg0}")
+        public String process(String id) {
+            return id;
+        }
+
+        @Locks({@Lock("order_{arg0}"), @Lock("user_#{#p1}")})
+        public String processAll(String id, int userId) {
+            return id + userId;
+        }
+    }
+
+    public static class FallbackService {
+        @Lock(value = "order_{arg0}", fallback = "processFallback")
+        public String process(String id, int count) {
+            return id + ":" + count;
+        }
+
+        private String processFallback(String id, int count) {
+            return id + ":" + count + ":fallback";
+        }
+
+        private static String staticProcessFallback(String id, int count) {
+            return id + ":static";
+        }
+
+        private Integer invalidReturnFallback(String id, int count) {
+            return count;
+        }
+
+        @Lock(value = "order_{arg0}", fallback = "missingFallback")
+        public String processMissingFallback(String id) {
+            return id;
+        }
+    }
+
+    public static abstract class BaseFallbackService {
+        @Lock(value = "order_{arg0}", fallback = "subclassFallback")
+        public String process(String id) {
+            return id;
+        }
+    }
+
+    public static class SubclassFallbackService extends BaseFallbackService {
+        private String subclassFallback(String id) {
+            return id + ":subclass";
+        }
+    }
+
+    public static class AsyncService {
+        @Lock("order_{arg0}")
+        public CompletableFuture<String> process(String id) {
+            return CompletableFuture.completedFuture(id);
+        }
+
+        @Lock(value = "order_{arg0}", fallback = "fallback")
+        public CompletableFuture<String> processFallback(String id) {
+            return CompletableFuture.completedFuture(id);
+        }
+
+        @Lock(value = "order_{arg0}", localQueue = true)
+        public CompletableFuture<String> processLocalQueue(String id) {
+            return CompletableFuture.completedFuture(id);
+        }
+
+        @Lock(value = "order_{arg0}", autoRenew = true)
+        public CompletableFuture<String> processAutoRenew(String id) {
+            return CompletableFuture.completedFuture(id);
+        }
+
+        @MaxConcurrentFlow(value = "flow", count = 2, adaptive = true)
+        public CompletableFuture<String> processAdaptive(String id) {
+            return CompletableFuture.completedFuture(id);
+        }
+
+        private CompletableFuture<String> fallback(String id) {
+            return CompletableFuture.completedFuture(id);
+        }
+    }
+
+    public static class TestIdempotentAspect extends IdempotentAspect {
+        private final AtomicInteger executeCount = new AtomicInteger();
+
+        public TestIdempotentAspect() {
+            super(null, new JacksonSerializater());
+        }
+
+        @Override
+        protected Object executeIdempotent(ProceedingJoinPoint joinPoint, KeyEvaluate keyEvaluate, String key, Class<?> resultClass, Invocation next) throws Throwable {
+            executeCount.incrementAndGet();
+            return next.proceed();
+        }
+    }
+
+    public static class IdempotentService {
+        @Idempotent("order_{arg0}")
+        public String process(String id) {
+            return id;
+        }
+    }
+
+    public static class LocalQueueService {
+        @Lock(value = "stock_{arg0}", localQueue = true, timeout = 50, timeUnit = TimeUnit.MILLISECONDS, fallback = "processFallback")
+        public String process(String id) {
+            return id;
+        }
+
+        private String processFallback(String id) {
+            return id + ":fallback";
+        }
+
+        @Lock(value = "stock_{arg0}", localQueue = true, timeout = 50, timeUnit = TimeUnit.MILLISECONDS)
+        public String processWithoutFallback(String id) {
+            return id;
+        }
+    }
+
+    public static class InvalidLockedService {
+        @Lock("order_#{#p0.}")
+        public String process(String id) {
+            return id;
+        }
+    }
+
     public static class TestAspect extends AbstractBaseAspect {
 
         protected TestAspect(SlockTemplate slockTemplate) {
@@ -210,6 +1259,11 @@ public class AspectTest {
             keyEvaluateCache.remove(method);
             return keyEvaluate;
         }
+
+        @Override
+        public KeyEncoding resolveKeyEncoding(KeyEncoding keyEncoding) {
+            return super.resolveKeyEncoding(keyEncoding);
+        }
     }
 
     public static class TestClass {
@@ -220,6 +1274,10 @@ public class AspectTest {
         public Map<String, Object> process2(Map<String, Object> data) {
             return data;
         }
+
+        public String process3(TestDto t, FieldDto f) {
+            return t + "" + f;
+        }
     }
 
     public static class TestDto {
@@ -250,6 +1308,10 @@ public class AspectTest {
         public ValueDto getValueDto() {
             return valueDto;
         }
+
+        public String getError() {
+            throw new IllegalStateException("error");
+        }
     }
 
     public static class ValueDto {
@@ -281,4 +1343,20 @@ public class AspectTest {
             return map;
         }
     }
+
+    public static class FieldDto {
+        public String name;
+        public ValueDto valueDto;
+
+        public FieldDto(String name, ValueDto valueDto) {
+            this.name = name;
+            this.valueDto = valueDto;
+        }
+    }
+
+    private static class PrivateDto {
+        private long getId() {
+            return 10L;
+        }
+    }
 }
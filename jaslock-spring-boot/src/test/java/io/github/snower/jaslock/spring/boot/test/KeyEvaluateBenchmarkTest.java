@@ -0,0 +1,85 @@
+package io.github.snower.jaslock.spring.boot.test;
+
+import io.github.snower.jaslock.spring.boot.AbstractBaseAspect;
+import io.github.snower.jaslock.spring.boot.KeyEvaluationContext;
+import io.github.snower.jaslock.spring.boot.SlockTemplate;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.springframework.core.StandardReflectionParameterNameDiscoverer;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ParserContext;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.lang.reflect.Method;
+
+/**
+ * Manual key evaluate timing, run explicitly when comparing key evaluates, correctness is covered by AspectTest.
+ */
+public class KeyEvaluateBenchmarkTest {
+    private static final int WARMUP_COUNT = 20000;
+    private static final int BENCHMARK_COUNT = 200000;
+
+    @Test
+    @Ignore("manual benchmark")
+    public void benchmarkSPELKeyEvaluate() throws NoSuchMethodException {
+        BenchmarkAspect compiledAspect = new BenchmarkAspect(null, SpelCompilerMode.IMMEDIATE);
+        BenchmarkAspect interpretedAspect = new BenchmarkAspect(null, SpelCompilerMode.OFF);
+
+        AspectTest.TestClass t = new AspectTest.TestClass();
+        Method m = t.getClass().getMethod("process", int.class, String.class, java.time.LocalDateTime.class, AspectTest.TestDto.class);
+        Object[] args = new Object[]{1, "a", null, new AspectTest.TestDto("b", 2, null)};
+
+        AbstractBaseAspect.KeyEvaluate valueGetterKeyEvaluate = compiledAspect.compileKeyEvaluate(m, "order_{arg3.age}_{arg1}");
+        AbstractBaseAspect.KeyEvaluate compiledKeyEvaluate = compiledAspect.compileKeyEvaluate(m, "order_#{#p3.age}_#{#p1}");
+        AbstractBaseAspect.KeyEvaluate interpretedKeyEvaluate = interpretedAspect.compileKeyEvaluate(m, "order_#{#p3.age}_#{#p1}");
+
+        Expression expression = new SpelExpressionParser(new SpelParserConfiguration(SpelCompilerMode.OFF, getClass().getClassLoader()))
+                .parseExpression("order_#{#p3.age}_#{#p1}", ParserContext.TEMPLATE_EXPRESSION);
+        StandardReflectionParameterNameDiscoverer parameterNameDiscoverer = new StandardReflectionParameterNameDiscoverer();
+        StandardEvaluationContext parentContext = new StandardEvaluationContext();
+        AbstractBaseAspect.KeyEvaluate contextKeyEvaluate = (method, arguments, target) -> expression.getValue(
+                new KeyEvaluationContext(target, method, arguments, parameterNameDiscoverer, parentContext), String.class);
+
+        AbstractBaseAspect.KeyEvaluate[] keyEvaluates = new AbstractBaseAspect.KeyEvaluate[]{valueGetterKeyEvaluate,
+                compiledKeyEvaluate, interpretedKeyEvaluate, contextKeyEvaluate};
+        String[] names = new String[]{"value getter", "compiled spel", "interpreted spel", "spel new context"};
+        for (int i = 0; i < keyEvaluates.length; i++) {
+            long nanos = run(keyEvaluates[i], m, args, t);
+            System.out.printf("KeyEvaluate %s: %.1f ns/op%n", names[i], (double) nanos / BENCHMARK_COUNT);
+        }
+    }
+
+    private long run(AbstractBaseAspect.KeyEvaluate keyEvaluate, Method method, Object[] args, Object target) {
+        int length = 0;
+        for (int i = 0; i < WARMUP_COUNT; i++) {
+            length += keyEvaluate.evaluate(method, args, target).length();
+        }
+        long startTime = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_COUNT; i++) {
+            length += keyEvaluate.evaluate(method, args, target).length();
+        }
+        long nanos = System.nanoTime() - startTime;
+        Assert.assertEquals((long) (WARMUP_COUNT + BENCHMARK_COUNT) * 9, length);
+        return nanos;
+    }
+
+    public static class BenchmarkAspect extends AbstractBaseAspect {
+        protected BenchmarkAspect(SlockTemplate slockTemplate, SpelCompilerMode spelCompilerMode) {
+            super(slockTemplate);
+            this.spelCompilerMode = spelCompilerMode;
+            this.spelExpressionParser = new SpelExpressionParser(new SpelParserConfiguration(spelCompilerMode,
+                    getClass().getClassLoader()));
+        }
+
+        @Override
+        public KeyEvaluate compileKeyEvaluate(Method method, String templateKey) {
+            KeyEvaluate keyEvaluate = super.compileKeyEvaluate(method, templateKey);
+            keyEvaluateCache.remove(method);
+            return keyEvaluate;
+        }
+    }
+}
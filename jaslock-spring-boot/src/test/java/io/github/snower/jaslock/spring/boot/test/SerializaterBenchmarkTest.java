@@ -0,0 +1,251 @@
+package io.github.snower.jaslock.spring.boot.test;
+
+import io.github.snower.jaslock.spring.boot.CompressionSerializater;
+import io.github.snower.jaslock.spring.boot.EventFuture;
+import io.github.snower.jaslock.spring.boot.JacksonSerializater;
+import io.github.snower.jaslock.spring.boot.SerializateBuffer;
+import io.github.snower.jaslock.spring.boot.SlockSerializater;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class SerializaterBenchmarkTest {
+    private static final int WARMUP_COUNT = 5000;
+    private static final int BENCHMARK_COUNT = 50000;
+
+    @Test
+    public void testJacksonSerializater() throws IOException {
+        JacksonSerializater serializater = new JacksonSerializater();
+        BenchmarkDto dto = BenchmarkDto.create();
+        Object result = serializater.deserialize(serializater.serializate(dto), BenchmarkDto.class);
+        Assert.assertEquals(dto, result);
+
+        List<BenchmarkDto> dtos = Arrays.asList(dto, dto);
+        Object results = serializater.deserialize(serializater.serializate(dtos), new SlockSerializater.TypeReference<List<BenchmarkDto>>() {});
+        Assert.assertEquals(dtos, results);
+
+        Object eventResult = serializater.deserialize(serializater.serializate(new EventFuture.EventResult<>("a")),
+                new SlockSerializater.TypeReference<EventFuture.EventResult<String>>() {});
+        Assert.assertTrue(eventResult instanceof EventFuture.EventResult);
+        Assert.assertEquals("a", ((EventFuture.EventResult<?>) eventResult).getResult());
+        Assert.assertNull(((EventFuture.EventResult<?>) eventResult).getException());
+    }
+
+    @Test
+    public void testEventFutureResultType() throws IOException {
+        List<SlockSerializater> serializaters = new ArrayList<>();
+        serializaters.add(new SlockSerializater.ObjectSerializater());
+        serializaters.add(new JacksonSerializater());
+        if (JacksonSerializater.isSmileAvailable()) {
+            serializaters.add(JacksonSerializater.newSmileSerializater());
+        }
+        BenchmarkDto dto = BenchmarkDto.create();
+        for (SlockSerializater serializater : serializaters) {
+            byte[] data = serializater.serializate(new EventFuture.EventResult<>(dto));
+            Object eventResult = serializater.deserialize(data, EventFuture.newResultTypeReference(BenchmarkDto.class));
+            Assert.assertTrue(eventResult instanceof EventFuture.EventResult);
+            Assert.assertEquals(dto, ((EventFuture.EventResult<?>) eventResult).getResult());
+
+            List<BenchmarkDto> dtos = Arrays.asList(dto, dto);
+            data = serializater.serializate(new EventFuture.EventResult<>(dtos));
+            eventResult = serializater.deserialize(data, EventFuture.newResultTypeReference(
+                    new SlockSerializater.TypeReference<List<BenchmarkDto>>() {}.getType()));
+            Assert.assertEquals(dtos, ((EventFuture.EventResult<?>) eventResult).getResult());
+        }
+    }
+
+    @Test
+    public void testSerializateBuffer() throws Exception {
+        CompletableFuture<Void> bufferFuture = CompletableFuture.runAsync(() -> {
+            SerializateBuffer buffer = SerializateBuffer.acquire();
+            Assert.assertNotSame(buffer, SerializateBuffer.acquire());
+            buffer.write(new byte[1000], 0, 1000);
+            buffer.release();
+            Assert.assertEquals(1000, buffer.getAverageSize());
+            Assert.assertSame(buffer, SerializateBuffer.acquire());
+            Assert.assertEquals(0, buffer.size());
+            buffer.write(new byte[SerializateBuffer.getMaxRetainedCapacity() * 2], 0, SerializateBuffer.getMaxRetainedCapacity() * 2);
+            buffer.release();
+            Assert.assertTrue(buffer.getBuffer().length <= SerializateBuffer.getMaxRetainedCapacity());
+            Assert.assertTrue(SerializateBuffer.acquire().getBuffer().length <= SerializateBuffer.getMaxRetainedCapacity());
+            buffer.release();
+        }, runnable -> new Thread(runnable).start());
+        bufferFuture.get();
+
+        BenchmarkDto dto = BenchmarkDto.create();
+        SlockSerializater[] serializaters = new SlockSerializater[]{new SlockSerializater.ObjectSerializater(), new JacksonSerializater()};
+        for (SlockSerializater serializater : serializaters) {
+            byte[] data = SerializateBuffer.serializate(serializater, dto);
+            Assert.assertArrayEquals(serializater.serializate(dto), data);
+            byte[] slice = new byte[data.length + 8];
+            System.arraycopy(data, 0, slice, 4, data.length);
+            Assert.assertEquals(dto, serializater.deserialize(slice, 4, data.length, BenchmarkDto.class));
+            Assert.assertEquals(dto, serializater.deserialize(slice, 4, data.length, new SlockSerializater.TypeReference<BenchmarkDto>() {}));
+        }
+    }
+
+    @Test
+    public void testCompressionSerializater() throws IOException {
+        SlockSerializater serializater = new SlockSerializater.ObjectSerializater();
+        CompressionSerializater compressionSerializater = new CompressionSerializater(serializater,
+                CompressionSerializater.Algorithm.DEFLATE, 1024);
+        BenchmarkDto dto = BenchmarkDto.create();
+        byte[] data = compressionSerializater.serializate(dto);
+        Assert.assertArrayEquals(serializater.serializate(dto), data);
+        Assert.assertEquals(dto, compressionSerializater.deserialize(data, BenchmarkDto.class));
+
+        List<BenchmarkDto> dtos = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            dtos.add(BenchmarkDto.create());
+            dtos.get(i).setId(i);
+        }
+        byte[] uncompressedData = serializater.serializate(dtos);
+        data = compressionSerializater.serializate(dtos);
+        Assert.assertTrue(CompressionSerializater.isCompressed(data, 0, data.length));
+        Assert.assertTrue(data.length < uncompressedData.length / 4);
+        Assert.assertEquals(dtos, compressionSerializater.deserialize(data, List.class));
+        Assert.assertEquals(dtos, compressionSerializater.deserialize(data, new SlockSerializater.TypeReference<List<BenchmarkDto>>() {}));
+        Assert.assertEquals(dtos, compressionSerializater.deserialize(uncompressedData, List.class));
+
+        Assert.assertNotNull(new CompressionSerializater(new JacksonSerializater(), CompressionSerializater.Algorithm.DEFLATE, 1024));
+        Assert.assertThrows(IllegalArgumentException.class, () -> new CompressionSerializater(new SlockSerializater() {
+            @Override
+            public byte[] serializate(Object object) {
+                return new byte[]{0, 0, 0, 0, 0, 0, 0, 0};
+            }
+
+            @Override
+            public Object deserialize(byte[] data, Class<?> clsType) {
+                return null;
+            }
+
+            @Override
+            public Object deserialize(byte[] data, TypeReference<?> typeReference) {
+                return null;
+            }
+        }, CompressionSerializater.Algorithm.DEFLATE, 1024));
+    }
+
+    @Test
+    public void testSerializaterRoundTrip() throws IOException {
+        BenchmarkDto dto = BenchmarkDto.create();
+        for (SlockSerializater serializater : newSerializaters(new ArrayList<>())) {
+            byte[] data = serializater.serializate(dto);
+            Assert.assertTrue(data.length > 0);
+            Assert.assertEquals(dto, serializater.deserialize(data, BenchmarkDto.class));
+            Assert.assertEquals(dto, serializater.deserialize(data, new SlockSerializater.TypeReference<BenchmarkDto>() {}));
+        }
+    }
+
+    @Test
+    @Ignore("manual benchmark")
+    public void benchmarkSerializater() throws IOException {
+        List<String> names = new ArrayList<>();
+        List<SlockSerializater> serializaters = newSerializaters(names);
+        BenchmarkDto dto = BenchmarkDto.create();
+        long[] nanos = new long[serializaters.size()];
+        for (int i = 0; i < serializaters.size(); i++) {
+            nanos[i] = run(serializaters.get(i), dto);
+        }
+        for (int i = 0; i < serializaters.size(); i++) {
+            Assert.assertTrue(names.get(i), nanos[i] > 0);
+        }
+    }
+
+    private List<SlockSerializater> newSerializaters(List<String> names) {
+        List<SlockSerializater> serializaters = new ArrayList<>();
+        serializaters.add(new SlockSerializater.ObjectSerializater());
+        names.add("java");
+        serializaters.add(new JacksonSerializater());
+        names.add("json");
+        if (JacksonSerializater.isSmileAvailable()) {
+            serializaters.add(JacksonSerializater.newSmileSerializater());
+            names.add("smile");
+        }
+        return serializaters;
+    }
+
+    private long run(SlockSerializater serializater, BenchmarkDto dto) throws IOException {
+        int length = 0;
+        for (int i = 0; i < WARMUP_COUNT; i++) {
+            length += ((BenchmarkDto) serializater.deserialize(serializater.serializate(dto), BenchmarkDto.class)).getTags().size();
+        }
+        long startTime = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_COUNT; i++) {
+            length += ((BenchmarkDto) serializater.deserialize(serializater.serializate(dto), BenchmarkDto.class)).getTags().size();
+        }
+        long nanos = System.nanoTime() - startTime;
+        Assert.assertEquals((long) (WARMUP_COUNT + BENCHMARK_COUNT) * dto.getTags().size(), length);
+        return nanos;
+    }
+
+    public static class BenchmarkDto implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private long id;
+        private String name;
+        private double amount;
+        private List<String> tags;
+
+        public static BenchmarkDto create() {
+            BenchmarkDto dto = new BenchmarkDto();
+            dto.setId(1000001L);
+            dto.setName("order_1000001");
+            dto.setAmount(99.5);
+            dto.setTags(Arrays.asList("a", "b", "c"));
+            return dto;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public double getAmount() {
+            return amount;
+        }
+
+        public void setAmount(double amount) {
+            this.amount = amount;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+
+        public void setTags(List<String> tags) {
+            this.tags = tags;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof BenchmarkDto)) return false;
+            BenchmarkDto that = (BenchmarkDto) o;
+            return id == that.id && Double.compare(that.amount, amount) == 0
+                    && name.equals(that.name) && tags.equals(that.tags);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(id);
+        }
+    }
+}
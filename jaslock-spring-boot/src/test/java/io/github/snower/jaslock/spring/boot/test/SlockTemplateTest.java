@@ -17,7 +17,13 @@ import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.expression.spel.support.StandardTypeLocator;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -93,4 +99,142 @@ public class SlockTemplateTest {
             slockTemplate.close();
         }
     }
+
+    @Test
+    public void testEventFutureAsync() throws IOException, SlockException, ExecutionException, InterruptedException {
+        SlockTemplate slockTemplate = new SlockTemplate(SlockConfiguration.newBuilder()
+                .build(), new SlockSerializater.ObjectSerializater());
+        slockTemplate.open();
+        try {
+            CompletableFuture<String> future = slockTemplate.newEventFutureAsync("testEventFutureAsync", 5, TimeUnit.SECONDS);
+            EventFuture<String> eventFuture = slockTemplate.newEventFuture("testEventFutureAsync");
+            eventFuture.setResult("Test");
+            Assert.assertEquals(future.get(), "Test");
+            slockTemplate.newEventFuture("testEventFutureAsync").close();
+            CompletableFuture<String> future1 = slockTemplate.newEventFutureAsync("testEventFutureAsync", 5, TimeUnit.SECONDS);
+            CompletableFuture<String> future2 = slockTemplate.newEventFutureAsync("testEventFutureAsync", 5, TimeUnit.SECONDS);
+            Assert.assertEquals(1, slockTemplate.getEventWaitRegistry().size());
+            slockTemplate.newEventFuture("testEventFutureAsync").setResult("Test2");
+            Assert.assertEquals(future1.get(), "Test2");
+            Assert.assertEquals(future2.get(), "Test2");
+            slockTemplate.newEventFuture("testEventFutureAsync").close();
+            CompletableFuture<String> future3 = slockTemplate.newEventFutureAsync("testEventFutureAsync", 100, TimeUnit.MILLISECONDS);
+            try {
+                future3.get();
+                throw new SlockException();
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof TimeoutException);
+            }
+            Assert.assertEquals(1, slockTemplate.getEventWaitRegistry().size());
+            CompletableFuture<String> future4 = slockTemplate.newEventFutureAsync("testEventFutureAsync", 5, TimeUnit.SECONDS);
+            Assert.assertEquals(1, slockTemplate.getEventWaitRegistry().size());
+            slockTemplate.newEventFuture("testEventFutureAsync").setResult("Test3");
+            Assert.assertEquals(future4.get(), "Test3");
+            slockTemplate.newEventFuture("testEventFutureAsync").close();
+            future = slockTemplate.newEventFutureAsync("testEventFutureAsync", 0, TimeUnit.SECONDS);
+            try {
+                future.get();
+                throw new SlockException();
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof TimeoutException);
+            }
+        } finally {
+            slockTemplate.close();
+        }
+    }
+
+    @Test
+    public void testEventFutures() throws IOException, SlockException, ExecutionException, InterruptedException {
+        SlockTemplate slockTemplate = new SlockTemplate(SlockConfiguration.newBuilder()
+                .build(), new SlockSerializater.ObjectSerializater());
+        slockTemplate.open();
+        try {
+            String eventKey = "testEventFutures" + System.nanoTime();
+            List<EventFuture<String>> eventFutures = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                eventFutures.add(slockTemplate.newEventFuture(eventKey + ":" + i));
+            }
+            CompletableFuture<String> anyFuture = EventFutures.anyOf(eventFutures, 5, TimeUnit.SECONDS);
+            CompletableFuture<List<EventFuture.EventResult<String>>> allFuture = EventFutures.allOf(eventFutures, 1, TimeUnit.SECONDS);
+            slockTemplate.<String>newEventFuture(eventKey + ":1").setResult("Test1", 10, TimeUnit.SECONDS);
+            Assert.assertEquals(anyFuture.get(), "Test1");
+            slockTemplate.<String>newEventFuture(eventKey + ":0").setException(new IllegalStateException(), 10, TimeUnit.SECONDS);
+            List<EventFuture.EventResult<String>> results = allFuture.get();
+            Assert.assertEquals(3, results.size());
+            Assert.assertTrue(results.get(0).getException() instanceof IllegalStateException);
+            Assert.assertEquals(results.get(1).getResult(), "Test1");
+            Assert.assertTrue(results.get(2).getException() instanceof TimeoutException);
+        } finally {
+            slockTemplate.close();
+        }
+    }
+
+    @Test
+    public void testEventStream() throws IOException, SlockException, ExecutionException, InterruptedException {
+        SlockTemplate slockTemplate = new SlockTemplate(SlockConfiguration.newBuilder()
+                .build(), new SlockSerializater.ObjectSerializater());
+        slockTemplate.open();
+        try {
+            String streamKey = "testEventStream" + System.nanoTime();
+            EventStream<String> eventStream = slockTemplate.newEventStream(streamKey);
+            eventStream.setChunkExpried(10, TimeUnit.SECONDS);
+            Assert.assertEquals(0, eventStream.publish("a"));
+            Assert.assertEquals(1, eventStream.publish("b"));
+            eventStream.complete();
+
+            List<String> chunks = new ArrayList<>();
+            for (String chunk : slockTemplate.<String>newEventStream(streamKey)) {
+                chunks.add(chunk);
+            }
+            Assert.assertEquals(Arrays.asList("a", "b"), chunks);
+            List<String> asyncChunks = new ArrayList<>();
+            slockTemplate.<String>newEventStream(streamKey).forEachAsync(1, asyncChunks::add).get();
+            Assert.assertEquals(Arrays.asList("b"), asyncChunks);
+
+            streamKey = "testEventStream" + System.nanoTime();
+            eventStream = slockTemplate.newEventStream(streamKey);
+            eventStream.publish("a");
+            eventStream.completeExceptionally(new IllegalStateException());
+            Iterator<String> iterator = slockTemplate.<String>newEventStream(streamKey).iterator();
+            Assert.assertEquals("a", iterator.next());
+            try {
+                iterator.hasNext();
+                throw new SlockException();
+            } catch (CompletionException e) {
+                Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+        } finally {
+            slockTemplate.close();
+        }
+    }
+
+    @Test
+    public void testTaskExecutor() throws IOException, SlockException, ExecutionException, InterruptedException {
+        SlockTemplate slockTemplate = new SlockTemplate(SlockConfiguration.newBuilder()
+                .build(), new SlockSerializater.ObjectSerializater());
+        slockTemplate.open();
+        SlockTaskExecutor taskExecutor = SlockTaskExecutor.newBuilder(slockTemplate, "testTaskExecutor")
+                .setSlotCount(4).setBatchSize(2).setParallelism(2).setTaskTimeout(10, TimeUnit.SECONDS).build();
+        try {
+            taskExecutor.start(payload -> (Integer) payload * 2);
+            CompletableFuture<Integer> future = taskExecutor.submitTask(21);
+            Assert.assertEquals((int) future.get(), 42);
+            List<CompletableFuture<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                futures.add(taskExecutor.submitTask(i));
+            }
+            for (int i = 0; i < 10; i++) {
+                Assert.assertEquals((int) futures.get(i).get(), i * 2);
+            }
+            try {
+                taskExecutor.submitTask("a").get();
+                throw new SlockException();
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof ClassCastException);
+            }
+        } finally {
+            taskExecutor.close();
+            slockTemplate.close();
+        }
+    }
 }